@@ -0,0 +1,94 @@
+package com.michael.backendservice.cluster;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link LeaseStore} backed by a small DynamoDB table with one item per replica.
+ * <p>
+ * {@code expiresAt} (epoch millis) decides liveness. DynamoDB TTL on {@code ttl} only
+ * garbage-collects leases of replicas that stopped without releasing, since TTL deletion can
+ * lag by hours and is not relied on for correctness.
+ */
+@Component
+@ConditionalOnProperty(name = "app.poller.leases.store", havingValue = "dynamodb", matchIfMissing = true)
+public class DynamoDbLeaseStore implements LeaseStore {
+
+    private static final Duration TTL_GRACE = Duration.ofHours(1);
+
+    private final DynamoDbClient ddb;
+    private final String leasesTable;
+
+    public DynamoDbLeaseStore(
+            DynamoDbClient ddb,
+            @Value("${app.poller.leases.table:cloud-data-platform-dev-poller-leases}") String leasesTable
+    ) {
+        this.ddb = ddb;
+        this.leasesTable = leasesTable;
+    }
+
+    @Override
+    public void renew(String memberId, Instant expiresAt) {
+        ddb.putItem(PutItemRequest.builder()
+                .tableName(leasesTable)
+                .item(Map.of(
+                        "memberId", AttributeValue.fromS(memberId),
+                        "expiresAt", AttributeValue.fromN(Long.toString(expiresAt.toEpochMilli())),
+                        "ttl", AttributeValue.fromN(Long.toString(expiresAt.plus(TTL_GRACE).getEpochSecond()))
+                ))
+                .build());
+    }
+
+    @Override
+    public void release(String memberId) {
+        ddb.deleteItem(DeleteItemRequest.builder()
+                .tableName(leasesTable)
+                .key(Map.of("memberId", AttributeValue.fromS(memberId)))
+                .build());
+    }
+
+    @Override
+    public Set<String> liveMembers(Instant now) {
+        Set<String> members = new HashSet<>();
+        Map<String, AttributeValue> startKey = null;
+
+        do {
+            ScanRequest.Builder builder = ScanRequest.builder()
+                    .tableName(leasesTable)
+                    .consistentRead(true)
+                    .filterExpression("#expiresAt > :now")
+                    .expressionAttributeNames(Map.of("#expiresAt", "expiresAt"))
+                    .expressionAttributeValues(Map.of(
+                            ":now", AttributeValue.fromN(Long.toString(now.toEpochMilli()))
+                    ));
+
+            if (startKey != null) {
+                builder.exclusiveStartKey(startKey);
+            }
+
+            ScanResponse response = ddb.scan(builder.build());
+            for (Map<String, AttributeValue> item : response.items()) {
+                members.add(item.get("memberId").s());
+            }
+
+            startKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                    ? response.lastEvaluatedKey()
+                    : null;
+        } while (startKey != null);
+
+        return members;
+    }
+}
@@ -0,0 +1,39 @@
+package com.michael.backendservice.cluster;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Process-local {@link LeaseStore} for local runs and tests, where there is a single replica.
+ * Enabled with {@code app.poller.leases.store=memory}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.poller.leases.store", havingValue = "memory")
+public class InMemoryLeaseStore implements LeaseStore {
+
+    private final Map<String, Instant> leases = new ConcurrentHashMap<>();
+
+    @Override
+    public void renew(String memberId, Instant expiresAt) {
+        leases.put(memberId, expiresAt);
+    }
+
+    @Override
+    public void release(String memberId) {
+        leases.remove(memberId);
+    }
+
+    @Override
+    public Set<String> liveMembers(Instant now) {
+        return leases.entrySet().stream()
+                .filter(e -> e.getValue().isAfter(now))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+}
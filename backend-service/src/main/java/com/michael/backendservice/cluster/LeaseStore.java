@@ -0,0 +1,26 @@
+package com.michael.backendservice.cluster;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Time-limited membership leases for backend-service replicas. A replica is live while it
+ * keeps renewing its lease before it expires.
+ */
+public interface LeaseStore {
+
+    /**
+     * Creates or extends the lease held by {@code memberId} until {@code expiresAt}.
+     */
+    void renew(String memberId, Instant expiresAt);
+
+    /**
+     * Gives up the lease so other replicas take over immediately instead of waiting for expiry.
+     */
+    void release(String memberId);
+
+    /**
+     * @return the ids of members whose lease has not expired at {@code now}
+     */
+    Set<String> liveMembers(Instant now);
+}
@@ -0,0 +1,119 @@
+package com.michael.backendservice.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Splits status polling across live backend-service replicas.
+ * <p>
+ * Each replica heartbeats a lease in the {@link LeaseStore} and rebuilds a
+ * {@link ConsistentHashRing} of the replicas whose leases are live; a unit of polling work (a
+ * shard of the active-jobs index, or a cluster-wide sweep) is done only by the replica that
+ * owns its key on the ring. When a replica stops, its lease expires (or is released on
+ * shutdown) and its work moves to the remaining replicas. During membership changes two
+ * replicas may briefly poll the same job, which is safe because status writes are
+ * conditional.
+ */
+@Component
+public class PollerMembership implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PollerMembership.class);
+
+    private final LeaseStore leaseStore;
+    private final String replicaId;
+    private final Duration leaseDuration;
+    private final int virtualNodes;
+    private volatile ConsistentHashRing ring;
+    private volatile Set<String> members;
+
+    public PollerMembership(
+            LeaseStore leaseStore,
+            @Value("${app.poller.leases.replicaId:}") String replicaId,
+            @Value("${app.poller.leases.duration:30s}") Duration leaseDuration,
+            @Value("${app.poller.leases.virtualNodes:64}") int virtualNodes
+    ) {
+        this.leaseStore = leaseStore;
+        this.replicaId = replicaId == null || replicaId.isBlank() ? UUID.randomUUID().toString() : replicaId;
+        this.leaseDuration = leaseDuration;
+        this.virtualNodes = virtualNodes;
+        // Until the first heartbeat, act as the only replica
+        this.members = Set.of(this.replicaId);
+        this.ring = new ConsistentHashRing(members, virtualNodes);
+    }
+
+    @Scheduled(fixedDelayString = "${app.poller.leases.heartbeatIntervalMs:10000}")
+    public void heartbeat() {
+        try {
+            Instant now = Instant.now();
+            leaseStore.renew(replicaId, now.plus(leaseDuration));
+
+            Set<String> live = new TreeSet<>(leaseStore.liveMembers(now));
+            live.add(replicaId);
+
+            if (!live.equals(members)) {
+                log.info("Poller membership changed: {} replicas {}", live.size(), live);
+                members = live;
+                ring = new ConsistentHashRing(live, virtualNodes);
+            }
+        } catch (Exception e) {
+            // Keep the last known ring; conditional writes make overlapping ownership safe
+            log.warn("Poller lease heartbeat failed for replica {}: {}", replicaId, e.getMessage());
+        }
+    }
+
+    /**
+     * @return true if this replica is responsible for the work identified by {@code key}
+     */
+    public boolean owns(String key) {
+        return replicaId.equals(ring.ownerOf(key));
+    }
+
+    /**
+     * @return the shards, out of {@code shardCount}, of the active-jobs index this replica owns
+     */
+    public List<Integer> ownedShards(int shardCount) {
+        List<Integer> owned = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            if (ownsShard(shard)) {
+                owned.add(shard);
+            }
+        }
+        return owned;
+    }
+
+    public boolean ownsShard(int shard) {
+        return owns("activeStatus#" + shard);
+    }
+
+    /**
+     * @return the number of replicas with live leases, including this one
+     */
+    public int memberCount() {
+        return members.size();
+    }
+
+    public String replicaId() {
+        return replicaId;
+    }
+
+    @Override
+    public void destroy() {
+        try {
+            leaseStore.release(replicaId);
+        } catch (Exception e) {
+            log.warn("Failed to release poller lease for replica {}: {}", replicaId, e.getMessage());
+        }
+    }
+}
@@ -1,20 +1,78 @@
 package com.michael.backendservice.config;
 
+import com.michael.backendservice.resilience.CircuitBreakers;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+
+import java.time.Duration;
 
 @Configuration
 public class DynamoDbConfig {
 
+    /**
+     * Attempt timeouts keep one slow request from holding a caller; the SDK retries the
+     * attempt within the overall call timeout. The shared circuit breaker fails calls fast
+     * while DynamoDB is unhealthy. Bulk requests carry longer per-request timeouts (see
+     * {@code app.resilience.dynamodb.bulkAttemptTimeout}) and their timeouts and throttling
+     * are not counted by the breaker.
+     */
     @Bean
-    public DynamoDbClient dynamoDbClient(@Value("${app.aws.region}") String region) {
+    public DynamoDbClient dynamoDbClient(
+            @Value("${app.aws.region}") String region,
+            @Value("${app.resilience.dynamodb.attemptTimeout:1s}") Duration attemptTimeout,
+            @Value("${app.resilience.dynamodb.callTimeout:5s}") Duration callTimeout,
+            CircuitBreakers circuitBreakers
+    ) {
         return DynamoDbClient.builder()
                 .region(Region.of(region))
                 .credentialsProvider(DefaultCredentialsProvider.create())
+                .overrideConfiguration(circuitBreakers.clientOverrides(
+                        CircuitBreakers.DYNAMODB, attemptTimeout, callTimeout, DynamoDbConfig::isBulkRequest))
                 .build();
     }
+
+    /**
+     * Non-blocking client on Netty. maxConcurrency bounds open connections (and so in-flight
+     * requests) per task; requests beyond it wait up to the acquisition timeout for a connection.
+     */
+    @Bean
+    public DynamoDbAsyncClient dynamoDbAsyncClient(
+            @Value("${app.aws.region}") String region,
+            @Value("${app.dynamodb.async.maxConcurrency:200}") int maxConcurrency,
+            @Value("${app.dynamodb.async.connectionAcquisitionTimeout:2s}") Duration connectionAcquisitionTimeout,
+            @Value("${app.dynamodb.async.connectionMaxIdleTime:60s}") Duration connectionMaxIdleTime,
+            @Value("${app.resilience.dynamodb.attemptTimeout:1s}") Duration attemptTimeout,
+            @Value("${app.resilience.dynamodb.callTimeout:5s}") Duration callTimeout,
+            CircuitBreakers circuitBreakers
+    ) {
+        return DynamoDbAsyncClient.builder()
+                .region(Region.of(region))
+                .credentialsProvider(DefaultCredentialsProvider.create())
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(maxConcurrency)
+                        .connectionAcquisitionTimeout(connectionAcquisitionTimeout)
+                        .connectionMaxIdleTime(connectionMaxIdleTime)
+                        .tcpKeepAlive(true))
+                .overrideConfiguration(circuitBreakers.clientOverrides(
+                        CircuitBreakers.DYNAMODB, attemptTimeout, callTimeout, DynamoDbConfig::isBulkRequest))
+                .build();
+    }
+
+    private static boolean isBulkRequest(SdkRequest request) {
+        return request instanceof BatchWriteItemRequest
+                || request instanceof BatchGetItemRequest
+                || request instanceof TransactWriteItemsRequest
+                || request instanceof ScanRequest;
+    }
 }
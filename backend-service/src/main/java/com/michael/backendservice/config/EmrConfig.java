@@ -1,21 +1,32 @@
 package com.michael.backendservice.config;
 
+import com.michael.backendservice.jobs.SparkSizingProperties;
+import com.michael.backendservice.resilience.CircuitBreakers;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.emrserverless.EmrServerlessClient;
 
+import java.time.Duration;
+
 @Configuration
+@EnableConfigurationProperties(SparkSizingProperties.class)
 public class EmrConfig {
 
     @Value("${app.aws.region}")
     private String awsRegion;
 
     @Bean
-    public EmrServerlessClient emrServerlessClient() {
+    public EmrServerlessClient emrServerlessClient(
+            @Value("${app.resilience.emr.attemptTimeout:5s}") Duration attemptTimeout,
+            @Value("${app.resilience.emr.callTimeout:20s}") Duration callTimeout,
+            CircuitBreakers circuitBreakers
+    ) {
         return EmrServerlessClient.builder()
                 .region(Region.of(awsRegion))
+                .overrideConfiguration(circuitBreakers.clientOverrides(CircuitBreakers.EMR, attemptTimeout, callTimeout))
                 .build();
     }
 }
\ No newline at end of file
@@ -1,22 +1,36 @@
 package com.michael.backendservice.config;
 
+import com.michael.backendservice.resilience.CircuitBreakers;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
+import java.time.Duration;
+
 @Configuration
 public class S3Config {
 
     @Value("${app.aws.region}")
     private String awsRegion;
 
+    /**
+     * CompleteMultipartUpload sets its own, longer timeout; a slow completion is not counted
+     * against the S3 circuit breaker.
+     */
     @Bean
-    public S3Client s3Client() {
+    public S3Client s3Client(
+            @Value("${app.resilience.s3.attemptTimeout:5s}") Duration attemptTimeout,
+            @Value("${app.resilience.s3.callTimeout:30s}") Duration callTimeout,
+            CircuitBreakers circuitBreakers
+    ) {
         return S3Client.builder()
                 .region(Region.of(awsRegion))
+                .overrideConfiguration(circuitBreakers.clientOverrides(CircuitBreakers.S3, attemptTimeout, callTimeout,
+                        request -> request instanceof CompleteMultipartUploadRequest))
                 .build();
     }
 
@@ -0,0 +1,246 @@
+package com.michael.backendservice.jobs;
+
+import com.michael.backendservice.observability.MetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.emrserverless.model.JobRun;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls each RUNNING job on its own schedule instead of a shared fixed tick.
+ * <p>
+ * A tracked job is first checked {@code app.poller.adaptive.initialInterval} after it is seen,
+ * then at intervals growing by {@code multiplier} up to {@code maxInterval}, so short jobs are
+ * noticed quickly and long jobs cost few EMR calls. With {@code seedFromHistory} the first
+ * check of a job is pushed out to shortly before the typical job duration (an exponentially
+ * weighted average of recent completions), which may be longer than {@code maxInterval};
+ * after that check polling starts fast again.
+ * <p>
+ * Jobs are tracked by {@link JobStatusPoller} discovery and when their EMR run is started.
+ * The dispatcher thread only runs when {@code app.poller.mode} is {@code adaptive}.
+ */
+@Component
+public class AdaptivePollScheduler implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptivePollScheduler.class);
+
+    private static final double DURATION_EWMA_WEIGHT = 0.2;
+    private static final double SEED_FRACTION = 0.8;
+
+    private final EmrService emrService;
+    private final JobCompletionService completionService;
+    private final MetricsService metricsService;
+    private final long initialIntervalNanos;
+    private final long maxIntervalNanos;
+    private final double multiplier;
+    private final boolean seedFromHistory;
+
+    private final DelayQueue<ScheduledPoll> queue = new DelayQueue<>();
+    private final Map<String, ScheduledPoll> tracked = new ConcurrentHashMap<>();
+    private final ExecutorService pollExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore emrPermits;
+    private final Thread dispatcher;
+    private double averageDurationNanos = -1;
+
+    public AdaptivePollScheduler(
+            EmrService emrService,
+            JobCompletionService completionService,
+            MetricsService metricsService,
+            @Value("${app.poller.concurrency:16}") int concurrency,
+            @Value("${app.poller.adaptive.initialInterval:2s}") Duration initialInterval,
+            @Value("${app.poller.adaptive.maxInterval:60s}") Duration maxInterval,
+            @Value("${app.poller.adaptive.multiplier:2.0}") double multiplier,
+            @Value("${app.poller.adaptive.seedFromHistory:false}") boolean seedFromHistory,
+            @Value("${app.poller.mode:adaptive}") String mode
+    ) {
+        this.emrService = emrService;
+        this.completionService = completionService;
+        this.metricsService = metricsService;
+        this.emrPermits = new Semaphore(Math.max(1, concurrency));
+        this.initialIntervalNanos = initialInterval.toNanos();
+        this.maxIntervalNanos = Math.max(maxInterval.toNanos(), initialIntervalNanos);
+        this.multiplier = Math.max(1.0, multiplier);
+        this.seedFromHistory = seedFromHistory;
+        this.dispatcher = "adaptive".equalsIgnoreCase(mode.trim())
+                ? Thread.ofVirtual().name("job-poll-dispatcher").start(this::dispatch)
+                : null;
+    }
+
+    /**
+     * Starts polling the job if it is not already tracked.
+     */
+    public void track(Job job) {
+        if (job.emrJobRunId() == null || job.emrJobRunId().isBlank()) {
+            return;
+        }
+        tracked.computeIfAbsent(job.jobId(), jobId -> {
+            ScheduledPoll poll = new ScheduledPoll(job, 0, System.nanoTime() + firstDelayNanos(job));
+            queue.add(poll);
+            return poll;
+        });
+    }
+
+    /**
+     * Tracks the given RUNNING jobs and stops polling tracked jobs that are no longer running.
+     */
+    public void sync(List<Job> runningJobs) {
+        Set<String> runningIds = ConcurrentHashMap.newKeySet();
+        for (Job job : runningJobs) {
+            runningIds.add(job.jobId());
+            track(job);
+        }
+        tracked.keySet().retainAll(runningIds);
+    }
+
+    public int trackedCount() {
+        return tracked.size();
+    }
+
+    @Override
+    public void destroy() {
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+        pollExecutor.shutdownNow();
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                ScheduledPoll poll = queue.take();
+                // Superseded or untracked entries stay in the queue until due; drop them here
+                if (tracked.get(poll.job().jobId()) != poll) {
+                    continue;
+                }
+                emrPermits.acquire();
+                pollExecutor.submit(() -> {
+                    try {
+                        check(poll);
+                    } finally {
+                        emrPermits.release();
+                    }
+                });
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void check(ScheduledPoll poll) {
+        Job job = poll.job();
+        try {
+            JobRun jobRun = emrService.getJobRun(job.emrJobRunId());
+            if (jobRun == null) {
+                log.warn("Could not fetch EMR state for job {} (emrJobRunId={})", job.jobId(), job.emrJobRunId());
+                reschedule(poll);
+                return;
+            }
+
+            Optional<StatusTransition> transition = completionService.transitionFor(job, jobRun.state());
+            if (transition.isEmpty()) {
+                reschedule(poll);
+                return;
+            }
+
+            log.info("Job {} EMR state: {}", job.jobId(), jobRun.state());
+            TransitionBatchResult result = completionService.apply(
+                    List.of(transition.get()), Map.of(job.jobId(), job));
+            if (!result.unprocessed().isEmpty()) {
+                reschedule(poll);
+                return;
+            }
+
+            tracked.remove(job.jobId(), poll);
+            if (!result.applied().isEmpty() && jobRun.updatedAt() != null) {
+                metricsService.recordCompletionDetectionLag(
+                        System.currentTimeMillis() - jobRun.updatedAt().toEpochMilli());
+                recordDuration(job, jobRun.updatedAt());
+            }
+        } catch (Exception e) {
+            log.error("Error polling EMR status for job {}: {}", job.jobId(), e.getMessage());
+            reschedule(poll);
+        }
+    }
+
+    private void reschedule(ScheduledPoll poll) {
+        int attempt = poll.attempt() + 1;
+        ScheduledPoll next = new ScheduledPoll(poll.job(), attempt, System.nanoTime() + intervalNanos(attempt));
+        if (tracked.replace(poll.job().jobId(), poll, next)) {
+            queue.add(next);
+        }
+    }
+
+    private long intervalNanos(int attempt) {
+        double interval = initialIntervalNanos * Math.pow(multiplier, attempt);
+        return (long) Math.min(interval, maxIntervalNanos);
+    }
+
+    private long firstDelayNanos(Job job) {
+        double average = averageDuration();
+        Instant createdAt = parseInstant(job.createdAt());
+        if (!seedFromHistory || average <= 0 || createdAt == null) {
+            return initialIntervalNanos;
+        }
+
+        long ageNanos = Duration.between(createdAt, Instant.now()).toNanos();
+        long untilExpected = (long) (average * SEED_FRACTION) - ageNanos;
+        // Not capped at maxInterval: a job is not expected to finish before this point
+        return Math.max(untilExpected, initialIntervalNanos);
+    }
+
+    private synchronized double averageDuration() {
+        return averageDurationNanos;
+    }
+
+    private synchronized void recordDuration(Job job, Instant finishedAt) {
+        Instant createdAt = parseInstant(job.createdAt());
+        if (createdAt == null) {
+            return;
+        }
+        double duration = Duration.between(createdAt, finishedAt).toNanos();
+        averageDurationNanos = averageDurationNanos < 0
+                ? duration
+                : DURATION_EWMA_WEIGHT * duration + (1 - DURATION_EWMA_WEIGHT) * averageDurationNanos;
+    }
+
+    private static Instant parseInstant(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private record ScheduledPoll(Job job, int attempt, long dueNanos) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((ScheduledPoll) other).dueNanos);
+        }
+    }
+}
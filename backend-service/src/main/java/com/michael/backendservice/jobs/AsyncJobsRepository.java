@@ -0,0 +1,148 @@
+package com.michael.backendservice.jobs;
+
+import com.michael.backendservice.resilience.Hedger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Non-blocking counterpart of {@link JobsRepository} for the request paths, built on
+ * {@link DynamoDbAsyncClient}. Items and requests are built by {@link JobItems} and the
+ * same {@link JobCache} is kept up to date, so both repositories can be used side by side.
+ */
+@Repository
+public class AsyncJobsRepository {
+
+    private final DynamoDbAsyncClient ddb;
+    private final JobCache jobCache;
+    private final Hedger hedger;
+    private final String jobsTable;
+    private final int partitionShards;
+    private final int activeShards;
+
+    public AsyncJobsRepository(DynamoDbAsyncClient ddb,
+                               JobCache jobCache,
+                               Hedger hedger,
+                               @Value("${app.dynamodb.jobsTable}") String jobsTable,
+                               @Value("${app.dynamodb.jobPartitionShards:1}") int partitionShards,
+                               @Value("${app.dynamodb.activeStatusShards:8}") int activeShards) {
+        this.ddb = ddb;
+        this.jobCache = jobCache;
+        this.hedger = hedger;
+        this.jobsTable = jobsTable;
+        this.partitionShards = Math.max(1, partitionShards);
+        this.activeShards = Math.max(1, activeShards);
+    }
+
+    public CompletableFuture<Job> createJob(String jobId, CreateJobRequest request) {
+        Instant now = Instant.now();
+
+        return ddb.putItem(PutItemRequest.builder()
+                        .tableName(jobsTable)
+                        .item(JobItems.newJobItem(jobId, JobItems.partitionFor(jobId, partitionShards), activeShards, request, now))
+                        .build())
+                .thenApply(resp -> {
+                    Job created = JobItems.newJob(jobId, request, now);
+                    jobCache.put(created);
+                    return created;
+                });
+    }
+
+    public CompletableFuture<Optional<Job>> getJob(String jobId) {
+        Optional<Job> cached = jobCache.get(jobId);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        GetItemRequest request = GetItemRequest.builder()
+                .tableName(jobsTable)
+                .key(JobItems.key(jobId))
+                .consistentRead(true)
+                .build();
+        return hedger.hedge("dynamodb.getItem", () -> ddb.getItem(request))
+                .thenApply(resp -> {
+                    if (!resp.hasItem() || resp.item().isEmpty()) {
+                        return Optional.empty();
+                    }
+                    Job job = JobItems.toJob(resp.item());
+                    jobCache.put(job);
+                    return Optional.of(job);
+                });
+    }
+
+    public CompletableFuture<Job> setInputS3Key(String jobId, String inputS3Key) {
+        return ddb.updateItem(JobItems.setAttributeRequest(jobsTable, jobId, "inputS3Key", inputS3Key))
+                .thenApply(resp -> cacheAndReturn(JobItems.toJob(resp.attributes())));
+    }
+
+    public CompletableFuture<Job> setEmrJobRunId(String jobId, String emrJobRunId) {
+        return ddb.updateItem(JobItems.setAttributeRequest(jobsTable, jobId, "emrJobRunId", emrJobRunId))
+                .thenApply(resp -> cacheAndReturn(JobItems.toJob(resp.attributes())));
+    }
+
+    /**
+     * Asynchronous version of {@link JobsRepository#transitionStatus}. A rejected transition
+     * completes the future exceptionally with {@link InvalidStatusTransitionException}; a
+     * retried attempt that fails its condition against its own earlier write succeeds.
+     */
+    public CompletableFuture<Job> transitionStatus(String jobId, JobStatus status, String message, String outputS3Key) {
+        Set<JobStatus> allowedFrom = JobStatusTransitionValidator.getAllowedSourceStatuses(status);
+        if (allowedFrom.isEmpty()) {
+            return getJob(jobId).thenApply(current -> {
+                throw new InvalidStatusTransitionException(jobId, status, current.orElse(null));
+            });
+        }
+
+        return applyTransition(jobId, status,
+                JobItems.transitionRequest(jobsTable, jobId, status, message, outputS3Key, allowedFrom, activeShards));
+    }
+
+    /**
+     * Moves a SUBMITTED job to RUNNING and records its input key in the same conditional
+     * UpdateItem, so a job that has already moved on keeps the key it had. Otherwise
+     * completes like {@link #transitionStatus}.
+     */
+    public CompletableFuture<Job> startWithInput(String jobId, String inputS3Key, String message) {
+        return applyTransition(jobId, JobStatus.RUNNING, JobItems.transitionRequest(jobsTable, jobId,
+                JobStatus.RUNNING, message, null, inputS3Key, Set.of(JobStatus.SUBMITTED), activeShards));
+    }
+
+    private CompletableFuture<Job> applyTransition(String jobId, JobStatus status, UpdateItemRequest request) {
+        return ddb.updateItem(request)
+                .handle((resp, error) -> {
+                    if (error == null) {
+                        return cacheAndReturn(JobItems.toJob(resp.attributes()));
+                    }
+
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (cause instanceof ConditionalCheckFailedException e) {
+                        Job current = null;
+                        if (e.hasItem() && !e.item().isEmpty()) {
+                            current = cacheAndReturn(JobItems.toJob(e.item()));
+                            if (JobItems.writtenBy(request, e.item())) {
+                                return current;
+                            }
+                        } else {
+                            jobCache.invalidate(jobId);
+                        }
+                        throw new InvalidStatusTransitionException(jobId, status, current);
+                    }
+                    throw error instanceof CompletionException ce ? ce : new CompletionException(cause);
+                });
+    }
+
+    private Job cacheAndReturn(Job job) {
+        jobCache.put(job);
+        return job;
+    }
+}
@@ -0,0 +1,5 @@
+package com.michael.backendservice.jobs;
+
+import java.util.List;
+
+public record BatchCreateJobsRequest(List<CreateJobRequest> jobs) {}
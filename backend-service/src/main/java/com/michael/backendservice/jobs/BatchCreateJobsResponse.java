@@ -0,0 +1,8 @@
+package com.michael.backendservice.jobs;
+
+import java.util.List;
+
+public record BatchCreateJobsResponse(
+        List<Job> created,
+        List<BatchItemError> errors
+) {}
@@ -0,0 +1,9 @@
+package com.michael.backendservice.jobs;
+
+import java.util.List;
+import java.util.Map;
+
+public record BatchCreateResult(
+        List<Job> created,
+        Map<String, String> failures // jobId -> reason
+) {}
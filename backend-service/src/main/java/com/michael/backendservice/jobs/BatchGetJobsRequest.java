@@ -0,0 +1,9 @@
+package com.michael.backendservice.jobs;
+
+import java.util.List;
+
+public record BatchGetJobsRequest(
+        List<String> jobIds,
+        List<String> fields,
+        Boolean consistentRead
+) {}
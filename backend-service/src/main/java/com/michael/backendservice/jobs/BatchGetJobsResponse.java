@@ -0,0 +1,9 @@
+package com.michael.backendservice.jobs;
+
+import java.util.List;
+
+public record BatchGetJobsResponse(
+        List<Job> items,
+        List<String> notFound,
+        List<String> unprocessed
+) {}
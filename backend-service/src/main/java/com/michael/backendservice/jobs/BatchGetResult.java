@@ -0,0 +1,8 @@
+package com.michael.backendservice.jobs;
+
+import java.util.List;
+
+public record BatchGetResult(
+        List<Job> jobs,
+        List<String> unprocessedJobIds
+) {}
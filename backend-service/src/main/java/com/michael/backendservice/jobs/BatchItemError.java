@@ -0,0 +1,7 @@
+package com.michael.backendservice.jobs;
+
+public record BatchItemError(
+        int index,
+        String jobId,
+        String error
+) {}
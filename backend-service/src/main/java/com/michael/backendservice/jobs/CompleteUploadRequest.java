@@ -0,0 +1,12 @@
+package com.michael.backendservice.jobs;
+
+import java.util.List;
+
+/**
+ * @param parts the uploaded parts with the ETag S3 returned for each; when omitted, the parts
+ *              S3 has received are used
+ */
+public record CompleteUploadRequest(List<Part> parts) {
+
+    public record Part(Integer partNumber, String eTag) {}
+}
@@ -1,3 +1,27 @@
 package com.michael.backendservice.jobs;
 
-public record CreateJobRequest(String inputS3Key) {}
+/**
+ * @param priority EMR start priority from {@link #MIN_PRIORITY} to {@link #MAX_PRIORITY}, higher
+ *                 first; defaults to {@link Job#DEFAULT_PRIORITY}
+ * @param submitter team or client the job is run for, used to share EMR capacity fairly;
+ *                  defaults to {@link Job#DEFAULT_SUBMITTER}
+ */
+public record CreateJobRequest(String inputS3Key, Integer priority, String submitter) {
+
+    public static final int MIN_PRIORITY = 0;
+    public static final int MAX_PRIORITY = 9;
+
+    static final CreateJobRequest EMPTY = new CreateJobRequest(null, null, null);
+
+    boolean hasValidPriority() {
+        return priority == null || (priority >= MIN_PRIORITY && priority <= MAX_PRIORITY);
+    }
+
+    int priorityOrDefault() {
+        return priority == null ? Job.DEFAULT_PRIORITY : priority;
+    }
+
+    String submitterOrDefault() {
+        return submitter == null || submitter.isBlank() ? Job.DEFAULT_SUBMITTER : submitter;
+    }
+}
@@ -0,0 +1,260 @@
+package com.michael.backendservice.jobs;
+
+import com.michael.backendservice.cluster.PollerMembership;
+import com.michael.backendservice.observability.MetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Admits EMR job starts against the application's capacity.
+ * <p>
+ * At most {@code app.emr.admission.maxActiveRuns} runs may be active (submitted, pending,
+ * scheduled or running) at once; starts beyond that wait here instead of queueing inside EMR
+ * while their jobs sit in RUNNING. Waiting starts are admitted highest {@code priority} first;
+ * between submitters whose next start has the same priority, the one with the fewest active
+ * runs goes first, so one submitter's burst cannot crowd out the others. Ties fall back to
+ * arrival order.
+ * <p>
+ * Runs are released when {@link JobCompletionService} applies their outcome. A periodic resync
+ * lists the application's active runs, which releases runs whose completion was applied on
+ * another replica and counts runs started by other replicas against the capacity.
+ * <p>
+ * That count is only as fresh as the last resync, so on its own N replicas could each admit
+ * up to {@code maxActiveRuns} in between. Each replica therefore also keeps its own runs
+ * within an equal share, {@code maxActiveRuns} divided by the live replicas in
+ * {@link PollerMembership} (at least one). {@code maxActiveRuns <= 0} disables admission control.
+ */
+@Component
+public class EmrAdmissionController implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(EmrAdmissionController.class);
+
+    private static final Comparator<Waiting> PRIORITY_ORDER =
+            Comparator.comparingInt(Waiting::priority).reversed().thenComparingLong(Waiting::sequence);
+
+    private final EmrService emrService;
+    private final PollerMembership membership;
+    private final int maxActiveRuns;
+    private final ExecutorService startExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<String, PriorityQueue<Waiting>> waitingBySubmitter = new HashMap<>();
+    private final Map<String, String> activeRuns = new HashMap<>();
+    private final Map<String, Integer> usageBySubmitter = new HashMap<>();
+    private int reserved;
+    private int waiting;
+    private int otherReplicaRuns;
+    private long nextSequence;
+
+    public EmrAdmissionController(
+            EmrService emrService,
+            MetricsService metricsService,
+            PollerMembership membership,
+            @Value("${app.emr.admission.maxActiveRuns:20}") int maxActiveRuns
+    ) {
+        this.emrService = emrService;
+        this.membership = membership;
+        this.maxActiveRuns = maxActiveRuns;
+        metricsService.registerEmrAdmissionGauges(this::activeCount, this::waitingCount);
+    }
+
+    /**
+     * Queues a start. Once admitted, {@code start} runs on its own virtual thread with a
+     * {@link Slot} that it must either bind to the started run or release.
+     */
+    public void offer(String submitter, int priority, Consumer<Slot> start) {
+        String owner = submitter == null || submitter.isBlank() ? Job.DEFAULT_SUBMITTER : submitter;
+        if (maxActiveRuns <= 0) {
+            startExecutor.execute(() -> start.accept(new Slot(owner, false)));
+            return;
+        }
+        synchronized (this) {
+            waitingBySubmitter.computeIfAbsent(owner, s -> new PriorityQueue<>(PRIORITY_ORDER))
+                    .add(new Waiting(owner, priority, nextSequence++, start));
+            waiting++;
+        }
+        admit();
+    }
+
+    /**
+     * Frees the capacity held by a finished run. Unknown or already released runs are ignored.
+     */
+    public void release(String runId) {
+        if (runId == null) {
+            return;
+        }
+        synchronized (this) {
+            String submitter = activeRuns.remove(runId);
+            if (submitter == null) {
+                return;
+            }
+            decrementUsage(submitter);
+        }
+        admit();
+    }
+
+    /**
+     * Reconciles tracked runs with the runs EMR reports as active.
+     */
+    @Scheduled(fixedDelayString = "${app.emr.admission.resyncIntervalMs:60000}", initialDelay = 30000)
+    public void resync() {
+        if (maxActiveRuns <= 0) {
+            return;
+        }
+        Set<String> active = emrService.listActiveJobRunIds();
+        if (active == null) {
+            return;
+        }
+
+        int released = 0;
+        synchronized (this) {
+            for (String runId : new ArrayList<>(activeRuns.keySet())) {
+                if (!active.contains(runId)) {
+                    decrementUsage(activeRuns.remove(runId));
+                    released++;
+                }
+            }
+            otherReplicaRuns = (int) active.stream().filter(runId -> !activeRuns.containsKey(runId)).count();
+        }
+        if (released > 0) {
+            log.info("Released {} EMR runs that finished without a local completion", released);
+        }
+        admit();
+    }
+
+    public synchronized int activeCount() {
+        return activeRuns.size() + reserved + otherReplicaRuns;
+    }
+
+    public synchronized int waitingCount() {
+        return waiting;
+    }
+
+    @Override
+    public void destroy() {
+        startExecutor.shutdownNow();
+    }
+
+    private void admit() {
+        List<Waiting> admitted = new ArrayList<>();
+        synchronized (this) {
+            int localShare = Math.max(1, maxActiveRuns / Math.max(1, membership.memberCount()));
+            while (waiting > 0 && activeCount() < maxActiveRuns && activeRuns.size() + reserved < localShare) {
+                Waiting next = pollNext();
+                reserved++;
+                usageBySubmitter.merge(next.submitter(), 1, Integer::sum);
+                admitted.add(next);
+            }
+        }
+        for (Waiting next : admitted) {
+            startExecutor.execute(() -> next.start().accept(new Slot(next.submitter(), true)));
+        }
+    }
+
+    /**
+     * Highest head priority first; among equal heads the submitter using the least capacity,
+     * then the earliest arrival.
+     */
+    private Waiting pollNext() {
+        PriorityQueue<Waiting> best = null;
+        int bestUsage = 0;
+        for (Map.Entry<String, PriorityQueue<Waiting>> entry : waitingBySubmitter.entrySet()) {
+            PriorityQueue<Waiting> queue = entry.getValue();
+            int usage = usageBySubmitter.getOrDefault(entry.getKey(), 0);
+            if (best == null) {
+                best = queue;
+                bestUsage = usage;
+                continue;
+            }
+            Waiting head = queue.peek();
+            Waiting bestHead = best.peek();
+            int byPriority = Integer.compare(head.priority(), bestHead.priority());
+            if (byPriority > 0
+                    || byPriority == 0 && usage < bestUsage
+                    || byPriority == 0 && usage == bestUsage && head.sequence() < bestHead.sequence()) {
+                best = queue;
+                bestUsage = usage;
+            }
+        }
+
+        Waiting next = best.poll();
+        if (best.isEmpty()) {
+            waitingBySubmitter.remove(next.submitter());
+        }
+        waiting--;
+        return next;
+    }
+
+    private void decrementUsage(String submitter) {
+        usageBySubmitter.computeIfPresent(submitter, (s, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private synchronized void bind(String submitter, String runId) {
+        reserved--;
+        if (activeRuns.putIfAbsent(runId, submitter) != null) {
+            // Same run returned for a retried client token; it is already counted
+            decrementUsage(submitter);
+        }
+    }
+
+    private synchronized void unreserve(String submitter) {
+        reserved--;
+        decrementUsage(submitter);
+    }
+
+    /**
+     * Capacity reserved for one admitted start.
+     */
+    public final class Slot {
+
+        private final String submitter;
+        private final boolean tracked;
+        private boolean done;
+
+        private Slot(String submitter, boolean tracked) {
+            this.submitter = submitter;
+            this.tracked = tracked;
+        }
+
+        /**
+         * Keeps the capacity until {@code runId} is released.
+         */
+        public void started(String runId) {
+            if (done || !tracked) {
+                done = true;
+                return;
+            }
+            done = true;
+            bind(submitter, runId);
+        }
+
+        /**
+         * Gives the capacity back because no run was started. Does nothing after {@link #started}.
+         */
+        public void release() {
+            if (done || !tracked) {
+                done = true;
+                return;
+            }
+            done = true;
+            unreserve(submitter);
+            admit();
+        }
+    }
+
+    private record Waiting(String submitter, int priority, long sequence, Consumer<Slot> start) {}
+}
@@ -0,0 +1,156 @@
+package com.michael.backendservice.jobs;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reads the per-job outcomes a coalesced EMR batch run writes to
+ * {@code processed/batches/{batchId}/results/} as JSON lines of
+ * {@code {"jobId", "status", "message"}}.
+ * <p>
+ * A finished batch's results never change, so they are cached: every job of a batch is
+ * resolved with one S3 read. The batch's manifest in the raw bucket is read the same way to
+ * find which jobs a batch run holds.
+ */
+@Component
+public class EmrBatchResults {
+
+    private static final Logger log = LoggerFactory.getLogger(EmrBatchResults.class);
+
+    private final S3Client s3Client;
+    private final String rawBucket;
+    private final String processedBucket;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Cache<String, Map<String, JobResult>> cache = Caffeine.newBuilder()
+            .maximumSize(1_000)
+            .expireAfterWrite(Duration.ofMinutes(30))
+            .build();
+    private final Cache<String, List<String>> jobIdsCache = Caffeine.newBuilder()
+            .maximumSize(1_000)
+            .expireAfterWrite(Duration.ofMinutes(30))
+            .build();
+
+    public EmrBatchResults(
+            S3Client s3Client,
+            @Value("${app.s3.rawBucket:cloud-data-platform-dev-raw}") String rawBucket,
+            @Value("${app.s3.processedBucket:cloud-data-platform-dev-processed}") String processedBucket
+    ) {
+        this.s3Client = s3Client;
+        this.rawBucket = rawBucket;
+        this.processedBucket = processedBucket;
+    }
+
+    public static String manifestKey(String batchId) {
+        return "batches/" + batchId + "/manifest.json";
+    }
+
+    public static String resultsPrefix(String batchId) {
+        return "processed/batches/" + batchId + "/results/";
+    }
+
+    /**
+     * @return the ids of the jobs in the batch, in manifest order, or empty if the manifest
+     *         could not be read
+     */
+    public Optional<List<String>> jobIdsFor(String batchId) {
+        List<String> cached = jobIdsCache.getIfPresent(batchId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        try {
+            ResponseBytes<GetObjectResponse> bytes = s3Client.getObjectAsBytes(GetObjectRequest.builder()
+                    .bucket(rawBucket)
+                    .key(manifestKey(batchId))
+                    .build());
+
+            List<String> jobIds = new ArrayList<>();
+            for (String line : bytes.asUtf8String().split("\n")) {
+                if (!line.isBlank()) {
+                    jobIds.add(objectMapper.readTree(line).path("jobId").asText());
+                }
+            }
+
+            jobIdsCache.put(batchId, List.copyOf(jobIds));
+            return Optional.of(jobIds);
+        } catch (Exception e) {
+            log.error("Failed to read manifest for EMR batch {}: {}", batchId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return results keyed by jobId (jobs without a result line are absent), or empty if
+     *         the results could not be read and should be retried
+     */
+    public Optional<Map<String, JobResult>> resultsFor(String batchId) {
+        Map<String, JobResult> cached = cache.getIfPresent(batchId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        try {
+            Map<String, JobResult> results = new HashMap<>();
+            ListObjectsV2Request request = ListObjectsV2Request.builder()
+                    .bucket(processedBucket)
+                    .prefix(resultsPrefix(batchId))
+                    .build();
+
+            for (S3Object obj : s3Client.listObjectsV2Paginator(request).contents()) {
+                if (!obj.key().endsWith(".json")) {
+                    continue;
+                }
+
+                ResponseBytes<GetObjectResponse> bytes = s3Client.getObjectAsBytes(GetObjectRequest.builder()
+                        .bucket(processedBucket)
+                        .key(obj.key())
+                        .build());
+
+                for (String line : bytes.asUtf8String().split("\n")) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    JsonNode node = objectMapper.readTree(line);
+                    JobResult result = new JobResult(
+                            node.path("jobId").asText(),
+                            node.path("status").asText(),
+                            node.path("message").isNull() ? null : node.path("message").asText(null)
+                    );
+                    results.put(result.jobId(), result);
+                }
+            }
+
+            cache.put(batchId, results);
+            return Optional.of(results);
+        } catch (Exception e) {
+            log.error("Failed to read results for EMR batch {}: {}", batchId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public record JobResult(String jobId, String status, String message) {
+
+        public boolean succeeded() {
+            return JobStatus.SUCCEEDED.name().equals(status);
+        }
+    }
+}
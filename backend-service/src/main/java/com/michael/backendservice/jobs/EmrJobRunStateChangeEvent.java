@@ -0,0 +1,24 @@
+package com.michael.backendservice.jobs;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * EventBridge "EMR Serverless Job Run State Change" event. Only the fields used to apply the
+ * change are mapped.
+ */
+public record EmrJobRunStateChangeEvent(
+        @JsonProperty("detail-type") String detailType,
+        String source,
+        String time,
+        Detail detail
+) {
+
+    public record Detail(
+            String jobRunId,
+            String jobRunName,
+            String applicationId,
+            String state,
+            String previousState,
+            String updatedAt
+    ) {}
+}
@@ -8,7 +8,12 @@ import org.springframework.stereotype.Service;
 import software.amazon.awssdk.services.emrserverless.EmrServerlessClient;
 import software.amazon.awssdk.services.emrserverless.model.*;
 
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Service
 public class EmrService {
@@ -21,6 +26,12 @@ public class EmrService {
     private final String jobRoleArn;
     private final String sparkJarPath;
 
+    private static final List<JobRunState> TERMINAL_STATES =
+            List.of(JobRunState.SUCCESS, JobRunState.FAILED, JobRunState.CANCELLED);
+
+    private static final List<JobRunState> ACTIVE_STATES = List.of(JobRunState.SUBMITTED, JobRunState.PENDING,
+            JobRunState.SCHEDULED, JobRunState.RUNNING, JobRunState.CANCELLING);
+
     public EmrService(
             EmrServerlessClient emrClient,
             MetricsService metricsService,
@@ -35,19 +46,64 @@ public class EmrService {
         this.sparkJarPath = sparkJarPath;
     }
 
-    private boolean isConfigured() {
+    public boolean isConfigured() {
         return applicationId != null && !applicationId.isBlank()
                 && jobRoleArn != null && !jobRoleArn.isBlank()
                 && sparkJarPath != null && !sparkJarPath.isBlank();
     }
 
-    public String startSparkJob(String jobId, String inputS3Path, String outputS3Path) {
+    /**
+     * @return true if {@code applicationId} is the EMR Serverless application this service submits to
+     */
+    public boolean isOwnApplication(String applicationId) {
+        return this.applicationId != null && this.applicationId.equals(applicationId);
+    }
+
+    public String startSparkJob(String jobId, String inputS3Path, String outputS3Path, SparkResourceProfile profile) {
         if (!isConfigured()) {
             log.warn("EMR not configured; skipping Spark submission for jobId={}", jobId);
             return null;
         }
 
-        log.info("Starting Spark job for jobId={}, input={}, output={}", jobId, inputS3Path, outputS3Path);
+        log.info("Starting Spark job for jobId={}, input={}, output={}, profile={}",
+                jobId, inputS3Path, outputS3Path, profile != null ? profile.name() : "default");
+
+        // The job id as client token makes retried submissions for the same job return the original run
+        String jobRunId = startJobRun("job-" + jobId, jobId, Map.of("JobId", jobId), profile,
+                inputS3Path, outputS3Path);
+
+        log.info("Started EMR job run: jobRunId={} for jobId={}", jobRunId, jobId);
+        return jobRunId;
+    }
+
+    /**
+     * Starts one run that processes every job in a coalesced batch. The manifest lists the
+     * input and output path of each job; the run writes one result line per job under
+     * {@code resultsS3Path}.
+     */
+    public String startSparkBatchJob(String batchId, String manifestS3Path, String resultsS3Path,
+                                     SparkResourceProfile profile) {
+        if (!isConfigured()) {
+            log.warn("EMR not configured; skipping Spark submission for batchId={}", batchId);
+            return null;
+        }
+
+        log.info("Starting Spark batch job for batchId={}, manifest={}, profile={}",
+                batchId, manifestS3Path, profile != null ? profile.name() : "default");
+
+        String jobRunId = startJobRun("batch-" + batchId, batchId, Map.of("BatchId", batchId), profile,
+                "--manifest", manifestS3Path, resultsS3Path);
+
+        log.info("Started EMR job run: jobRunId={} for batchId={}", jobRunId, batchId);
+        return jobRunId;
+    }
+
+    private String startJobRun(String name, String clientToken, Map<String, String> tags,
+                               SparkResourceProfile profile, String... arguments) {
+        String sparkSubmitParameters = "--class com.michael.spark.SimpleTransformJob";
+        if (profile != null) {
+            sparkSubmitParameters += " " + profile.sparkSubmitParameters();
+        }
 
         StartJobRunRequest request = StartJobRunRequest.builder()
                 .applicationId(applicationId)
@@ -55,8 +111,8 @@ public class EmrService {
                 .jobDriver(JobDriver.builder()
                         .sparkSubmit(SparkSubmit.builder()
                                 .entryPoint(sparkJarPath)
-                                .entryPointArguments(inputS3Path, outputS3Path)
-                                .sparkSubmitParameters("--class com.michael.spark.SimpleTransformJob")
+                                .entryPointArguments(arguments)
+                                .sparkSubmitParameters(sparkSubmitParameters)
                                 .build())
                         .build())
                 .configurationOverrides(ConfigurationOverrides.builder()
@@ -66,19 +122,25 @@ public class EmrService {
                                         .build())
                                 .build())
                         .build())
-                .name("job-" + jobId)
-                .tags(Map.of("JobId", jobId))
+                .name(name)
+                .clientToken(clientToken)
+                .tags(tags)
                 .build();
 
         StartJobRunResponse response = emrClient.startJobRun(request);
-        String jobRunId = response.jobRunId();
-
         metricsService.incrementEmrJobsStarted();
-        log.info("Started EMR job run: jobRunId={} for jobId={}", jobRunId, jobId);
-        return jobRunId;
+        return response.jobRunId();
     }
 
     public JobRunState getJobRunState(String jobRunId) {
+        JobRun jobRun = getJobRun(jobRunId);
+        return jobRun == null ? null : jobRun.state();
+    }
+
+    /**
+     * @return the job run, or null if EMR is not configured or the lookup failed
+     */
+    public JobRun getJobRun(String jobRunId) {
         if (!isConfigured()) {
             log.warn("EMR not configured; cannot poll jobRunId={}", jobRunId);
             return null;
@@ -91,13 +153,80 @@ public class EmrService {
                     .build();
 
             GetJobRunResponse response = emrClient.getJobRun(request);
+            metricsService.incrementEmrApiCalls();
             JobRun jobRun = response.jobRun();
 
             log.debug("EMR jobRunId={} state={}", jobRunId, jobRun.state());
-            return jobRun.state();
+            return jobRun;
         } catch (Exception e) {
             log.error("Failed to get EMR job run state for jobRunId={}: {}", jobRunId, e.getMessage());
             return null;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Lists the application's job runs created after {@code createdAfter} that have reached a
+     * terminal state, paging through {@code ListJobRuns}. One call covers up to 50 runs, so the
+     * cost scales with the number of finished runs rather than with the number of active jobs.
+     *
+     * @return terminal runs keyed by job run id, or null if EMR is not configured or the listing failed
+     */
+    public Map<String, JobRunSummary> listTerminalJobRuns(Instant createdAfter) {
+        if (!isConfigured()) {
+            log.warn("EMR not configured; cannot list job runs");
+            return null;
+        }
+
+        try {
+            ListJobRunsRequest request = ListJobRunsRequest.builder()
+                    .applicationId(applicationId)
+                    .createdAtAfter(createdAfter)
+                    .states(TERMINAL_STATES)
+                    .build();
+
+            Map<String, JobRunSummary> runs = new HashMap<>();
+            for (ListJobRunsResponse page : emrClient.listJobRunsPaginator(request)) {
+                metricsService.incrementEmrApiCalls();
+                for (JobRunSummary run : page.jobRuns()) {
+                    runs.put(run.id(), run);
+                }
+            }
+
+            log.debug("Listed {} terminal EMR job runs created after {}", runs.size(), createdAfter);
+            return runs;
+        } catch (Exception e) {
+            log.error("Failed to list EMR job runs created after {}: {}", createdAfter, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Lists the ids of the application's runs that still hold, or are waiting for, capacity.
+     *
+     * @return active job run ids, or null if EMR is not configured or the listing failed
+     */
+    public Set<String> listActiveJobRunIds() {
+        if (!isConfigured()) {
+            return null;
+        }
+
+        try {
+            ListJobRunsRequest request = ListJobRunsRequest.builder()
+                    .applicationId(applicationId)
+                    .states(ACTIVE_STATES)
+                    .build();
+
+            Set<String> runIds = new HashSet<>();
+            for (ListJobRunsResponse page : emrClient.listJobRunsPaginator(request)) {
+                metricsService.incrementEmrApiCalls();
+                for (JobRunSummary run : page.jobRuns()) {
+                    runIds.add(run.id());
+                }
+            }
+            return runIds;
+        } catch (Exception e) {
+            log.error("Failed to list active EMR job runs: {}", e.getMessage());
+            return null;
+        }
+    }
+}
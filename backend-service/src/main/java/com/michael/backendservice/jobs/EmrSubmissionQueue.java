@@ -0,0 +1,579 @@
+package com.michael.backendservice.jobs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.michael.backendservice.cluster.PollerMembership;
+import com.michael.backendservice.observability.MetricsService;
+import com.michael.backendservice.ratelimit.TokenBucket;
+import com.michael.backendservice.resilience.CircuitBreakerOpenException;
+import com.michael.backendservice.resilience.CircuitBreakers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Submits RUNNING jobs to EMR off the request path.
+ * <p>
+ * The queue is durable because its state lives in the jobs table: a job that is RUNNING
+ * without an {@code emrJobRunId} still needs submitting. Jobs are enqueued in memory when
+ * they move to RUNNING, and a periodic recovery sweep re-enqueues any that were lost, for
+ * example when a replica stopped mid-submission. While a replica holds a job, for instance
+ * waiting for admission, it refreshes the job's {@code submissionQueuedAt}; the sweep leaves
+ * jobs with a recent marker alone, so a job is not queued on two replicas. StartJobRun calls are paced by a token bucket
+ * sized to the EMR API quota and retried with jittered exponential backoff. The job id is
+ * used as the EMR client token, so a retry, or a second replica submitting the same job,
+ * returns the original run instead of starting another. After {@code maxAttempts} failures
+ * the job is marked FAILED.
+ * <p>
+ * With {@code app.emr.coalesce.enabled}, jobs whose input is at most {@code smallJobMaxSize}
+ * are held for up to {@code window} and submitted together, up to {@code maxJobs} jobs or
+ * {@code maxBatchSize} of input, as one EMR run driven by a manifest. Each job records the
+ * batch id, and {@link JobCompletionService} resolves its outcome from the batch results.
+ * A batch that cannot be submitted falls back to individual submissions.
+ * <p>
+ * Each run's Spark resources come from the {@link SparkSizingProperties} tier matching the
+ * input size (the HEAD of the input object, or the total of a batch), and the chosen profile
+ * is recorded on the job.
+ * <p>
+ * Due submissions wait in {@link EmrAdmissionController} until the application has capacity;
+ * a coalesced batch is admitted under its highest-priority job.
+ */
+@Component
+public class EmrSubmissionQueue implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(EmrSubmissionQueue.class);
+
+    private final JobsRepository repo;
+    private final EmrService emrService;
+    private final EmrAdmissionController admission;
+    private final JobStatusPoller statusPoller;
+    private final PollerMembership membership;
+    private final MetricsService metricsService;
+    private final SparkSizingProperties sizing;
+    private final CircuitBreakers circuitBreakers;
+    private final S3Client s3Client;
+    private final String rawBucket;
+    private final String processedBucket;
+    private final TokenBucket startJobRunLimiter;
+    private final Semaphore inFlight;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final Duration recoveryGrace;
+    private final boolean coalesceEnabled;
+    private final long coalesceWindowNanos;
+    private final long smallJobMaxBytes;
+    private final BatchBuffer batchBuffer;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final DelayQueue<PendingSubmission> queue = new DelayQueue<>();
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private final ExecutorService submitExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread dispatcher;
+
+    public EmrSubmissionQueue(
+            JobsRepository repo,
+            EmrService emrService,
+            EmrAdmissionController admission,
+            JobStatusPoller statusPoller,
+            PollerMembership membership,
+            MetricsService metricsService,
+            SparkSizingProperties sizing,
+            CircuitBreakers circuitBreakers,
+            S3Client s3Client,
+            @Value("${app.s3.rawBucket:cloud-data-platform-dev-raw}") String rawBucket,
+            @Value("${app.s3.processedBucket:cloud-data-platform-dev-processed}") String processedBucket,
+            @Value("${app.emr.submission.ratePerSecond:2}") double ratePerSecond,
+            @Value("${app.emr.submission.burst:5}") double burst,
+            @Value("${app.emr.submission.concurrency:4}") int concurrency,
+            @Value("${app.emr.submission.maxAttempts:5}") int maxAttempts,
+            @Value("${app.emr.submission.baseBackoff:1s}") Duration baseBackoff,
+            @Value("${app.emr.submission.recoveryGrace:60s}") Duration recoveryGrace,
+            @Value("${app.emr.coalesce.enabled:false}") boolean coalesceEnabled,
+            @Value("${app.emr.coalesce.window:10s}") Duration coalesceWindow,
+            @Value("${app.emr.coalesce.maxJobs:50}") int coalesceMaxJobs,
+            @Value("${app.emr.coalesce.maxBatchSize:512MB}") DataSize coalesceMaxBatchSize,
+            @Value("${app.emr.coalesce.smallJobMaxSize:64MB}") DataSize smallJobMaxSize
+    ) {
+        this.repo = repo;
+        this.emrService = emrService;
+        this.admission = admission;
+        this.statusPoller = statusPoller;
+        this.membership = membership;
+        this.metricsService = metricsService;
+        this.sizing = sizing;
+        this.circuitBreakers = circuitBreakers;
+        this.s3Client = s3Client;
+        this.rawBucket = rawBucket;
+        this.processedBucket = processedBucket;
+        this.startJobRunLimiter = new TokenBucket(ratePerSecond, burst);
+        this.inFlight = new Semaphore(Math.max(1, concurrency));
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffMillis = baseBackoff.toMillis();
+        this.recoveryGrace = recoveryGrace;
+        this.coalesceEnabled = coalesceEnabled;
+        this.coalesceWindowNanos = coalesceWindow.toNanos();
+        this.smallJobMaxBytes = smallJobMaxSize.toBytes();
+        this.batchBuffer = new BatchBuffer(Math.max(1, coalesceMaxJobs), coalesceMaxBatchSize.toBytes());
+        metricsService.registerEmrSubmissionQueueDepth(queued::size);
+        this.dispatcher = Thread.ofVirtual().name("emr-submission-dispatcher").start(this::dispatch);
+    }
+
+    /**
+     * Queues the job for EMR submission if it has an input and is not already queued.
+     */
+    public void enqueue(Job job) {
+        if (job.inputS3Key() == null || job.inputS3Key().isBlank()) {
+            log.warn("Job {} is RUNNING without inputS3Key; not submitting to EMR", job.jobId());
+            return;
+        }
+        if (!queued.add(job.jobId())) {
+            return;
+        }
+
+        SubmissionItem item = new SubmissionItem(job.jobId(), job.inputS3Key(),
+                job.priority() == null ? Job.DEFAULT_PRIORITY : job.priority(),
+                job.submitter() == null ? Job.DEFAULT_SUBMITTER : job.submitter(),
+                System.nanoTime(), -1);
+        if (coalesceEnabled) {
+            // Sizing the input is a blocking S3 call; keep it off the caller's thread
+            submitExecutor.execute(() -> route(item));
+        } else {
+            queue.add(PendingSubmission.single(item));
+        }
+    }
+
+    /**
+     * Refreshes {@code submissionQueuedAt} on the jobs this replica holds. The interval must be
+     * well inside {@code recoveryGrace}.
+     */
+    @Scheduled(fixedDelayString = "${app.emr.submission.queuedHeartbeatMs:20000}", initialDelay = 20000)
+    public void refreshQueuedMarkers() {
+        if (queued.isEmpty()) {
+            return;
+        }
+        try {
+            repo.markSubmissionQueued(List.copyOf(queued), Instant.now());
+        } catch (Exception e) {
+            log.warn("Failed to refresh submission markers for {} queued jobs: {}", queued.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Re-enqueues RUNNING jobs that never got an EMR run, e.g. because the replica that
+     * accepted them stopped before submitting. Jobs that went RUNNING or were marked as queued
+     * within {@code recoveryGrace} are still held by a replica and are skipped.
+     */
+    @Scheduled(fixedDelayString = "${app.emr.submission.recoveryIntervalMs:60000}", initialDelay = 30000)
+    public void recoverPendingSubmissions() {
+        if (!emrService.isConfigured()) {
+            return;
+        }
+
+        Instant cutoff = Instant.now().minus(recoveryGrace);
+        int recovered = 0;
+        List<Integer> shards = membership.ownedShards(repo.activeShardCount());
+        for (Job job : repo.getJobsByStatus(JobStatus.RUNNING, JobProjection.SUBMISSION, shards)) {
+            if (job.emrJobRunId() != null && !job.emrJobRunId().isBlank()) {
+                continue;
+            }
+            if (queued.contains(job.jobId())) {
+                continue;
+            }
+            Instant updatedAt = parseInstant(job.updatedAt());
+            if (updatedAt != null && updatedAt.isAfter(cutoff)) {
+                // Recently moved to RUNNING; the accepting replica is still submitting it
+                continue;
+            }
+            Instant queuedAt = parseInstant(job.submissionQueuedAt());
+            if (queuedAt != null && queuedAt.isAfter(cutoff)) {
+                // Another replica holds it, e.g. waiting for admission
+                continue;
+            }
+            enqueue(job);
+            recovered++;
+        }
+
+        if (recovered > 0) {
+            log.info("Re-enqueued {} RUNNING jobs without an EMR run", recovered);
+        }
+    }
+
+    /**
+     * Submits the coalescing batch once its oldest job has waited for the window.
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void flushCoalescedJobs() {
+        if (!coalesceEnabled) {
+            return;
+        }
+        List<SubmissionItem> batch = batchBuffer.drainIfOlderThan(coalesceWindowNanos);
+        if (batch != null) {
+            queue.add(PendingSubmission.batch(batch));
+        }
+    }
+
+    public int depth() {
+        return queued.size();
+    }
+
+    @Override
+    public void destroy() {
+        dispatcher.interrupt();
+        submitExecutor.shutdownNow();
+    }
+
+    private void route(SubmissionItem unsized) {
+        long size = inputSize(unsized.inputS3Key());
+        SubmissionItem item = unsized.withInputBytes(size);
+        if (size < 0 || size > smallJobMaxBytes) {
+            queue.add(PendingSubmission.single(item));
+            return;
+        }
+
+        for (List<SubmissionItem> full : batchBuffer.add(item, size)) {
+            queue.add(PendingSubmission.batch(full));
+        }
+    }
+
+    /**
+     * @return the input object's size in bytes, or -1 if it could not be determined
+     */
+    private long inputSize(String inputS3Key) {
+        try {
+            return s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(rawBucket)
+                    .key(inputS3Key)
+                    .build()).contentLength();
+        } catch (Exception e) {
+            log.warn("Could not size input s3://{}/{}: {}", rawBucket, inputS3Key, e.getMessage());
+            return -1;
+        }
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                PendingSubmission submission = queue.take();
+                admission.offer(submission.submitter(), submission.priority(), slot -> {
+                    try {
+                        startJobRunLimiter.acquire(1);
+                        inFlight.acquire();
+                    } catch (InterruptedException e) {
+                        slot.release();
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    try {
+                        submit(submission, slot);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Starts the run within the admitted slot. The slot is bound to the run as soon as EMR
+     * returns its id and is given back if no run was started.
+     */
+    private void submit(PendingSubmission submission, EmrAdmissionController.Slot slot) {
+        long start = System.nanoTime();
+        try {
+            if (submission.batchId() == null) {
+                submitSingle(submission.items().get(0), submission.attempt() + 1 >= maxAttempts, slot);
+            } else {
+                submitBatch(submission.batchId(), submission.items(), slot);
+            }
+            metricsService.recordEmrSubmissionLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            metricsService.recordEmrSubmissionLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            retryOrFail(submission, e);
+        } finally {
+            slot.release();
+        }
+    }
+
+    /**
+     * @param finalAttempt whether retryOrFail would give up on this submission; an input that
+     *                     still cannot be sized then runs on the default tier instead
+     */
+    private void submitSingle(SubmissionItem item, boolean finalAttempt, EmrAdmissionController.Slot slot) {
+        String jobId = item.jobId();
+        String inputPath = "s3://" + rawBucket + "/" + item.inputS3Key();
+        String outputPath = "s3://" + processedBucket + "/processed/jobs/" + jobId + "/output/";
+
+        long inputBytes = item.inputBytes() >= 0 ? item.inputBytes() : inputSize(item.inputS3Key());
+        if (inputBytes < 0 && !finalAttempt) {
+            // Retried with backoff like a failed StartJobRun, rather than guessing a tier
+            throw new IllegalStateException("Could not determine input size of " + item.inputS3Key());
+        }
+        SparkResourceProfile profile = sizing.profileFor(inputBytes).orElse(null);
+
+        String emrJobRunId = emrService.startSparkJob(jobId, inputPath, outputPath, profile);
+        if (emrJobRunId == null || emrJobRunId.isBlank()) {
+            // EMR disabled or not configured; leave job RUNNING without emrJobRunId
+            log.warn("EMR disabled or not configured; jobRunId not set for jobId={}", jobId);
+            queued.remove(jobId);
+            return;
+        }
+        slot.started(emrJobRunId);
+
+        Job updated = repo.setEmrJobRun(jobId, emrJobRunId,
+                profile != null ? profile.name() : null, inputBytes >= 0 ? inputBytes : null);
+        submitted(item, updated);
+    }
+
+    private void submitBatch(String batchId, List<SubmissionItem> items, EmrAdmissionController.Slot slot)
+            throws Exception {
+        String manifestKey = EmrBatchResults.manifestKey(batchId);
+        StringBuilder manifest = new StringBuilder();
+        for (SubmissionItem item : items) {
+            manifest.append(objectMapper.writeValueAsString(Map.of(
+                    "jobId", item.jobId(),
+                    "inputPath", "s3://" + rawBucket + "/" + item.inputS3Key(),
+                    "outputPath", "s3://" + processedBucket + "/processed/jobs/" + item.jobId() + "/output/"
+            ))).append('\n');
+        }
+        s3Client.putObject(PutObjectRequest.builder()
+                        .bucket(rawBucket)
+                        .key(manifestKey)
+                        .contentType("application/x-ndjson")
+                        .build(),
+                RequestBody.fromString(manifest.toString()));
+
+        long totalBytes = items.stream().mapToLong(SubmissionItem::inputBytes).sum();
+        SparkResourceProfile profile = sizing.profileFor(totalBytes).orElse(null);
+
+        String emrJobRunId = emrService.startSparkBatchJob(batchId,
+                "s3://" + rawBucket + "/" + manifestKey,
+                "s3://" + processedBucket + "/" + EmrBatchResults.resultsPrefix(batchId),
+                profile);
+        if (emrJobRunId == null || emrJobRunId.isBlank()) {
+            log.warn("EMR disabled or not configured; jobRunId not set for batchId={}", batchId);
+            items.forEach(item -> queued.remove(item.jobId()));
+            return;
+        }
+        slot.started(emrJobRunId);
+
+        log.info("Submitted {} jobs as EMR batch {}", items.size(), batchId);
+        Map<String, Long> inputSizes = new LinkedHashMap<>();
+        for (SubmissionItem item : items) {
+            inputSizes.put(item.jobId(), item.inputBytes());
+        }
+        List<Job> updated = repo.setEmrBatchRun(inputSizes, emrJobRunId, batchId,
+                profile != null ? profile.name() : null);
+        for (int i = 0; i < items.size(); i++) {
+            submitted(items.get(i), updated.get(i));
+        }
+    }
+
+    private void submitted(SubmissionItem item, Job updated) {
+        queued.remove(item.jobId());
+        metricsService.recordEmrSubmissionWaitTime(
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - item.enqueuedNanos()));
+        statusPoller.onEmrJobStarted(updated);
+    }
+
+    private void retryOrFail(PendingSubmission submission, Exception error) {
+        String target = submission.batchId() == null
+                ? "job " + submission.items().get(0).jobId()
+                : "batch " + submission.batchId();
+        if (error instanceof CircuitBreakerOpenException) {
+            // EMR is failing fast; wait out the open period without spending an attempt
+            log.info("EMR circuit open; deferring submission for {}", target);
+            long delayNanos = circuitBreakers.openDuration().toNanos();
+            queue.add(submission.retry(submission.attempt(), System.nanoTime() + delayNanos));
+            return;
+        }
+        int attempt = submission.attempt() + 1;
+        if (attempt < maxAttempts) {
+            long backoffMillis = baseBackoffMillis << Math.min(attempt - 1, 10);
+            long delayMillis = ThreadLocalRandom.current().nextLong(backoffMillis / 2, backoffMillis + 1);
+            log.warn("EMR submission for {} failed (attempt {}/{}), retrying in {} ms: {}",
+                    target, attempt, maxAttempts, delayMillis, error.getMessage());
+            metricsService.incrementEmrSubmissionRetries();
+            queue.add(submission.retry(attempt, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis)));
+            return;
+        }
+
+        log.error("EMR submission for {} failed after {} attempts: {}", target, attempt, error.getMessage());
+
+        if (submission.batchId() != null) {
+            // Give each job its own chance rather than failing the whole batch
+            for (SubmissionItem item : submission.items()) {
+                queue.add(PendingSubmission.single(item));
+            }
+            return;
+        }
+
+        String jobId = submission.items().get(0).jobId();
+        metricsService.incrementEmrSubmissionFailures();
+        try {
+            repo.transitionStatus(jobId, JobStatus.FAILED, "EMR submission failed: " + error.getMessage(), null);
+        } catch (InvalidStatusTransitionException e) {
+            log.info("Job {} no longer RUNNING; not marking FAILED", jobId);
+        } catch (Exception e) {
+            // Left RUNNING without emrJobRunId; the recovery sweep will try again
+            log.error("Failed to mark job {} FAILED: {}", jobId, e.getMessage());
+        } finally {
+            queued.remove(jobId);
+        }
+    }
+
+    private static Instant parseInstant(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param inputBytes input object size, or -1 until it has been read
+     */
+    private record SubmissionItem(String jobId, String inputS3Key, int priority, String submitter,
+                                  long enqueuedNanos, long inputBytes) {
+
+        SubmissionItem withInputBytes(long bytes) {
+            return new SubmissionItem(jobId, inputS3Key, priority, submitter, enqueuedNanos, bytes);
+        }
+    }
+
+    /**
+     * A single job, or a coalesced batch when {@code batchId} is set.
+     */
+    private record PendingSubmission(
+            String batchId,
+            List<SubmissionItem> items,
+            int attempt,
+            long dueNanos
+    ) implements Delayed {
+
+        static PendingSubmission single(SubmissionItem item) {
+            return new PendingSubmission(null, List.of(item), 0, System.nanoTime());
+        }
+
+        static PendingSubmission batch(List<SubmissionItem> items) {
+            return new PendingSubmission(UUID.randomUUID().toString(), List.copyOf(items), 0, System.nanoTime());
+        }
+
+        PendingSubmission retry(int attempt, long dueNanos) {
+            return new PendingSubmission(batchId, items, attempt, dueNanos);
+        }
+
+        /**
+         * The most urgent job's item, whose priority and submitter a batch is admitted under.
+         */
+        private SubmissionItem lead() {
+            SubmissionItem lead = items.get(0);
+            for (SubmissionItem item : items) {
+                if (item.priority() > lead.priority()) {
+                    lead = item;
+                }
+            }
+            return lead;
+        }
+
+        int priority() {
+            return lead().priority();
+        }
+
+        String submitter() {
+            return lead().submitter();
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((PendingSubmission) other).dueNanos);
+        }
+    }
+
+    /**
+     * Jobs held for coalescing. Hands out the batch once it reaches the job or size limit.
+     */
+    private static final class BatchBuffer {
+
+        private final int maxJobs;
+        private final long maxBytes;
+        private List<SubmissionItem> items = new ArrayList<>();
+        private long bytes;
+        private long openedNanos;
+
+        BatchBuffer(int maxJobs, long maxBytes) {
+            this.maxJobs = maxJobs;
+            this.maxBytes = maxBytes;
+        }
+
+        /**
+         * Adds the item, first closing the open batch if the item would take it past
+         * {@code maxBytes}.
+         *
+         * @return the batches that are ready to submit, oldest first; usually none
+         */
+        synchronized List<List<SubmissionItem>> add(SubmissionItem item, long size) {
+            List<List<SubmissionItem>> ready = new ArrayList<>(2);
+            if (!items.isEmpty() && bytes + size > maxBytes) {
+                ready.add(drain());
+            }
+            if (items.isEmpty()) {
+                openedNanos = System.nanoTime();
+            }
+            items.add(item);
+            bytes += size;
+            if (items.size() >= maxJobs || bytes >= maxBytes) {
+                ready.add(drain());
+            }
+            return ready;
+        }
+
+        synchronized List<SubmissionItem> drainIfOlderThan(long windowNanos) {
+            if (items.isEmpty() || System.nanoTime() - openedNanos < windowNanos) {
+                return null;
+            }
+            return drain();
+        }
+
+        private List<SubmissionItem> drain() {
+            List<SubmissionItem> batch = items;
+            items = new ArrayList<>();
+            bytes = 0;
+            return batch;
+        }
+    }
+}
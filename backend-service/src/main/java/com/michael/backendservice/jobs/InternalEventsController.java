@@ -0,0 +1,311 @@
+package com.michael.backendservice.jobs;
+
+import com.michael.backendservice.observability.MetricsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import software.amazon.awssdk.services.emrserverless.model.JobRunState;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@RestController
+@RequestMapping("/internal/events")
+@Tag(name = "Internal API", description = "Internal endpoints for job workers (not for public use)")
+public class InternalEventsController {
+
+    private static final Logger log = LoggerFactory.getLogger(InternalEventsController.class);
+
+    private static final String EMR_EVENT_SOURCE = "aws.emr-serverless";
+    private static final String EMR_JOB_RUN_STATE_CHANGE = "EMR Serverless Job Run State Change";
+    private static final String JOB_RUN_NAME_PREFIX = "job-";
+    private static final String BATCH_RUN_NAME_PREFIX = "batch-";
+    private static final String S3_EVENT_SOURCE = "aws.s3";
+    private static final String S3_OBJECT_CREATED = "Object Created";
+    private static final String INPUT_KEY_PREFIX = "raw/jobs/";
+
+    private final JobsRepository repo;
+    private final AsyncJobsRepository asyncRepo;
+    private final EmrService emrService;
+    private final JobCompletionService completionService;
+    private final EmrBatchResults batchResults;
+    private final EmrSubmissionQueue submissionQueue;
+    private final MetricsService metricsService;
+    private final String rawBucket;
+
+    public InternalEventsController(
+            JobsRepository repo,
+            AsyncJobsRepository asyncRepo,
+            EmrService emrService,
+            JobCompletionService completionService,
+            EmrBatchResults batchResults,
+            EmrSubmissionQueue submissionQueue,
+            MetricsService metricsService,
+            @Value("${app.s3.rawBucket}") String rawBucket
+    ) {
+        this.repo = repo;
+        this.asyncRepo = asyncRepo;
+        this.emrService = emrService;
+        this.completionService = completionService;
+        this.batchResults = batchResults;
+        this.submissionQueue = submissionQueue;
+        this.metricsService = metricsService;
+        this.rawBucket = rawBucket;
+    }
+
+    @Operation(
+            summary = "Ingest EMR job run state change",
+            description = "Accepts an EventBridge 'EMR Serverless Job Run State Change' event and applies SUCCESS/FAILED/CANCELLED to the matching job, or to every job of a coalesced batch run, immediately. Duplicate, stale and out-of-order events are acknowledged without changing the job; the status poller remains as a sweep for missed events."
+    )
+    @PostMapping("/emr")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event applied or safely ignored"),
+            @ApiResponse(responseCode = "400", description = "Not an EMR Serverless job run state change event, or no state given"),
+            @ApiResponse(responseCode = "503", description = "Job state not read or status write not completed; retry the event")
+    })
+    public ResponseEntity<?> ingestEmrEvent(@RequestBody EmrJobRunStateChangeEvent event) {
+        if (event == null || event.detail() == null
+                || !EMR_EVENT_SOURCE.equals(event.source())
+                || !EMR_JOB_RUN_STATE_CHANGE.equals(event.detailType())) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Expected an EMR Serverless Job Run State Change event"
+            ));
+        }
+
+        EmrJobRunStateChangeEvent.Detail detail = event.detail();
+        if (detail.state() == null || detail.state().isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Event detail has no state"
+            ));
+        }
+
+        if (!emrService.isOwnApplication(detail.applicationId())) {
+            return ignored(null, "Event is for another EMR application");
+        }
+
+        String jobRunName = detail.jobRunName();
+        if (jobRunName == null
+                || !(jobRunName.startsWith(JOB_RUN_NAME_PREFIX) || jobRunName.startsWith(BATCH_RUN_NAME_PREFIX))) {
+            return ignored(null, "Job run was not submitted by this service");
+        }
+        boolean batchRun = jobRunName.startsWith(BATCH_RUN_NAME_PREFIX);
+        String runId = batchRun
+                ? jobRunName.substring(BATCH_RUN_NAME_PREFIX.length())
+                : jobRunName.substring(JOB_RUN_NAME_PREFIX.length());
+
+        JobRunState state = JobRunState.fromValue(detail.state());
+        if (state == JobRunState.UNKNOWN_TO_SDK_VERSION) {
+            return ignored(runId, "Unknown EMR state: " + detail.state());
+        }
+
+        // Read past the cache: a 200 for a stale entry would drop the event for good
+        List<Job> jobs;
+        if (batchRun) {
+            Optional<List<String>> jobIds = batchResults.jobIdsFor(runId);
+            if (jobIds.isEmpty()) {
+                return retry(runId, "Batch manifest not readable; retry");
+            }
+            BatchGetResult read = repo.refreshJobs(jobIds.get());
+            if (!read.unprocessedJobIds().isEmpty()) {
+                return retry(runId, "Batch jobs not read; retry");
+            }
+            jobs = read.jobs();
+        } else {
+            jobs = repo.refreshJob(runId).map(List::of).orElse(List.of());
+        }
+        if (jobs.isEmpty()) {
+            return ignored(runId, "Job not found");
+        }
+
+        // A job resubmitted to EMR only accepts events from its current run
+        List<Job> current = jobs.stream()
+                .filter(job -> detail.jobRunId() != null && detail.jobRunId().equals(job.emrJobRunId()))
+                .toList();
+        if (current.isEmpty()) {
+            return ignored(runId, "Event is for job run " + detail.jobRunId()
+                    + ", job has " + jobs.getFirst().emrJobRunId());
+        }
+
+        List<StatusTransition> transitions = new ArrayList<>();
+        Map<String, Job> jobsById = new HashMap<>();
+        for (Job job : current) {
+            Optional<StatusTransition> transition = completionService.transitionFor(job, state);
+            if (transition.isPresent()) {
+                transitions.add(transition.get());
+                jobsById.put(job.jobId(), job);
+            }
+        }
+        if (transitions.isEmpty()) {
+            if (isTerminal(state)) {
+                // A finished batch whose results could not be read yet
+                return retry(runId, "Job outcome not readable; retry");
+            }
+            return ignored(runId, "EMR state " + state + " is not terminal");
+        }
+
+        TransitionBatchResult result = completionService.apply(transitions, jobsById);
+
+        if (!result.unprocessed().isEmpty()) {
+            return retry(runId, "Status update not written; retry");
+        }
+
+        if (result.applied().isEmpty()) {
+            // Already terminal: a duplicate delivery, or the poller got there first
+            return ResponseEntity.ok(Map.of(
+                    "jobId", runId,
+                    "outcome", "duplicate"
+            ));
+        }
+
+        Instant emrUpdatedAt = parseInstant(detail.updatedAt() != null ? detail.updatedAt() : event.time());
+        if (emrUpdatedAt != null) {
+            metricsService.recordCompletionDetectionLag(System.currentTimeMillis() - emrUpdatedAt.toEpochMilli());
+        }
+
+        if (batchRun) {
+            return ResponseEntity.ok(Map.of(
+                    "batchId", runId,
+                    "outcome", "applied",
+                    "applied", result.applied().size()
+            ));
+        }
+        return ResponseEntity.ok(Map.of(
+                "jobId", runId,
+                "outcome", "applied",
+                "status", transitions.getFirst().status().name()
+        ));
+    }
+
+    @Operation(
+            summary = "Ingest S3 object created",
+            description = "Accepts an EventBridge S3 'Object Created' event for a job input under raw/jobs/ and starts the job: SUBMITTED moves to RUNNING and the EMR submission is queued, without waiting for a worker to call the status endpoint. Duplicate events and uploads for jobs that have already started are acknowledged without changing the job."
+    )
+    @PostMapping("/s3")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Job started or event safely ignored"),
+            @ApiResponse(responseCode = "400", description = "Not an S3 Object Created event")
+    })
+    public CompletableFuture<ResponseEntity<?>> ingestS3Event(@RequestBody S3ObjectCreatedEvent event) {
+        if (event == null || event.detail() == null || event.detail().bucket() == null || event.detail().object() == null
+                || !S3_EVENT_SOURCE.equals(event.source())
+                || !S3_OBJECT_CREATED.equals(event.detailType())) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
+                    "error", "Expected an S3 Object Created event"
+            )));
+        }
+
+        String bucket = event.detail().bucket().name();
+        String key = event.detail().object().key();
+        if (!rawBucket.equals(bucket)) {
+            return CompletableFuture.completedFuture(ignored(null, "Object is not in the raw bucket"));
+        }
+        if (key == null || !key.startsWith(INPUT_KEY_PREFIX) || key.indexOf('/', INPUT_KEY_PREFIX.length()) < 0) {
+            return CompletableFuture.completedFuture(ignored(null, "Object is not a job input"));
+        }
+        String jobId = key.substring(INPUT_KEY_PREFIX.length(), key.indexOf('/', INPUT_KEY_PREFIX.length()));
+
+        Long size = event.detail().object().size();
+        if (size != null && size == 0) {
+            return CompletableFuture.completedFuture(ignored(jobId, "Input object is empty"));
+        }
+
+        return asyncRepo.getJob(jobId).thenCompose(job -> startFromUpload(jobId, bucket, key, job));
+    }
+
+    private CompletableFuture<ResponseEntity<?>> startFromUpload(String jobId, String bucket, String key,
+                                                                 Optional<Job> job) {
+        if (job.isEmpty()) {
+            return CompletableFuture.completedFuture(ignored(jobId, "Job not found"));
+        }
+
+        // Only the key the job was given may start it. A multipart upload can finish before
+        // its complete call records inputS3Key, so the job's canonical input key is accepted too
+        // and is recorded by the same conditional write that starts the job.
+        String inputS3Key = job.get().inputS3Key();
+        if (inputS3Key != null ? !inputS3Key.equals(key) : !JobsController.inputKey(jobId).equals(key)) {
+            return CompletableFuture.completedFuture(
+                    ignored(jobId, "Object " + key + " is not the job's input " + inputS3Key));
+        }
+
+        return asyncRepo.startWithInput(jobId, key, "Input uploaded")
+                .<ResponseEntity<?>>thenApply(started -> {
+                    submissionQueue.enqueue(started);
+                    log.info("Job {} started from upload of s3://{}/{}", jobId, bucket, key);
+
+                    return ResponseEntity.ok(Map.of(
+                            "jobId", jobId,
+                            "outcome", "applied",
+                            "status", JobStatus.RUNNING.name()
+                    ));
+                })
+                .exceptionally(error -> alreadyStartedResponse(jobId, error));
+    }
+
+    private ResponseEntity<?> alreadyStartedResponse(String jobId, Throwable error) {
+        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        if (!(cause instanceof InvalidStatusTransitionException e)) {
+            throw error instanceof CompletionException ce ? ce : new CompletionException(cause);
+        }
+
+        if (!e.jobExists()) {
+            return ignored(jobId, "Job not found");
+        }
+        Job current = e.getCurrentJob();
+        if (current != null && JobStatus.RUNNING.name().equals(current.status())
+                && (current.emrJobRunId() == null || current.emrJobRunId().isBlank())) {
+            // Started but perhaps never queued; the queue drops jobs it already holds
+            submissionQueue.enqueue(current);
+        }
+        return ResponseEntity.ok(Map.of(
+                "jobId", jobId,
+                "outcome", "duplicate"
+        ));
+    }
+
+    private static boolean isTerminal(JobRunState state) {
+        return state == JobRunState.SUCCESS || state == JobRunState.FAILED || state == JobRunState.CANCELLED;
+    }
+
+    private ResponseEntity<?> retry(String jobId, String error) {
+        return ResponseEntity.status(503).body(Map.of(
+                "error", error,
+                "jobId", jobId
+        ));
+    }
+
+    private ResponseEntity<?> ignored(String jobId, String reason) {
+        log.info("Ignoring event for job {}: {}", jobId, reason);
+        return ResponseEntity.ok(Map.of(
+                "jobId", jobId == null ? "" : jobId,
+                "outcome", "ignored",
+                "reason", reason
+        ));
+    }
+
+    private static Instant parseInstant(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -4,11 +4,12 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 @RestController
@@ -16,21 +17,18 @@ import java.util.stream.Collectors;
 @Tag(name = "Internal API", description = "Internal endpoints for job workers (not for public use)")
 public class InternalJobsController {
 
-    private final JobsRepository repo;
-    private final EmrService emrService;
-    private final String rawBucket;
-    private final String processedBucket;
+    private final AsyncJobsRepository asyncRepo;
+    private final EmrSubmissionQueue submissionQueue;
+    private final JobReconciler reconciler;
 
     public InternalJobsController(
-            JobsRepository repo,
-            EmrService emrService,
-            @Value("${app.s3.rawBucket:cloud-data-platform-dev-raw}") String rawBucket,
-            @Value("${app.s3.processedBucket:cloud-data-platform-dev-processed}") String processedBucket
+            AsyncJobsRepository asyncRepo,
+            EmrSubmissionQueue submissionQueue,
+            JobReconciler reconciler
     ) {
-        this.repo = repo;
-        this.emrService = emrService;
-        this.rawBucket = rawBucket;
-        this.processedBucket = processedBucket;
+        this.asyncRepo = asyncRepo;
+        this.submissionQueue = submissionQueue;
+        this.reconciler = reconciler;
     }
 
     @Operation(
@@ -43,75 +41,100 @@ public class InternalJobsController {
             @ApiResponse(responseCode = "400", description = "Invalid status or transition"),
             @ApiResponse(responseCode = "404", description = "Job not found")
     })
-    public ResponseEntity<?> updateStatus(
+    public CompletableFuture<ResponseEntity<?>> updateStatus(
             @PathVariable String jobId,
             @RequestBody UpdateJobStatusRequest request
     ) {
         if (request == null || request.status() == null || request.status().isBlank()) {
-            return ResponseEntity.badRequest().body(Map.of(
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
                     "error", "Missing status"
-            ));
+            )));
         }
 
         JobStatus newStatus;
         try {
             newStatus = JobStatus.valueOf(request.status().toUpperCase());
         } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().body(Map.of(
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
                     "error", "Invalid status",
                     "allowed", new String[]{"SUBMITTED", "RUNNING", "SUCCEEDED", "FAILED"}
-            ));
+            )));
         }
 
-        Job job = repo.getJob(jobId).orElse(null);
-        if (job == null) {
-            return ResponseEntity.status(404).body(Map.of(
-                    "error", "Job not found",
-                    "jobId", jobId
+        // Transition is validated by DynamoDB as part of the write
+        return asyncRepo.transitionStatus(jobId, newStatus, request.message(), request.outputS3Key())
+                .thenApply(updated -> submitEmrJobIfRunning(newStatus, updated))
+                .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(error -> rejectedTransitionResponse(jobId, newStatus, error));
+    }
+
+    @Operation(
+            summary = "Reconcile jobs against EMR",
+            description = "Starts a background parallel scan of the jobs table that checks every RUNNING job against EMR and applies missed completions. Read throughput is capped by app.reconcile.maxReadUnitsPerSecond."
+    )
+    @PostMapping("/reconcile")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Reconciliation started"),
+            @ApiResponse(responseCode = "409", description = "Reconciliation already in progress")
+    })
+    public ResponseEntity<?> startReconciliation() {
+        if (!reconciler.start()) {
+            return ResponseEntity.status(409).body(Map.of(
+                    "error", "Reconciliation already in progress"
             ));
         }
+        return ResponseEntity.accepted().body(reconciler.lastReport().orElseThrow());
+    }
 
-        JobStatus currentStatus = JobStatus.valueOf(job.status());
-
-        // Validate status transition
-        if (!JobStatusTransitionValidator.isValidTransition(currentStatus, newStatus)) {
-            var allowedStatuses = JobStatusTransitionValidator.getAllowedTransitions(currentStatus)
-                    .stream()
-                    .map(JobStatus::name)
-                    .collect(Collectors.toSet());
+    @Operation(
+            summary = "Get reconciliation report",
+            description = "Returns the progress or outcome of the most recent reconciliation run."
+    )
+    @GetMapping("/reconcile")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Report returned"),
+            @ApiResponse(responseCode = "404", description = "No reconciliation has run")
+    })
+    public ResponseEntity<?> getReconciliation() {
+        return reconciler.lastReport()
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of(
+                        "error", "No reconciliation has run"
+                )));
+    }
 
-            return ResponseEntity.badRequest().body(Map.of(
-                    "error", "Invalid status transition",
-                    "currentStatus", currentStatus.name(),
-                    "attemptedStatus", newStatus.name(),
-                    "allowedNextStatuses", allowedStatuses
-            ));
+    private Job submitEmrJobIfRunning(JobStatus newStatus, Job updated) {
+        // If transitioning to RUNNING, queue the EMR submission; the response does not wait for it
+        if (newStatus == JobStatus.RUNNING) {
+            submissionQueue.enqueue(updated);
         }
+        return updated;
+    }
 
-        // Update status first
-        Job updated = repo.updateStatus(jobId, newStatus, request.message(), request.outputS3Key());
-
-        // If transitioning to RUNNING, start EMR job
-        if (newStatus == JobStatus.RUNNING && job.inputS3Key() != null) {
-            try {
-                String inputPath = "s3://" + rawBucket + "/" + job.inputS3Key();
-                String outputPath = "s3://" + processedBucket + "/processed/jobs/" + jobId + "/output/";
+    private ResponseEntity<?> rejectedTransitionResponse(String jobId, JobStatus newStatus, Throwable error) {
+        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        if (!(cause instanceof InvalidStatusTransitionException e)) {
+            throw error instanceof CompletionException ce ? ce : new CompletionException(cause);
+        }
 
-                String emrJobRunId = emrService.startSparkJob(jobId, inputPath, outputPath);
-                if (emrJobRunId != null && !emrJobRunId.isBlank()) {
-                    repo.setEmrJobRunId(jobId, emrJobRunId);
-                    // Fetch updated job with EMR ID
-                    updated = repo.getJob(jobId).orElse(updated);
-                } else {
-                    // EMR disabled or not configured; leave job RUNNING without emrJobRunId
-                    System.err.println("EMR disabled or not configured; jobRunId not set for jobId=" + jobId);
-                }
-            } catch (Exception e) {
-                // Log error but don't fail the status update
-                System.err.println("Failed to start EMR job: " + e.getMessage());
-            }
+        if (!e.jobExists()) {
+            return ResponseEntity.status(404).body(Map.of(
+                    "error", "Job not found",
+                    "jobId", jobId
+            ));
         }
 
-        return ResponseEntity.ok(updated);
+        JobStatus currentStatus = JobStatus.valueOf(e.getCurrentJob().status());
+        var allowedStatuses = JobStatusTransitionValidator.getAllowedTransitions(currentStatus)
+                .stream()
+                .map(JobStatus::name)
+                .collect(Collectors.toSet());
+
+        return ResponseEntity.badRequest().body(Map.of(
+                "error", "Invalid status transition",
+                "currentStatus", currentStatus.name(),
+                "attemptedStatus", newStatus.name(),
+                "allowedNextStatuses", allowedStatuses
+        ));
     }
 }
\ No newline at end of file
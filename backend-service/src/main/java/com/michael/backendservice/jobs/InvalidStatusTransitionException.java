@@ -0,0 +1,40 @@
+package com.michael.backendservice.jobs;
+
+/**
+ * Thrown when a conditional status transition is rejected by DynamoDB, either because the
+ * job does not exist or because its current status does not allow the requested transition.
+ */
+public class InvalidStatusTransitionException extends RuntimeException {
+
+    private final String jobId;
+    private final JobStatus attemptedStatus;
+    private final Job currentJob;
+
+    public InvalidStatusTransitionException(String jobId, JobStatus attemptedStatus, Job currentJob) {
+        super(currentJob == null
+                ? "Job not found: " + jobId
+                : "Invalid status transition for job " + jobId + ": " + currentJob.status() + " -> " + attemptedStatus);
+        this.jobId = jobId;
+        this.attemptedStatus = attemptedStatus;
+        this.currentJob = currentJob;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public JobStatus getAttemptedStatus() {
+        return attemptedStatus;
+    }
+
+    /**
+     * @return the job as it was when the condition failed, or null if the job does not exist
+     */
+    public Job getCurrentJob() {
+        return currentJob;
+    }
+
+    public boolean jobExists() {
+        return currentJob != null;
+    }
+}
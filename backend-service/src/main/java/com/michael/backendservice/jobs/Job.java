@@ -8,5 +8,17 @@ public record Job(
         String updatedAt,
         String statusMessage,
         String outputS3Key,
-        String emrJobRunId
-) {}
\ No newline at end of file
+        String emrJobRunId,
+        String emrBatchId,
+        String resourceProfile,
+        Long inputSizeBytes,
+        Integer priority,
+        String submitter,
+        Integer outputFileCount,
+        Long outputSizeBytes,
+        String submissionQueuedAt
+) {
+
+    public static final int DEFAULT_PRIORITY = 0;
+    public static final String DEFAULT_SUBMITTER = "default";
+}
@@ -0,0 +1,97 @@
+package com.michael.backendservice.jobs;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.michael.backendservice.observability.MetricsService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Size-bounded, per-replica cache of job records kept in front of DynamoDB reads.
+ * <p>
+ * Caffeine's W-TinyLFU policy decides what to evict. Non-terminal jobs expire after
+ * {@code app.jobs.cache.activeTtl} so changes written by other replicas become visible
+ * quickly. Terminal jobs rarely change and are kept for {@code app.jobs.cache.terminalTtl};
+ * a SUCCEEDED job whose output totals have not been recorded yet is still expected to be
+ * written once more, so it keeps the active TTL until they are.
+ */
+@Component
+public class JobCache {
+
+    private final Cache<String, Job> cache;
+    private final MetricsService metricsService;
+
+    public JobCache(
+            MetricsService metricsService,
+            @Value("${app.jobs.cache.maxSize:10000}") long maxSize,
+            @Value("${app.jobs.cache.activeTtl:5s}") Duration activeTtl,
+            @Value("${app.jobs.cache.terminalTtl:10m}") Duration terminalTtl
+    ) {
+        this.metricsService = metricsService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new StatusAwareExpiry(activeTtl.toNanos(), terminalTtl.toNanos()))
+                .evictionListener((String jobId, Job job, RemovalCause cause) ->
+                        metricsService.incrementJobCacheEvictions())
+                .build();
+    }
+
+    public Optional<Job> get(String jobId) {
+        Job job = cache.getIfPresent(jobId);
+        if (job == null) {
+            metricsService.incrementJobCacheMisses();
+            return Optional.empty();
+        }
+        metricsService.incrementJobCacheHits();
+        return Optional.of(job);
+    }
+
+    public void put(Job job) {
+        if (job != null && job.jobId() != null && !job.jobId().isBlank()) {
+            cache.put(job.jobId(), job);
+        }
+    }
+
+    public void invalidate(String jobId) {
+        cache.invalidate(jobId);
+    }
+
+    record StatusAwareExpiry(long activeTtlNanos, long terminalTtlNanos) implements Expiry<String, Job> {
+
+        @Override
+        public long expireAfterCreate(String jobId, Job job, long currentTime) {
+            return ttlFor(job);
+        }
+
+        @Override
+        public long expireAfterUpdate(String jobId, Job job, long currentTime, long currentDuration) {
+            return ttlFor(job);
+        }
+
+        @Override
+        public long expireAfterRead(String jobId, Job job, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        private long ttlFor(Job job) {
+            JobStatus status;
+            try {
+                status = job.status() == null ? null : JobStatus.valueOf(job.status());
+            } catch (IllegalArgumentException e) {
+                status = null;
+            }
+            if (status == null || !status.isTerminal()) {
+                return activeTtlNanos;
+            }
+            if (status == JobStatus.SUCCEEDED && job.outputFileCount() == null) {
+                return activeTtlNanos;
+            }
+            return terminalTtlNanos;
+        }
+    }
+}
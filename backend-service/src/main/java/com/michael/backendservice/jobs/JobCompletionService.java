@@ -0,0 +1,162 @@
+package com.michael.backendservice.jobs;
+
+import com.michael.backendservice.observability.MetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.emrserverless.model.JobRunState;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Turns EMR job run states into job status transitions and applies them.
+ * Shared by every path that detects EMR completion so they all write the same
+ * statuses, messages and metrics.
+ */
+@Service
+public class JobCompletionService {
+
+    private static final Logger log = LoggerFactory.getLogger(JobCompletionService.class);
+
+    private final JobsRepository repo;
+    private final MetricsService metricsService;
+    private final EmrBatchResults batchResults;
+    private final EmrAdmissionController admission;
+    private final OutputManifestStore manifestStore;
+
+    public JobCompletionService(JobsRepository repo, MetricsService metricsService, EmrBatchResults batchResults,
+                                EmrAdmissionController admission, OutputManifestStore manifestStore) {
+        this.repo = repo;
+        this.metricsService = metricsService;
+        this.batchResults = batchResults;
+        this.admission = admission;
+        this.manifestStore = manifestStore;
+    }
+
+    /**
+     * For a job run as part of a coalesced batch, a successful EMR run is resolved to the job's
+     * own outcome from the batch results.
+     *
+     * @return the terminal transition for the job, or empty while the EMR run is still in progress
+     */
+    public Optional<StatusTransition> transitionFor(Job job, JobRunState emrState) {
+        switch (emrState) {
+            case SUCCESS:
+                if (job.emrBatchId() != null && !job.emrBatchId().isBlank()) {
+                    return batchTransitionFor(job);
+                }
+                String outputPath = "processed/jobs/" + job.jobId() + "/output/";
+                return Optional.of(new StatusTransition(
+                        job.jobId(),
+                        JobStatus.SUCCEEDED,
+                        "EMR job completed successfully",
+                        outputPath
+                ));
+
+            case FAILED:
+            case CANCELLED:
+                return Optional.of(new StatusTransition(
+                        job.jobId(),
+                        JobStatus.FAILED,
+                        "EMR job " + emrState.toString().toLowerCase(),
+                        null
+                ));
+
+            case PENDING:
+            case SCHEDULED:
+            case RUNNING:
+                log.debug("Job {} still in progress (EMR state: {})", job.jobId(), emrState);
+                return Optional.empty();
+
+            default:
+                log.warn("Unexpected EMR state {} for job {}", emrState, job.jobId());
+                return Optional.empty();
+        }
+    }
+
+    private Optional<StatusTransition> batchTransitionFor(Job job) {
+        Optional<Map<String, EmrBatchResults.JobResult>> results = batchResults.resultsFor(job.emrBatchId());
+        if (results.isEmpty()) {
+            // Results not readable yet; try again on the next poll
+            return Optional.empty();
+        }
+
+        EmrBatchResults.JobResult result = results.get().get(job.jobId());
+        if (result == null) {
+            return Optional.of(new StatusTransition(
+                    job.jobId(),
+                    JobStatus.FAILED,
+                    "No result for job in EMR batch " + job.emrBatchId(),
+                    null
+            ));
+        }
+
+        if (result.succeeded()) {
+            return Optional.of(new StatusTransition(
+                    job.jobId(),
+                    JobStatus.SUCCEEDED,
+                    "EMR job completed successfully (batch " + job.emrBatchId() + ")",
+                    "processed/jobs/" + job.jobId() + "/output/"
+            ));
+        }
+
+        return Optional.of(new StatusTransition(
+                job.jobId(),
+                JobStatus.FAILED,
+                "EMR batch job failed: " + (result.message() != null ? result.message() : "unknown error"),
+                null
+        ));
+    }
+
+    /**
+     * Writes the transitions in one batch and records completion metrics for those applied.
+     * Every transition comes from a finished EMR run, so its run's capacity is released.
+     * Succeeded jobs get their output manifest built in the background.
+     *
+     * @param jobsById the jobs the transitions were derived from, for processing-time metrics
+     */
+    public TransitionBatchResult apply(List<StatusTransition> transitions, Map<String, Job> jobsById) {
+        for (StatusTransition t : transitions) {
+            Job job = jobsById.get(t.jobId());
+            if (job != null) {
+                admission.release(job.emrJobRunId());
+            }
+        }
+
+        TransitionBatchResult result = repo.transitionStatuses(transitions);
+
+        for (StatusTransition t : result.applied()) {
+            if (t.status() == JobStatus.SUCCEEDED) {
+                metricsService.incrementJobsCompleted();
+
+                // Calculate processing time
+                Job job = jobsById.get(t.jobId());
+                if (job != null && job.createdAt() != null && !job.createdAt().isBlank()) {
+                    long processingTime = Instant.now().toEpochMilli() -
+                            Instant.parse(job.createdAt()).toEpochMilli();
+                    metricsService.recordJobProcessingTime(processingTime);
+                }
+
+                log.info("Job {} marked SUCCEEDED with output: {}", t.jobId(), t.outputS3Key());
+                manifestStore.buildAsync(t.jobId(), t.outputS3Key());
+            } else {
+                metricsService.incrementJobsFailed();
+                metricsService.incrementEmrJobsFailed();
+                log.info("Job {} marked FAILED ({})", t.jobId(), t.message());
+            }
+        }
+
+        for (StatusTransition t : result.rejected()) {
+            log.info("Job {} already moved on by another writer; skipping {}", t.jobId(), t.status());
+        }
+
+        if (!result.unprocessed().isEmpty()) {
+            log.warn("{} job transitions not written; will retry on next poll", result.unprocessed().size());
+        }
+
+        return result;
+    }
+}
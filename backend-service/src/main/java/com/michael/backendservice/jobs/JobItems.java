@@ -0,0 +1,294 @@
+package com.michael.backendservice.jobs;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnConditionCheckFailure;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * DynamoDB item layout for jobs, shared by {@link JobsRepository} and {@link AsyncJobsRepository}
+ * so both build identical items and requests.
+ */
+final class JobItems {
+
+    static final String JOB_PARTITION_VALUE = "ALL";
+
+    private JobItems() {
+    }
+
+    static String partitionFor(String jobId, int partitionShards) {
+        if (partitionShards <= 1) {
+            return JOB_PARTITION_VALUE;
+        }
+        return JOB_PARTITION_VALUE + "#" + Math.floorMod(jobId.hashCode(), partitionShards);
+    }
+
+    static int activeShardFor(String jobId, int activeShards) {
+        return activeShards <= 1 ? 0 : Math.floorMod(jobId.hashCode(), activeShards);
+    }
+
+    /**
+     * Value of the sparse {@code activeStatus} attribute: the status, suffixed with the job's
+     * shard ({@code RUNNING#3}) when the active index is sharded.
+     */
+    static String activeStatusFor(JobStatus status, String jobId, int activeShards) {
+        if (activeShards <= 1) {
+            return status.name();
+        }
+        return status.name() + "#" + activeShardFor(jobId, activeShards);
+    }
+
+    static Map<String, AttributeValue> key(String jobId) {
+        return Map.of("jobId", AttributeValue.fromS(jobId));
+    }
+
+    static Map<String, AttributeValue> newJobItem(String jobId, String partition, int activeShards,
+                                                  CreateJobRequest request, Instant now) {
+        String inputS3Key = request.inputS3Key();
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("jobId", AttributeValue.fromS(jobId));
+        item.put("jobPartition", AttributeValue.fromS(partition));
+        item.put("status", AttributeValue.fromS(JobStatus.SUBMITTED.name()));
+        item.put("activeStatus", AttributeValue.fromS(activeStatusFor(JobStatus.SUBMITTED, jobId, activeShards)));
+        item.put("createdAt", AttributeValue.fromS(now.toString()));
+        item.put("updatedAt", AttributeValue.fromS(now.toString()));
+        item.put("priority", AttributeValue.fromN(Integer.toString(request.priorityOrDefault())));
+        item.put("submitter", AttributeValue.fromS(request.submitterOrDefault()));
+
+        if (inputS3Key != null && !inputS3Key.isBlank()) {
+            item.put("inputS3Key", AttributeValue.fromS(inputS3Key));
+        }
+        return item;
+    }
+
+    static Job newJob(String jobId, CreateJobRequest request, Instant now) {
+        return new Job(jobId, JobStatus.SUBMITTED.name(), now.toString(), request.inputS3Key(), now.toString(),
+                null, null, null, null, null, null, request.priorityOrDefault(), request.submitterOrDefault(), null, null, null);
+    }
+
+    /**
+     * Maps an item (full or projected) to a {@link Job}. Each attribute is looked up once and
+     * defaults are constants, so no {@link AttributeValue} is allocated per field.
+     */
+    static Job toJob(Map<String, AttributeValue> item) {
+        return new Job(
+                string(item, "jobId", ""),
+                string(item, "status", "UNKNOWN"),
+                string(item, "createdAt", ""),
+                string(item, "inputS3Key", null),
+                string(item, "updatedAt", null),
+                string(item, "statusMessage", null),
+                string(item, "outputS3Key", null),
+                string(item, "emrJobRunId", null),
+                string(item, "emrBatchId", null),
+                string(item, "resourceProfile", null),
+                number(item, "inputSizeBytes"),
+                integer(item, "priority"),
+                string(item, "submitter", null),
+                integer(item, "outputFileCount"),
+                number(item, "outputSizeBytes"),
+                string(item, "submissionQueuedAt", null)
+        );
+    }
+
+    private static String string(Map<String, AttributeValue> item, String attribute, String fallback) {
+        AttributeValue value = item.get(attribute);
+        return value == null ? fallback : value.s();
+    }
+
+    private static Integer integer(Map<String, AttributeValue> item, String attribute) {
+        Long value = number(item, attribute);
+        return value == null ? null : value.intValue();
+    }
+
+    private static Long number(Map<String, AttributeValue> item, String attribute) {
+        AttributeValue value = item.get(attribute);
+        return value == null || value.n() == null ? null : Long.valueOf(value.n());
+    }
+
+    /**
+     * Builds an UpdateItem that sets a single string attribute and returns the new item.
+     */
+    static UpdateItemRequest setAttributeRequest(String table, String jobId, String attribute, String value) {
+        return setAttributesRequest(table, jobId, Map.of(attribute, AttributeValue.fromS(value)));
+    }
+
+    /**
+     * Builds an UpdateItem that sets several attributes and returns the new item.
+     */
+    static UpdateItemRequest setAttributesRequest(String table, String jobId, Map<String, AttributeValue> attributes) {
+        List<String> assignments = new ArrayList<>();
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        int i = 0;
+        for (Map.Entry<String, AttributeValue> attribute : attributes.entrySet()) {
+            assignments.add("#attr" + i + " = :val" + i);
+            names.put("#attr" + i, attribute.getKey());
+            values.put(":val" + i, attribute.getValue());
+            i++;
+        }
+
+        return UpdateItemRequest.builder()
+                .tableName(table)
+                .key(key(jobId))
+                .updateExpression("SET " + String.join(", ", assignments))
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .returnValues("ALL_NEW")
+                .build();
+    }
+
+    /**
+     * Builds an UpdateItem that stamps {@code submissionQueuedAt} on a job still awaiting its
+     * EMR run. The condition keeps it from recreating a deleted job or touching a submitted one.
+     */
+    static UpdateItemRequest submissionQueuedRequest(String table, String jobId, String queuedAt) {
+        return UpdateItemRequest.builder()
+                .tableName(table)
+                .key(key(jobId))
+                .updateExpression("SET #submissionQueuedAt = :queuedAt")
+                .conditionExpression("attribute_exists(#jobId) AND attribute_not_exists(#emrJobRunId)")
+                .expressionAttributeNames(Map.of(
+                        "#submissionQueuedAt", "submissionQueuedAt",
+                        "#jobId", "jobId",
+                        "#emrJobRunId", "emrJobRunId"))
+                .expressionAttributeValues(Map.of(":queuedAt", AttributeValue.fromS(queuedAt)))
+                .build();
+    }
+
+    /**
+     * Builds an unconditional status UpdateItem returning the new item.
+     */
+    static UpdateItemRequest statusUpdateRequest(String table, String jobId, JobStatus status,
+                                                 String message, String outputS3Key, int activeShards) {
+        StatusUpdate update = statusUpdate(jobId, status, message, outputS3Key, null, activeShards);
+        return UpdateItemRequest.builder()
+                .tableName(table)
+                .key(update.key())
+                .updateExpression(update.updateExpression())
+                .expressionAttributeNames(update.names())
+                .expressionAttributeValues(update.values())
+                .returnValues("ALL_NEW")
+                .build();
+    }
+
+    /**
+     * Builds a status UpdateItem conditioned on the job's current status being one of
+     * {@code allowedFrom}. On a failed condition DynamoDB returns the current item.
+     */
+    static UpdateItemRequest transitionRequest(String table, String jobId, JobStatus status, String message,
+                                               String outputS3Key, Set<JobStatus> allowedFrom, int activeShards) {
+        return transitionRequest(table, jobId, status, message, outputS3Key, null, allowedFrom, activeShards);
+    }
+
+    /**
+     * As {@link #transitionRequest(String, String, JobStatus, String, String, Set, int)}, also
+     * setting {@code inputS3Key} when given, under the same condition.
+     */
+    static UpdateItemRequest transitionRequest(String table, String jobId, JobStatus status, String message,
+                                               String outputS3Key, String inputS3Key, Set<JobStatus> allowedFrom,
+                                               int activeShards) {
+        StatusUpdate update = statusUpdate(jobId, status, message, outputS3Key, inputS3Key, allowedFrom, activeShards);
+        return UpdateItemRequest.builder()
+                .tableName(table)
+                .key(update.key())
+                .updateExpression(update.updateExpression())
+                .conditionExpression(update.conditionExpression())
+                .expressionAttributeNames(update.names())
+                .expressionAttributeValues(update.values())
+                .returnValues("ALL_NEW")
+                .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+                .build();
+    }
+
+    /**
+     * Whether {@code current}, the item returned with a failed condition, was written by
+     * {@code request} itself. With SDK retries an attempt can be applied by DynamoDB but time
+     * out on the client; the retry then fails its condition against its own write.
+     * {@code updatedAt} is unique to the request, so another writer's change never matches.
+     */
+    static boolean writtenBy(UpdateItemRequest request, Map<String, AttributeValue> current) {
+        AttributeValue status = current.get("status");
+        AttributeValue updatedAt = current.get("updatedAt");
+        return status != null && updatedAt != null
+                && status.equals(request.expressionAttributeValues().get(":status"))
+                && updatedAt.equals(request.expressionAttributeValues().get(":updatedAt"));
+    }
+
+    /**
+     * Builds the update (and, when {@code requiredCurrent} is given, the condition) for a
+     * status change. Also keeps the sparse active-jobs index in step with the status.
+     */
+    static StatusUpdate statusUpdate(String jobId, JobStatus status, String message, String outputS3Key,
+                                     Set<JobStatus> requiredCurrent, int activeShards) {
+        return statusUpdate(jobId, status, message, outputS3Key, null, requiredCurrent, activeShards);
+    }
+
+    private static StatusUpdate statusUpdate(String jobId, JobStatus status, String message, String outputS3Key,
+                                             String inputS3Key, Set<JobStatus> requiredCurrent, int activeShards) {
+        String now = Instant.now().toString();
+
+        StringBuilder setExpr = new StringBuilder("SET #status = :status, #updatedAt = :updatedAt");
+        Map<String, String> names = new HashMap<>();
+        names.put("#status", "status");
+        names.put("#updatedAt", "updatedAt");
+
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":status", AttributeValue.fromS(status.name()));
+        values.put(":updatedAt", AttributeValue.fromS(now));
+
+        if (message != null && !message.isBlank()) {
+            setExpr.append(", #statusMessage = :statusMessage");
+            names.put("#statusMessage", "statusMessage");
+            values.put(":statusMessage", AttributeValue.fromS(message));
+        }
+
+        if (outputS3Key != null && !outputS3Key.isBlank()) {
+            setExpr.append(", #outputS3Key = :outputS3Key");
+            names.put("#outputS3Key", "outputS3Key");
+            values.put(":outputS3Key", AttributeValue.fromS(outputS3Key));
+        }
+
+        if (inputS3Key != null && !inputS3Key.isBlank()) {
+            setExpr.append(", #inputS3Key = :inputS3Key");
+            names.put("#inputS3Key", "inputS3Key");
+            values.put(":inputS3Key", AttributeValue.fromS(inputS3Key));
+        }
+
+        names.put("#activeStatus", "activeStatus");
+        if (status.isTerminal()) {
+            setExpr.append(" REMOVE #activeStatus");
+        } else {
+            setExpr.append(", #activeStatus = :activeStatus");
+            values.put(":activeStatus", AttributeValue.fromS(activeStatusFor(status, jobId, activeShards)));
+        }
+
+        String condition = null;
+        if (requiredCurrent != null) {
+            names.put("#jobId", "jobId");
+            List<String> placeholders = new ArrayList<>();
+            for (JobStatus from : requiredCurrent) {
+                String placeholder = ":from" + from.name();
+                placeholders.add(placeholder);
+                values.put(placeholder, AttributeValue.fromS(from.name()));
+            }
+            condition = "attribute_exists(#jobId) AND #status IN (" + String.join(", ", placeholders) + ")";
+        }
+
+        return new StatusUpdate(key(jobId), setExpr.toString(), condition, names, values);
+    }
+
+    record StatusUpdate(
+            Map<String, AttributeValue> key,
+            String updateExpression,
+            String conditionExpression,
+            Map<String, String> names,
+            Map<String, AttributeValue> values
+    ) {}
+}
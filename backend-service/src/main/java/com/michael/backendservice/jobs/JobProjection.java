@@ -0,0 +1,54 @@
+package com.michael.backendservice.jobs;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A precomputed DynamoDB {@code ProjectionExpression} over job attributes.
+ * <p>
+ * jobId, status and createdAt are always included: they identify the job, keep
+ * {@link Job#status()} meaningful, and are needed to merge and page the list index.
+ * Unrequested attributes come back as null on the mapped {@link Job}.
+ */
+public record JobProjection(String expression, Map<String, String> names) {
+
+    static final List<String> ATTRIBUTES = List.of(
+            "jobId", "status", "createdAt", "inputS3Key", "updatedAt", "statusMessage", "outputS3Key", "emrJobRunId",
+            "emrBatchId", "resourceProfile", "inputSizeBytes", "priority", "submitter",
+            "outputFileCount", "outputSizeBytes", "submissionQueuedAt");
+
+    private static final List<String> REQUIRED = List.of("jobId", "status", "createdAt");
+
+    /** Fields the status poller needs to check a running job against EMR. */
+    public static final JobProjection POLLER = of(Set.of("emrJobRunId", "emrBatchId"));
+
+    /** Fields the EMR submission sweep needs to resubmit a job. */
+    public static final JobProjection SUBMISSION = of(Set.of(
+            "inputS3Key", "updatedAt", "emrJobRunId", "priority", "submitter", "submissionQueuedAt"));
+
+    /**
+     * @throws IllegalArgumentException if {@code fields} names an unknown job attribute
+     */
+    public static JobProjection of(Set<String> fields) {
+        Set<String> attributes = new LinkedHashSet<>(REQUIRED);
+        for (String attribute : ATTRIBUTES) {
+            if (fields.contains(attribute)) {
+                attributes.add(attribute);
+            }
+        }
+        for (String field : fields) {
+            if (!ATTRIBUTES.contains(field)) {
+                throw new IllegalArgumentException("Unknown job field: " + field);
+            }
+        }
+
+        Map<String, String> names = new LinkedHashMap<>();
+        for (String attribute : attributes) {
+            names.put("#" + attribute, attribute);
+        }
+        return new JobProjection(String.join(", ", names.keySet()), Map.copyOf(names));
+    }
+}
@@ -0,0 +1,168 @@
+package com.michael.backendservice.jobs;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.emrserverless.model.JobRunState;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reconciles every job in the table against EMR, for use after an outage when the
+ * poller may have missed completions.
+ * <p>
+ * The table is read with a rate-limited parallel Scan ({@link JobsRepository#scanJobs}); RUNNING
+ * jobs are checked against EMR and terminal transitions are flushed in batches through
+ * {@link JobCompletionService}, so writes stay conditional and never overwrite newer states.
+ * Only one run happens at a time.
+ */
+@Service
+public class JobReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(JobReconciler.class);
+    private static final int FLUSH_SIZE = 100;
+
+    private final JobsRepository repo;
+    private final EmrService emrService;
+    private final JobCompletionService completionService;
+    private final ParallelScanOptions scanOptions;
+    private final ExecutorService runner = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicReference<ReconciliationReport> lastReport = new AtomicReference<>();
+
+    public JobReconciler(
+            JobsRepository repo,
+            EmrService emrService,
+            JobCompletionService completionService,
+            @Value("${app.reconcile.totalSegments:16}") int totalSegments,
+            @Value("${app.reconcile.maxConcurrency:8}") int maxConcurrency,
+            @Value("${app.reconcile.maxReadUnitsPerSecond:500}") double maxReadUnitsPerSecond
+    ) {
+        this.repo = repo;
+        this.emrService = emrService;
+        this.completionService = completionService;
+        this.scanOptions = new ParallelScanOptions(totalSegments, maxConcurrency, maxReadUnitsPerSecond);
+    }
+
+    /**
+     * Starts a reconciliation run in the background.
+     *
+     * @return false if a run is already in progress
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+
+        String startedAt = Instant.now().toString();
+        lastReport.set(new ReconciliationReport(startedAt, null, 0, 0, 0, 0, 0, null));
+        runner.submit(() -> {
+            try {
+                reconcile(startedAt);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    public Optional<ReconciliationReport> lastReport() {
+        return Optional.ofNullable(lastReport.get());
+    }
+
+    private void reconcile(String startedAt) {
+        log.info("Starting job reconciliation: {}", scanOptions);
+
+        LongAdder checked = new LongAdder();
+        LongAdder applied = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        LongAdder unprocessed = new LongAdder();
+        PendingTransitions pending = new PendingTransitions();
+
+        long scanned = 0;
+        String error = null;
+        try {
+            scanned = repo.scanJobs(scanOptions, JobProjection.POLLER, job -> {
+                if (!JobStatus.RUNNING.name().equals(job.status())
+                        || job.emrJobRunId() == null || job.emrJobRunId().isBlank()) {
+                    return;
+                }
+
+                checked.increment();
+                JobRunState emrState = emrService.getJobRunState(job.emrJobRunId());
+                if (emrState == null) {
+                    return;
+                }
+
+                completionService.transitionFor(job, emrState).ifPresent(transition -> {
+                    Batch batch = pending.add(transition, job);
+                    if (batch != null) {
+                        flush(batch, applied, rejected, unprocessed);
+                    }
+                });
+            });
+            flush(pending.drain(), applied, rejected, unprocessed);
+        } catch (RuntimeException e) {
+            log.error("Job reconciliation failed: {}", e.getMessage(), e);
+            error = e.getMessage();
+        }
+
+        ReconciliationReport report = new ReconciliationReport(
+                startedAt,
+                Instant.now().toString(),
+                scanned,
+                checked.sum(),
+                applied.sum(),
+                rejected.sum(),
+                unprocessed.sum(),
+                error
+        );
+        lastReport.set(report);
+        log.info("Job reconciliation finished: {}", report);
+    }
+
+    private void flush(Batch batch, LongAdder applied, LongAdder rejected, LongAdder unprocessed) {
+        if (batch.transitions().isEmpty()) {
+            return;
+        }
+        TransitionBatchResult result = completionService.apply(batch.transitions(), batch.jobsById());
+        applied.add(result.applied().size());
+        rejected.add(result.rejected().size());
+        unprocessed.add(result.unprocessed().size());
+    }
+
+    private record Batch(List<StatusTransition> transitions, Map<String, Job> jobsById) {}
+
+    /**
+     * Collects transitions from concurrent scan segments and hands out full batches.
+     */
+    private static final class PendingTransitions {
+
+        private List<StatusTransition> transitions = new ArrayList<>();
+        private Map<String, Job> jobsById = new HashMap<>();
+
+        synchronized Batch add(StatusTransition transition, Job job) {
+            transitions.add(transition);
+            jobsById.put(job.jobId(), job);
+            return transitions.size() >= FLUSH_SIZE ? drain() : null;
+        }
+
+        synchronized Batch drain() {
+            Batch batch = new Batch(transitions, jobsById);
+            transitions = new ArrayList<>();
+            jobsById = new HashMap<>();
+            return batch;
+        }
+    }
+}
@@ -4,5 +4,9 @@ public enum JobStatus {
     SUBMITTED,
     RUNNING,
     SUCCEEDED,
-    FAILED
+    FAILED;
+
+    public boolean isTerminal() {
+        return this == SUCCEEDED || this == FAILED;
+    }
 }
@@ -1,105 +1,316 @@
 package com.michael.backendservice.jobs;
 
+import com.michael.backendservice.cluster.PollerMembership;
 import com.michael.backendservice.observability.MetricsService;
+import com.michael.backendservice.resilience.CircuitBreakers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import software.amazon.awssdk.services.emrserverless.model.JobRunState;
+import software.amazon.awssdk.services.emrserverless.model.JobRun;
+import software.amazon.awssdk.services.emrserverless.model.JobRunSummary;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.IntStream;
 
+/**
+ * Detects EMR completion for RUNNING jobs.
+ * <p>
+ * In {@code adaptive} mode (the default) each cycle only discovers RUNNING jobs and hands
+ * them to {@link AdaptivePollScheduler}, which polls each job on its own backoff schedule.
+ * In {@code list} mode each cycle pages through {@code ListJobRuns} for terminal
+ * runs created since a high-water mark (the latest {@code updatedAt} of the runs already
+ * processed, less {@code app.poller.listOverlap}) and joins them to jobs by
+ * {@code emrJobRunId}, so EMR calls scale with newly finished runs. Jobs created before that
+ * window are matched against the application's active runs and only those whose run is no
+ * longer active are checked individually with {@code GetJobRun}. In {@code get} mode every job is checked
+ * individually.
+ * <p>
+ * When EMR state change events are delivered to {@code POST /internal/events/emr}, completions
+ * are applied as they happen and this poller only sweeps for missed events, so
+ * {@code app.poller.intervalMs} can be raised.
+ * <p>
+ * With several replicas, the shards of the active-jobs index are split between them by
+ * {@link PollerMembership}, and each replica reads and polls only the shards it owns. In
+ * {@code list} mode a single {@code ListJobRuns} sweep covers the whole application, so only
+ * the replica owning the sweep runs list cycles, over every shard. While the EMR circuit
+ * breaker is open, cycles are skipped.
+ */
 @Component
 public class JobStatusPoller {
 
+    enum PollMode { LIST, GET, ADAPTIVE }
+
     private static final Logger log = LoggerFactory.getLogger(JobStatusPoller.class);
 
+    private static final String LIST_SWEEP_KEY = "sweep#listJobRuns";
+
     private final JobsRepository repo;
     private final EmrService emrService;
+    private final JobCompletionService completionService;
     private final MetricsService metricsService;
-    private final String processedBucket;
+    private final AdaptivePollScheduler adaptiveScheduler;
+    private final PollerMembership membership;
+    private final CircuitBreakers circuitBreakers;
+    private final ExecutorService pollExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore emrPermits;
+    private final PollMode mode;
+    private final Duration listLookback;
+    private final Duration listOverlap;
+    private volatile Instant listedThrough;
 
     public JobStatusPoller(
             JobsRepository repo,
             EmrService emrService,
+            JobCompletionService completionService,
             MetricsService metricsService,
-            @Value("${app.s3.processedBucket:cloud-data-platform-dev-processed}") String processedBucket
+            AdaptivePollScheduler adaptiveScheduler,
+            PollerMembership membership,
+            CircuitBreakers circuitBreakers,
+            @Value("${app.poller.concurrency:16}") int concurrency,
+            @Value("${app.poller.mode:adaptive}") String mode,
+            @Value("${app.poller.listLookback:24h}") Duration listLookback,
+            @Value("${app.poller.listOverlap:2m}") Duration listOverlap
     ) {
         this.repo = repo;
         this.emrService = emrService;
+        this.completionService = completionService;
         this.metricsService = metricsService;
-        this.processedBucket = processedBucket;
+        this.adaptiveScheduler = adaptiveScheduler;
+        this.membership = membership;
+        this.circuitBreakers = circuitBreakers;
+        this.emrPermits = new Semaphore(Math.max(1, concurrency));
+        this.mode = PollMode.valueOf(mode.trim().toUpperCase());
+        this.listLookback = listLookback;
+        this.listOverlap = listOverlap;
     }
 
-    @Scheduled(fixedDelay = 30000, initialDelay = 10000)
+    @Scheduled(fixedDelayString = "${app.poller.intervalMs:30000}", initialDelay = 10000)
     public void pollRunningJobs() {
+        if (circuitBreakers.isOpen(CircuitBreakers.EMR)) {
+            log.info("EMR circuit open; skipping poll cycle");
+            return;
+        }
+        if (mode == PollMode.LIST && !membership.owns(LIST_SWEEP_KEY)) {
+            log.debug("ListJobRuns sweep is owned by another replica; skipping poll cycle");
+            return;
+        }
         log.debug("Polling RUNNING jobs for EMR status updates");
+        long cycleStart = System.currentTimeMillis();
 
-        List<Job> runningJobs = repo.getJobsByStatus(JobStatus.RUNNING);
-        
-        for (Job job : runningJobs) {
+        List<Integer> shards = mode == PollMode.LIST
+                ? IntStream.range(0, repo.activeShardCount()).boxed().toList()
+                : membership.ownedShards(repo.activeShardCount());
+
+        List<Job> runningJobs = new ArrayList<>();
+        for (Job job : repo.getJobsByStatus(JobStatus.RUNNING, JobProjection.POLLER, shards)) {
             if (job.emrJobRunId() == null || job.emrJobRunId().isBlank()) {
                 log.warn("Job {} is RUNNING but has no emrJobRunId; skipping", job.jobId());
                 continue;
             }
+            runningJobs.add(job);
+        }
 
-            try {
-                JobRunState emrState = emrService.getJobRunState(job.emrJobRunId());
-                
-                if (emrState == null) {
-                    log.warn("Could not fetch EMR state for job {} (emrJobRunId={})", 
-                            job.jobId(), job.emrJobRunId());
-                    continue;
+        if (mode == PollMode.ADAPTIVE) {
+            adaptiveScheduler.sync(runningJobs);
+            log.debug("Tracking {} RUNNING jobs for adaptive polling", adaptiveScheduler.trackedCount());
+            return;
+        }
+
+        // Terminal transitions are collected for the whole cycle and flushed together
+        Map<String, Completion> completions = new HashMap<>();
+        List<Job> individualChecks = mode == PollMode.LIST
+                ? joinListedRuns(runningJobs, completions)
+                : runningJobs;
+
+        try {
+            checkJobs(individualChecks, completions);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        if (!completions.isEmpty()) {
+            List<StatusTransition> transitions = new ArrayList<>();
+            Map<String, Job> jobsById = new HashMap<>();
+            for (Completion c : completions.values()) {
+                transitions.add(c.transition());
+                jobsById.put(c.job().jobId(), c.job());
+            }
+
+            TransitionBatchResult result = completionService.apply(transitions, jobsById);
+            long now = System.currentTimeMillis();
+            for (StatusTransition t : result.applied()) {
+                Instant emrUpdatedAt = completions.get(t.jobId()).emrUpdatedAt();
+                if (emrUpdatedAt != null) {
+                    metricsService.recordCompletionDetectionLag(now - emrUpdatedAt.toEpochMilli());
+                }
+            }
+        }
+
+        long cycleMillis = System.currentTimeMillis() - cycleStart;
+        metricsService.recordPollCycleDuration(cycleMillis);
+        log.debug("Polled {} RUNNING jobs ({} via GetJobRun) in {} ms; {} completed",
+                runningJobs.size(), individualChecks.size(), cycleMillis, completions.size());
+    }
+
+    /**
+     * Called once a job's EMR run has been started, so adaptive polling can begin without
+     * waiting for the next discovery cycle.
+     */
+    public void onEmrJobStarted(Job job) {
+        if (mode == PollMode.ADAPTIVE && membership.ownsShard(repo.activeShardFor(job.jobId()))) {
+            adaptiveScheduler.track(job);
+        }
+    }
+
+    /**
+     * Matches jobs against the terminal runs returned by {@code ListJobRuns}. A job whose run
+     * is not listed is still in progress and needs no further call.
+     * <p>
+     * The listing starts at the later of the oldest job's creation and the high-water mark
+     * left by the previous listing, and never earlier than {@code app.poller.listLookback}.
+     * A run created before that window can still finish now, so jobs older than the window
+     * are compared with the application's active runs instead.
+     *
+     * @return the jobs that still need an individual {@code GetJobRun}: those older than the
+     *         window whose run is no longer active, or all of them if a listing failed
+     */
+    private List<Job> joinListedRuns(List<Job> runningJobs, Map<String, Completion> completions) {
+        Instant windowStart = Instant.now().minus(listLookback);
+        Instant mark = listedThrough;
+        if (mark != null && mark.minus(listOverlap).isAfter(windowStart)) {
+            windowStart = mark.minus(listOverlap);
+        }
+
+        List<Job> recent = new ArrayList<>();
+        List<Job> older = new ArrayList<>();
+        Instant oldest = null;
+
+        for (Job job : runningJobs) {
+            Instant createdAt = parseInstant(job.createdAt());
+            if (createdAt == null || createdAt.isBefore(windowStart)) {
+                older.add(job);
+                continue;
+            }
+            recent.add(job);
+            if (oldest == null || createdAt.isBefore(oldest)) {
+                oldest = createdAt;
+            }
+        }
+
+        if (!recent.isEmpty()) {
+            // EMR runs are always started after their job is created
+            Instant listedAt = Instant.now();
+            Map<String, JobRunSummary> finishedRuns = emrService.listTerminalJobRuns(oldest);
+            if (finishedRuns == null) {
+                return runningJobs;
+            }
+
+            Instant newMark = mark;
+            for (JobRunSummary run : finishedRuns.values()) {
+                if (run.updatedAt() != null && (newMark == null || run.updatedAt().isAfter(newMark))) {
+                    newMark = run.updatedAt();
                 }
+            }
+            // Until some run has finished, the listing time itself is the mark
+            listedThrough = newMark != null ? newMark : listedAt;
 
-                log.info("Job {} EMR state: {}", job.jobId(), emrState);
-
-                switch (emrState) {
-                    case SUCCESS:
-                        String outputPath = "processed/jobs/" + job.jobId() + "/output/";
-                        repo.updateStatus(
-                                job.jobId(),
-                                JobStatus.SUCCEEDED,
-                                "EMR job completed successfully",
-                                outputPath
-                        );
-                        metricsService.incrementJobsCompleted();
-                        
-                        // Calculate processing time
-                        long processingTime = Instant.now().toEpochMilli() - 
-                                Instant.parse(job.createdAt()).toEpochMilli();
-                        metricsService.recordJobProcessingTime(processingTime);
-                        
-                        log.info("Job {} marked SUCCEEDED with output: {}", job.jobId(), outputPath);
-                        break;
-
-                    case FAILED:
-                    case CANCELLED:
-                        repo.updateStatus(
-                                job.jobId(),
-                                JobStatus.FAILED,
-                                "EMR job " + emrState.toString().toLowerCase(),
-                                null
-                        );
-                        metricsService.incrementJobsFailed();
-                        metricsService.incrementEmrJobsFailed();
-                        log.info("Job {} marked FAILED (EMR state: {})", job.jobId(), emrState);
-                        break;
-
-                    case PENDING:
-                    case SCHEDULED:
-                    case RUNNING:
-                        log.debug("Job {} still in progress (EMR state: {})", job.jobId(), emrState);
-                        break;
-
-                    default:
-                        log.warn("Unexpected EMR state {} for job {}", emrState, job.jobId());
+            for (Job job : recent) {
+                JobRunSummary run = finishedRuns.get(job.emrJobRunId());
+                if (run == null) {
+                    continue;
                 }
-            } catch (Exception e) {
-                log.error("Error polling EMR status for job {}: {}", job.jobId(), e.getMessage());
+
+                log.info("Job {} EMR state: {}", job.jobId(), run.state());
+                completionService.transitionFor(job, run.state())
+                        .ifPresent(t -> completions.put(job.jobId(), new Completion(job, t, run.updatedAt())));
+            }
+        }
+
+        if (older.isEmpty()) {
+            return older;
+        }
+
+        Set<String> activeRuns = emrService.listActiveJobRunIds();
+        if (activeRuns == null) {
+            return older;
+        }
+        List<Job> stragglers = new ArrayList<>();
+        for (Job job : older) {
+            if (!activeRuns.contains(job.emrJobRunId())) {
+                stragglers.add(job);
+            }
+        }
+        return stragglers;
+    }
+
+    /**
+     * Checks each job with {@code GetJobRun}, at most app.poller.concurrency at a time.
+     */
+    private void checkJobs(List<Job> jobs, Map<String, Completion> completions) throws InterruptedException {
+        List<Future<Optional<Completion>>> lookups = new ArrayList<>();
+        for (Job job : jobs) {
+            lookups.add(pollExecutor.submit(() -> checkJob(job)));
+        }
+
+        for (Future<Optional<Completion>> lookup : lookups) {
+            try {
+                lookup.get().ifPresent(c -> completions.put(c.job().jobId(), c));
+            } catch (ExecutionException e) {
+                log.error("Error polling EMR status: {}", e.getCause().getMessage());
+            }
+        }
+    }
+
+    private static Instant parseInstant(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private Optional<Completion> checkJob(Job job) throws InterruptedException {
+        emrPermits.acquire();
+        try {
+            JobRun jobRun = emrService.getJobRun(job.emrJobRunId());
+
+            if (jobRun == null) {
+                log.warn("Could not fetch EMR state for job {} (emrJobRunId={})",
+                        job.jobId(), job.emrJobRunId());
+                return Optional.empty();
             }
+
+            log.info("Job {} EMR state: {}", job.jobId(), jobRun.state());
+
+            return completionService.transitionFor(job, jobRun.state())
+                    .map(transition -> new Completion(job, transition, jobRun.updatedAt()));
+        } finally {
+            emrPermits.release();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * A terminal transition detected for a job, with the time EMR last updated the run
+     * (its finish time for terminal runs) for detection-lag metrics.
+     */
+    private record Completion(Job job, StatusTransition transition, Instant emrUpdatedAt) {}
+}
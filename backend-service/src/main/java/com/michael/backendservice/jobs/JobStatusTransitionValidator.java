@@ -1,5 +1,6 @@
 package com.michael.backendservice.jobs;
 
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -42,4 +43,21 @@ public class JobStatusTransitionValidator {
     public static Set<JobStatus> getAllowedTransitions(JobStatus currentStatus) {
         return VALID_TRANSITIONS.getOrDefault(currentStatus, Set.of());
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the statuses from which the given status can be reached. Used to compile the
+     * transition map into a DynamoDB condition expression.
+     *
+     * @param newStatus the desired new status
+     * @return a set of statuses allowed to transition to newStatus
+     */
+    public static Set<JobStatus> getAllowedSourceStatuses(JobStatus newStatus) {
+        Set<JobStatus> sources = EnumSet.noneOf(JobStatus.class);
+        VALID_TRANSITIONS.forEach((from, targets) -> {
+            if (targets.contains(newStatus)) {
+                sources.add(from);
+            }
+        });
+        return sources;
+    }
+}
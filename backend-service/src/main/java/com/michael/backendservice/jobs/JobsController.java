@@ -6,47 +6,70 @@ import com.michael.backendservice.observability.MetricsService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
-import software.amazon.awssdk.services.s3.presigner.S3Presigner;
-import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
-import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
-import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
-import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
-
-import java.time.Duration;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @RestController
 @RequestMapping("/jobs")
 @Tag(name = "Jobs API", description = "Public endpoints for job management")
-public class JobsController {
+public class JobsController implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(JobsController.class);
+
+    private static final int MAX_BATCH_CREATE = 1000;
+    private static final int MAX_BATCH_GET = 1000;
+    private static final int MAX_OUTPUT_PAGE = 1000;
 
     private final JobsRepository repo;
-    private final S3Presigner presigner;
+    private final AsyncJobsRepository asyncRepo;
+    private final PresignedUrlCache presignedUrls;
     private final S3OutputLister outputLister;
+    private final OutputManifestStore manifestStore;
+    private final MultipartUploadService multipartUploads;
     private final String rawBucket;
     private final String processedBucket;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final MetricsService metricsService;
+    // S3 calls are blocking; after a non-blocking job lookup they continue on virtual threads
+    private final ExecutorService s3Executor = Executors.newVirtualThreadPerTaskExecutor();
 
     public JobsController(
         JobsRepository repo,
-        S3Presigner presigner,
+        AsyncJobsRepository asyncRepo,
+        PresignedUrlCache presignedUrls,
         S3OutputLister outputLister,
+        OutputManifestStore manifestStore,
+        MultipartUploadService multipartUploads,
         MetricsService metricsService,
         @Value("${app.s3.rawBucket}") String rawBucket,
         @Value("${app.s3.processedBucket}") String processedBucket
     ) {
         this.repo = repo;
-        this.presigner = presigner;
+        this.asyncRepo = asyncRepo;
+        this.presignedUrls = presignedUrls;
         this.outputLister = outputLister;
+        this.manifestStore = manifestStore;
+        this.multipartUploads = multipartUploads;
         this.metricsService = metricsService;
         this.rawBucket = rawBucket;
         this.processedBucket = processedBucket;
@@ -54,12 +77,14 @@ public class JobsController {
 
     @Operation(
             summary = "List jobs",
-            description = "Returns paginated list of jobs. Use limit and lastKey (base64-encoded JSON) for pagination."
+            description = "Returns paginated list of jobs. Use limit and lastKey (base64-encoded JSON) for pagination, "
+                    + "and fields to fetch only some attributes (jobId, status and createdAt are always returned)."
     )
     @GetMapping
     public ResponseEntity<?> listJobs(
             @RequestParam(name = "limit", required = false) Integer limit,
-            @RequestParam(name = "lastKey", required = false) String lastKey
+            @RequestParam(name = "lastKey", required = false) String lastKey,
+            @RequestParam(name = "fields", required = false) List<String> fields
     ) {
         Map<String, String> lastEvaluatedKey = null;
 
@@ -74,7 +99,25 @@ public class JobsController {
             }
         }
 
-        JobsPage page = repo.listJobs(limit, lastEvaluatedKey);
+        JobProjection projection = null;
+        if (fields != null && !fields.isEmpty()) {
+            try {
+                projection = JobProjection.of(new LinkedHashSet<>(fields));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of(
+                        "error", e.getMessage()
+                ));
+            }
+        }
+
+        JobsPage page;
+        try {
+            page = repo.listJobs(limit, lastEvaluatedKey, projection);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Invalid lastKey format"
+            ));
+        }
 
         String nextKey = null;
         if (page.lastEvaluatedKey() != null) {
@@ -92,17 +135,140 @@ public class JobsController {
         ));
     }
 
+    @Operation(
+            summary = "Get many jobs",
+            description = "Returns up to " + MAX_BATCH_GET + " jobs by ID using DynamoDB BatchGetItem. "
+                    + "Use fields to fetch only some attributes and consistent=false for cheaper eventually consistent reads."
+    )
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getJobs(
+            @RequestParam(name = "ids") List<String> ids,
+            @RequestParam(name = "fields", required = false) List<String> fields,
+            @RequestParam(name = "consistent", defaultValue = "true") boolean consistent
+    ) {
+        return batchGetJobs(ids, fields, consistent);
+    }
+
+    @Operation(
+            summary = "Get many jobs (POST body)",
+            description = "Same as GET /jobs?ids=... for ID lists too long for a query string."
+    )
+    @PostMapping("/batch-get")
+    public ResponseEntity<?> getJobs(@RequestBody(required = false) BatchGetJobsRequest request) {
+        if (request == null) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Missing jobIds"
+            ));
+        }
+        boolean consistent = request.consistentRead() == null || request.consistentRead();
+        return batchGetJobs(request.jobIds(), request.fields(), consistent);
+    }
+
+    private ResponseEntity<?> batchGetJobs(List<String> ids, List<String> fields, boolean consistent) {
+        List<String> jobIds = ids == null ? List.of() : ids.stream()
+                .filter(id -> id != null && !id.isBlank())
+                .map(String::trim)
+                .distinct()
+                .toList();
+
+        if (jobIds.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Missing jobIds"
+            ));
+        }
+
+        if (jobIds.size() > MAX_BATCH_GET) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Too many jobIds",
+                    "maxJobIds", MAX_BATCH_GET
+            ));
+        }
+
+        BatchGetResult result;
+        try {
+            result = repo.getJobs(jobIds, consistent, fields == null ? null : new LinkedHashSet<>(fields));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", e.getMessage()
+            ));
+        }
+
+        Set<String> returned = new HashSet<>(result.unprocessedJobIds());
+        result.jobs().forEach(job -> returned.add(job.jobId()));
+        List<String> notFound = jobIds.stream()
+                .filter(id -> !returned.contains(id))
+                .toList();
+
+        return ResponseEntity.ok(new BatchGetJobsResponse(result.jobs(), notFound, result.unprocessedJobIds()));
+    }
+
     @Operation(
             summary = "Create a job",
-            description = "Creates a new job record with SUBMITTED status. Optionally accepts inputS3Key."
+            description = "Creates a new job record with SUBMITTED status. Optionally accepts inputS3Key, "
+                    + "an EMR start priority (0-9, higher first) and the submitter EMR capacity is shared by."
     )
     @PostMapping
-    public ResponseEntity<?> createJob(@RequestBody(required = false) CreateJobRequest request) {
+    public CompletableFuture<ResponseEntity<?>> createJob(@RequestBody(required = false) CreateJobRequest request) {
+        CreateJobRequest job = (request == null) ? CreateJobRequest.EMPTY : request;
+        if (!job.hasValidPriority()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
+                    "error", "priority must be between " + CreateJobRequest.MIN_PRIORITY
+                            + " and " + CreateJobRequest.MAX_PRIORITY
+            )));
+        }
         String jobId = UUID.randomUUID().toString();
-        String inputS3Key = (request == null) ? null : request.inputS3Key();
-        Job created = repo.createJob(jobId, inputS3Key);
-        metricsService.incrementJobsCreated();
-        return ResponseEntity.ok(created);
+        return asyncRepo.createJob(jobId, job).<ResponseEntity<?>>thenApply(created -> {
+            metricsService.incrementJobsCreated();
+            return ResponseEntity.ok(created);
+        });
+    }
+
+    @Operation(
+            summary = "Create jobs in bulk",
+            description = "Creates up to " + MAX_BATCH_CREATE + " jobs in one request using DynamoDB BatchWriteItem. "
+                    + "Returns the created jobs plus per-item errors for any that could not be written."
+    )
+    @PostMapping("/batch")
+    public ResponseEntity<?> createJobs(@RequestBody(required = false) BatchCreateJobsRequest request) {
+        if (request == null || request.jobs() == null || request.jobs().isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Missing jobs"
+            ));
+        }
+
+        if (request.jobs().size() > MAX_BATCH_CREATE) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Too many jobs in batch",
+                    "maxJobs", MAX_BATCH_CREATE
+            ));
+        }
+
+        Map<String, CreateJobRequest> requestsByJobId = new LinkedHashMap<>();
+        List<String> jobIds = new ArrayList<>();
+        for (CreateJobRequest job : request.jobs()) {
+            if (job != null && !job.hasValidPriority()) {
+                return ResponseEntity.badRequest().body(Map.of(
+                        "error", "priority must be between " + CreateJobRequest.MIN_PRIORITY
+                                + " and " + CreateJobRequest.MAX_PRIORITY
+                ));
+            }
+            String jobId = UUID.randomUUID().toString();
+            jobIds.add(jobId);
+            requestsByJobId.put(jobId, job == null ? CreateJobRequest.EMPTY : job);
+        }
+
+        BatchCreateResult result = repo.createJobs(requestsByJobId);
+        metricsService.incrementJobsCreated(result.created().size());
+
+        List<BatchItemError> errors = new ArrayList<>();
+        for (int i = 0; i < jobIds.size(); i++) {
+            String reason = result.failures().get(jobIds.get(i));
+            if (reason != null) {
+                errors.add(new BatchItemError(i, jobIds.get(i), reason));
+            }
+        }
+
+        return ResponseEntity.ok(new BatchCreateJobsResponse(result.created(), errors));
     }
 
     @Operation(
@@ -110,13 +276,13 @@ public class JobsController {
             description = "Retrieves job details by jobId including status, timestamps, and S3 keys."
     )
     @GetMapping("/{jobId}")
-    public ResponseEntity<?> getJob(@PathVariable String jobId) {
-        return repo.getJob(jobId)
+    public CompletableFuture<ResponseEntity<?>> getJob(@PathVariable String jobId) {
+        return asyncRepo.getJob(jobId).thenApply(job -> job
                 .<ResponseEntity<?>>map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.status(404).body(Map.of(
                         "error", "Job not found",
                         "jobId", jobId
-                )));
+                ))));
     }
 
     @Operation(
@@ -124,38 +290,188 @@ public class JobsController {
             description = "Generates a presigned S3 PUT URL for uploading job input data and persists the S3 key to the job record."
     )
     @PostMapping("/{jobId}/upload-url")
-    public ResponseEntity<?> createUploadUrl(@PathVariable String jobId) {
-        if (repo.getJob(jobId).isEmpty()) {
-            return ResponseEntity.status(404).body(Map.of(
-                    "error", "Job not found",
-                    "jobId", jobId
-            ));
-        }
+    public CompletableFuture<ResponseEntity<?>> createUploadUrl(@PathVariable String jobId) {
+        String s3Key = inputKey(jobId);
 
-        String s3Key = "raw/jobs/" + jobId + "/input.csv";
-        repo.setInputS3Key(jobId, s3Key);
+        return asyncRepo.getJob(jobId).<ResponseEntity<?>>thenCompose(job -> {
+            if (job.isEmpty()) {
+                return CompletableFuture.<ResponseEntity<?>>completedFuture(ResponseEntity.status(404).body(Map.of(
+                        "error", "Job not found",
+                        "jobId", jobId
+                )));
+            }
+            return asyncRepo.setInputS3Key(jobId, s3Key)
+                    .thenApply(updated -> uploadUrlResponse(jobId, s3Key));
+        });
+    }
 
-        int expires = 300;
+    private ResponseEntity<?> uploadUrlResponse(String jobId, String s3Key) {
+        PresignedUrlCache.PresignedUrl presigned = presignedUrls.presignPut(rawBucket, s3Key, "text/csv");
+
+        return ResponseEntity.ok(new UploadUrlResponse(
+                jobId,
+                rawBucket,
+                s3Key,
+                presigned.url(),
+                presigned.expiresInSeconds()
+        ));
+    }
 
-        PutObjectRequest objectRequest = PutObjectRequest.builder()
-                .bucket(rawBucket)
-                .key(s3Key)
-                .contentType("text/csv")
-                .build();
+    @Operation(
+            summary = "Start a multipart upload",
+            description = "Starts a multipart upload of the job input for large files, sized from contentLength "
+                    + "(optionally partSize). Returns presigned URLs for the first parts; request the rest from /parts. "
+                    + "Upload parts in parallel, then call complete."
+    )
+    @PostMapping("/{jobId}/multipart-upload")
+    public CompletableFuture<ResponseEntity<?>> createMultipartUpload(
+            @PathVariable String jobId,
+            @RequestBody(required = false) MultipartUploadRequest request) {
+        return asyncRepo.getJob(jobId).thenApplyAsync(job -> job.isPresent()
+                ? startMultipartUpload(jobId, request)
+                : jobNotFound(jobId), s3Executor);
+    }
 
-        PutObjectPresignRequest presignRequest = PutObjectPresignRequest.builder()
-                .signatureDuration(Duration.ofSeconds(expires))
-                .putObjectRequest(objectRequest)
-                .build();
+    private ResponseEntity<?> startMultipartUpload(String jobId, MultipartUploadRequest request) {
+        long contentLength;
+        long partSize;
+        try {
+            partSize = multipartUploads.partSizeFor(
+                    request == null ? null : request.contentLength(),
+                    request == null ? null : request.partSize());
+            contentLength = request.contentLength();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", e.getMessage()
+            ));
+        }
 
-        PresignedPutObjectRequest presigned = presigner.presignPutObject(presignRequest);
+        String s3Key = inputKey(jobId);
+        int partCount = MultipartUploadService.partCount(contentLength, partSize);
+        String uploadId = multipartUploads.create(s3Key, "text/csv");
+        int initialParts = Math.min(partCount, multipartUploads.initialPartUrls());
+        List<Integer> partNumbers = new ArrayList<>(initialParts);
+        for (int i = 1; i <= initialParts; i++) {
+            partNumbers.add(i);
+        }
 
-        return ResponseEntity.ok(new UploadUrlResponse(
+        return ResponseEntity.ok(new MultipartUploadResponse(
                 jobId,
-                rawBucket,
+                multipartUploads.bucket(),
                 s3Key,
-                presigned.url().toString(),
-                expires
+                uploadId,
+                partSize,
+                partCount,
+                multipartUploads.presignParts(s3Key, uploadId, partNumbers),
+                multipartUploads.partUrlValiditySeconds()
+        ));
+    }
+
+    @Operation(
+            summary = "Presign multipart upload parts",
+            description = "Returns presigned URLs for the given parts (at most 1000 per request): parts beyond those "
+                    + "returned when the upload was started, failed parts to retry, or expired URLs."
+    )
+    @PostMapping("/{jobId}/multipart-upload/{uploadId}/parts")
+    public CompletableFuture<ResponseEntity<?>> presignUploadParts(
+            @PathVariable String jobId, @PathVariable String uploadId,
+            @RequestBody(required = false) PresignPartsRequest request) {
+        return asyncRepo.getJob(jobId).thenApply(job -> job.isPresent()
+                ? uploadPartsResponse(jobId, uploadId, request)
+                : jobNotFound(jobId));
+    }
+
+    private ResponseEntity<?> uploadPartsResponse(String jobId, String uploadId, PresignPartsRequest request) {
+        if (request == null || request.partNumbers() == null || request.partNumbers().isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Missing partNumbers"
+            ));
+        }
+
+        String s3Key = inputKey(jobId);
+        try {
+            return ResponseEntity.ok(Map.of(
+                    "uploadId", uploadId,
+                    "parts", multipartUploads.presignParts(s3Key, uploadId, request.partNumbers()),
+                    "expiresInSeconds", multipartUploads.partUrlValiditySeconds()
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", e.getMessage()
+            ));
+        }
+    }
+
+    @Operation(
+            summary = "Complete a multipart upload",
+            description = "Assembles the uploaded parts into the job input and records its inputS3Key. Pass each part's "
+                    + "partNumber and ETag, or omit parts to use every part S3 has received."
+    )
+    @PostMapping("/{jobId}/multipart-upload/{uploadId}/complete")
+    public CompletableFuture<ResponseEntity<?>> completeMultipartUpload(
+            @PathVariable String jobId, @PathVariable String uploadId,
+            @RequestBody(required = false) CompleteUploadRequest request) {
+        String s3Key = inputKey(jobId);
+
+        return asyncRepo.getJob(jobId).<ResponseEntity<?>>thenComposeAsync(job -> {
+            if (job.isEmpty()) {
+                return CompletableFuture.<ResponseEntity<?>>completedFuture(jobNotFound(jobId));
+            }
+
+            try {
+                multipartUploads.complete(s3Key, uploadId, request == null ? null : request.parts());
+            } catch (IllegalArgumentException e) {
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
+                        "error", e.getMessage()
+                )));
+            } catch (NoSuchUploadException e) {
+                return CompletableFuture.completedFuture(ResponseEntity.status(404).body(Map.of(
+                        "error", "Upload not found",
+                        "uploadId", uploadId
+                )));
+            } catch (S3Exception e) {
+                // e.g. InvalidPart / EntityTooSmall: the client sent parts S3 cannot assemble
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
+                        "error", "Could not complete upload: " + e.awsErrorDetails().errorMessage()
+                )));
+            }
+
+            return asyncRepo.setInputS3Key(jobId, s3Key).thenApply(ResponseEntity::ok);
+        }, s3Executor);
+    }
+
+    @Operation(
+            summary = "Abort a multipart upload",
+            description = "Aborts the upload and deletes any parts uploaded so far."
+    )
+    @DeleteMapping("/{jobId}/multipart-upload/{uploadId}")
+    public CompletableFuture<ResponseEntity<?>> abortMultipartUpload(@PathVariable String jobId,
+                                                                    @PathVariable String uploadId) {
+        return asyncRepo.getJob(jobId).thenApplyAsync(job -> job.isPresent()
+                ? abortUpload(jobId, uploadId)
+                : jobNotFound(jobId), s3Executor);
+    }
+
+    private ResponseEntity<?> abortUpload(String jobId, String uploadId) {
+        try {
+            multipartUploads.abort(inputKey(jobId), uploadId);
+        } catch (NoSuchUploadException e) {
+            return ResponseEntity.status(404).body(Map.of(
+                    "error", "Upload not found",
+                    "uploadId", uploadId
+            ));
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    static String inputKey(String jobId) {
+        return "raw/jobs/" + jobId + "/input.csv";
+    }
+
+    private static ResponseEntity<?> jobNotFound(String jobId) {
+        return ResponseEntity.status(404).body(Map.of(
+                "error", "Job not found",
+                "jobId", jobId
         ));
     }
 
@@ -164,9 +480,11 @@ public class JobsController {
             description = "Generates a presigned S3 GET URL for downloading processed job results. Only available for SUCCEEDED jobs."
     )
     @PostMapping("/{jobId}/download-url")
-    public ResponseEntity<?> createDownloadUrl(@PathVariable String jobId) {
-        Job job = repo.getJob(jobId).orElse(null);
+    public CompletableFuture<ResponseEntity<?>> createDownloadUrl(@PathVariable String jobId) {
+        return asyncRepo.getJob(jobId).thenApply(job -> downloadUrlResponse(jobId, job.orElse(null)));
+    }
 
+    private ResponseEntity<?> downloadUrlResponse(String jobId, Job job) {
         if (job == null) {
             return ResponseEntity.status(404).body(Map.of(
                     "error", "Job not found",
@@ -190,37 +508,42 @@ public class JobsController {
 
         // For directory-based output (Parquet partitions), return URL to _SUCCESS marker
         String downloadKey = job.outputS3Key() + "_SUCCESS";
-        int expires = 300;
-
-        GetObjectRequest objectRequest = GetObjectRequest.builder()
-                .bucket(processedBucket)
-                .key(downloadKey)
-                .build();
-
-        GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
-                .signatureDuration(Duration.ofSeconds(expires))
-                .getObjectRequest(objectRequest)
-                .build();
-
-        PresignedGetObjectRequest presigned = presigner.presignGetObject(presignRequest);
+        PresignedUrlCache.PresignedUrl presigned = presignedUrls.presignGet(processedBucket, downloadKey);
 
         return ResponseEntity.ok(new DownloadUrlResponse(
                 jobId,
                 processedBucket,
                 downloadKey,
-                presigned.url().toString(),
-                expires
+                presigned.url(),
+                presigned.expiresInSeconds()
         ));
     }
 
     @Operation(
             summary = "List job output files",
-            description = "Lists all output files from a completed job with presigned download URLs. Only available for SUCCEEDED jobs."
+            description = "Lists output files from a completed job with presigned download URLs, up to limit "
+                    + "(default and max " + MAX_OUTPUT_PAGE + ") per page. Pass nextToken from the response to get the "
+                    + "next page. Files are served from the job's output manifest, built on the first listing if "
+                    + "needed; totals cover all files. Only available for SUCCEEDED jobs."
     )
     @GetMapping("/{jobId}/outputs")
-    public ResponseEntity<?> listOutputFiles(@PathVariable String jobId) {
-        Job job = repo.getJob(jobId).orElse(null);
+    public CompletableFuture<ResponseEntity<?>> listOutputFiles(
+            @PathVariable String jobId,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "nextToken", required = false) String nextToken
+    ) {
+        int pageSize = limit == null ? MAX_OUTPUT_PAGE : limit;
+        if (pageSize < 1 || pageSize > MAX_OUTPUT_PAGE) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
+                    "error", "limit must be between 1 and " + MAX_OUTPUT_PAGE
+            )));
+        }
 
+        return asyncRepo.getJob(jobId).thenApplyAsync(
+                job -> outputFilesResponse(jobId, job.orElse(null), pageSize, nextToken), s3Executor);
+    }
+
+    private ResponseEntity<?> outputFilesResponse(String jobId, Job job, int pageSize, String nextToken) {
         if (job == null) {
             return ResponseEntity.status(404).body(Map.of(
                     "error", "Job not found",
@@ -242,18 +565,80 @@ public class JobsController {
             ));
         }
 
-        List<OutputFile> files = outputLister.listOutputFiles(processedBucket, job.outputS3Key());
+        String startAfter = null;
+        if (nextToken != null && !nextToken.isBlank()) {
+            try {
+                startAfter = new String(Base64.getUrlDecoder().decode(nextToken), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                startAfter = null;
+            }
+            if (startAfter == null || !startAfter.startsWith(job.outputS3Key())) {
+                return ResponseEntity.badRequest().body(Map.of(
+                        "error", "Invalid nextToken"
+                ));
+            }
+        }
 
-        long totalSize = files.stream().mapToLong(OutputFile::fileSizeBytes).sum();
+        OutputManifest manifest = manifestStore.getIfLoaded(jobId);
+        if (manifest == null) {
+            // Reading or building the manifest can mean listing the whole prefix; serve this
+            // page from a single listing while it loads in the background
+            manifestStore.loadAsync(jobId, job.outputS3Key());
+            return listOutputPage(job, startAfter, pageSize);
+        }
+
+        int from = manifest.indexAfter(startAfter);
+        int to = Math.min(from + pageSize, manifest.files().size());
+        List<S3OutputLister.OutputObject> page = manifest.files().subList(from, to).stream()
+                .map(entry -> new S3OutputLister.OutputObject(manifest.objectKey(entry), entry.sizeBytes()))
+                .toList();
+        List<OutputFile> files = outputLister.presign(processedBucket, page);
+
+        String token = null;
+        if (to < manifest.files().size()) {
+            String lastKey = page.get(page.size() - 1).key();
+            token = Base64.getUrlEncoder().withoutPadding().encodeToString(lastKey.getBytes(StandardCharsets.UTF_8));
+        }
 
         return ResponseEntity.ok(new OutputFilesResponse(
                 jobId,
                 job.status(),
                 job.outputS3Key(),
                 files,
-                files.size(),
-                totalSize
+                manifest.totalFiles(),
+                manifest.totalSizeBytes(),
+                token
         ));
     }
 
+    private ResponseEntity<?> listOutputPage(Job job, String startAfter, int pageSize) {
+        S3OutputLister.OutputPage page;
+        try {
+            page = outputLister.listOutputPage(processedBucket, job.outputS3Key(), startAfter, pageSize);
+        } catch (Exception e) {
+            log.error("Failed to list outputs for job {}: {}", job.jobId(), e.getMessage());
+            return ResponseEntity.status(503).body(Map.of(
+                    "error", "Could not list output files",
+                    "jobId", job.jobId()
+            ));
+        }
+
+        String token = page.lastKey() == null ? null
+                : Base64.getUrlEncoder().withoutPadding().encodeToString(page.lastKey().getBytes(StandardCharsets.UTF_8));
+
+        return ResponseEntity.ok(new OutputFilesResponse(
+                job.jobId(),
+                job.status(),
+                job.outputS3Key(),
+                outputLister.presign(processedBucket, page.objects()),
+                job.outputFileCount(),
+                job.outputSizeBytes(),
+                token
+        ));
+    }
+
+    @Override
+    public void destroy() {
+        s3Executor.shutdownNow();
+    }
 }
\ No newline at end of file
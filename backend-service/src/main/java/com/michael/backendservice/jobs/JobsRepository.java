@@ -1,210 +1,1044 @@
 package com.michael.backendservice.jobs;
 
+import com.michael.backendservice.ratelimit.TokenBucket;
+import com.michael.backendservice.resilience.Hedger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
 import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
 import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
 import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
 import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
 import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
 import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
 import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 @Repository
 public class JobsRepository {
 
-    private static final String JOB_PARTITION_VALUE = "ALL";
+    private static final Logger log = LoggerFactory.getLogger(JobsRepository.class);
+
+    private static final String JOB_PARTITION_VALUE = JobItems.JOB_PARTITION_VALUE;
     private static final String GSI_NAME = "jobPartition-createdAt-index";
+    // Sparse index: only non-terminal jobs carry the activeStatus attribute
+    private static final String ACTIVE_GSI_NAME = "activeStatus-createdAt-index";
+    private static final String CURSOR_SEPARATOR = "|";
+    private static final int BATCH_WRITE_CHUNK_SIZE = 25;
+    private static final int BATCH_GET_CHUNK_SIZE = 100;
+    private static final int TRANSACT_CHUNK_SIZE = 100;
+    private static final int BATCH_MAX_ATTEMPTS = 5;
+    private static final long BATCH_BASE_BACKOFF_MS = 50;
 
     private final DynamoDbClient ddb;
+    private final JobCache jobCache;
+    private final Hedger hedger;
     private final String jobsTable;
+    private final int partitionShards;
+    private final List<String> listPartitions;
+    private final int activeShards;
+    // Batch, transaction and scan calls move up to 1MB or 100 items; the client-wide timeouts are sized for single items
+    private final AwsRequestOverrideConfiguration bulkOverride;
+    private final ExecutorService parallelExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
     public JobsRepository(DynamoDbClient ddb,
-                          @Value("${app.dynamodb.jobsTable}") String jobsTable) {
+                          JobCache jobCache,
+                          Hedger hedger,
+                          @Value("${app.dynamodb.jobsTable}") String jobsTable,
+                          @Value("${app.dynamodb.jobPartitionShards:1}") int partitionShards,
+                          @Value("${app.dynamodb.activeStatusShards:8}") int activeShards,
+                          @Value("${app.resilience.dynamodb.bulkAttemptTimeout:10s}") Duration bulkAttemptTimeout,
+                          @Value("${app.resilience.dynamodb.bulkCallTimeout:60s}") Duration bulkCallTimeout) {
         this.ddb = ddb;
+        this.jobCache = jobCache;
+        this.hedger = hedger;
         this.jobsTable = jobsTable;
+        this.partitionShards = Math.max(1, partitionShards);
+        this.listPartitions = buildListPartitions(this.partitionShards);
+        this.activeShards = Math.max(1, activeShards);
+        this.bulkOverride = AwsRequestOverrideConfiguration.builder()
+                .apiCallAttemptTimeout(bulkAttemptTimeout)
+                .apiCallTimeout(bulkCallTimeout)
+                .build();
     }
 
-    public Job createJob(String jobId, String inputS3Key) {
-        Instant now = Instant.now();
+    /**
+     * Partitions read by {@link #listJobs}. With sharding enabled the legacy unsharded
+     * partition is still read so jobs created before sharding was turned on stay listed.
+     */
+    private static List<String> buildListPartitions(int shards) {
+        List<String> partitions = new ArrayList<>();
+        partitions.add(JOB_PARTITION_VALUE);
+        if (shards > 1) {
+            for (int i = 0; i < shards; i++) {
+                partitions.add(JOB_PARTITION_VALUE + "#" + i);
+            }
+        }
+        return List.copyOf(partitions);
+    }
 
-        Map<String, AttributeValue> item = new HashMap<>();
-        item.put("jobId", AttributeValue.fromS(jobId));
-        item.put("jobPartition", AttributeValue.fromS(JOB_PARTITION_VALUE));
-        item.put("status", AttributeValue.fromS(JobStatus.SUBMITTED.name()));
-        item.put("createdAt", AttributeValue.fromS(now.toString()));
-        item.put("updatedAt", AttributeValue.fromS(now.toString()));
+    private String partitionFor(String jobId) {
+        return JobItems.partitionFor(jobId, partitionShards);
+    }
 
-        if (inputS3Key != null && !inputS3Key.isBlank()) {
-            item.put("inputS3Key", AttributeValue.fromS(inputS3Key));
-        }
+    public Job createJob(String jobId, CreateJobRequest request) {
+        Instant now = Instant.now();
 
         ddb.putItem(PutItemRequest.builder()
                 .tableName(jobsTable)
-                .item(item)
+                .item(JobItems.newJobItem(jobId, partitionFor(jobId), activeShards, request, now))
                 .build());
 
-        return new Job(jobId, JobStatus.SUBMITTED.name(), now.toString(), inputS3Key, now.toString(), null, null, null);
+        Job created = JobItems.newJob(jobId, request, now);
+        jobCache.put(created);
+        return created;
+    }
+
+    /**
+     * Creates many jobs with BatchWriteItem.
+     * <p>
+     * Jobs are written in chunks of 25 (the BatchWriteItem limit), chunks run in parallel,
+     * and {@code UnprocessedItems} are retried with full-jitter exponential backoff. Jobs that
+     * still cannot be written are reported in {@link BatchCreateResult#failures()} instead of
+     * failing the whole batch.
+     *
+     * @param requestsByJobId new job IDs mapped to their create requests, in request order
+     */
+    public BatchCreateResult createJobs(Map<String, CreateJobRequest> requestsByJobId) {
+        Instant now = Instant.now();
+
+        List<Map<String, CreateJobRequest>> chunks = new ArrayList<>();
+        Map<String, CreateJobRequest> chunk = new LinkedHashMap<>();
+        for (Map.Entry<String, CreateJobRequest> entry : requestsByJobId.entrySet()) {
+            chunk.put(entry.getKey(), entry.getValue());
+            if (chunk.size() == BATCH_WRITE_CHUNK_SIZE) {
+                chunks.add(chunk);
+                chunk = new LinkedHashMap<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+
+        List<CompletableFuture<Map<String, String>>> futures = new ArrayList<>();
+        for (Map<String, CreateJobRequest> c : chunks) {
+            futures.add(CompletableFuture.supplyAsync(() -> writeJobChunk(c, now), parallelExecutor));
+        }
+
+        Map<String, String> failures = new LinkedHashMap<>();
+        futures.forEach(f -> failures.putAll(f.join()));
+
+        List<Job> created = new ArrayList<>();
+        requestsByJobId.forEach((jobId, request) -> {
+            if (!failures.containsKey(jobId)) {
+                Job job = JobItems.newJob(jobId, request, now);
+                jobCache.put(job);
+                created.add(job);
+            }
+        });
+
+        return new BatchCreateResult(created, failures);
+    }
+
+    /**
+     * Writes one chunk of up to 25 jobs, retrying unprocessed items.
+     *
+     * @return job IDs that could not be written, mapped to the reason
+     */
+    private Map<String, String> writeJobChunk(Map<String, CreateJobRequest> chunk, Instant now) {
+        List<WriteRequest> pending = new ArrayList<>();
+        for (Map.Entry<String, CreateJobRequest> entry : chunk.entrySet()) {
+            pending.add(WriteRequest.builder()
+                    .putRequest(PutRequest.builder()
+                            .item(JobItems.newJobItem(entry.getKey(), partitionFor(entry.getKey()), activeShards, entry.getValue(), now))
+                            .build())
+                    .build());
+        }
+
+        Map<String, String> failures = new LinkedHashMap<>();
+        try {
+            for (int attempt = 0; !pending.isEmpty() && attempt < BATCH_MAX_ATTEMPTS; attempt++) {
+                if (attempt > 0) {
+                    sleepWithJitter(attempt);
+                }
+
+                BatchWriteItemResponse resp = ddb.batchWriteItem(BatchWriteItemRequest.builder()
+                        .requestItems(Map.of(jobsTable, pending))
+                        .overrideConfiguration(bulkOverride)
+                        .build());
+
+                pending = resp.hasUnprocessedItems()
+                        ? new ArrayList<>(resp.unprocessedItems().getOrDefault(jobsTable, List.of()))
+                        : List.of();
+            }
+
+            for (WriteRequest unprocessed : pending) {
+                String jobId = unprocessed.putRequest().item().get("jobId").s();
+                failures.put(jobId, "Unprocessed after " + BATCH_MAX_ATTEMPTS + " attempts");
+            }
+        } catch (Exception e) {
+            for (WriteRequest request : pending) {
+                failures.put(request.putRequest().item().get("jobId").s(), e.getMessage());
+            }
+        }
+
+        return failures;
     }
 
+    /**
+     * Sleeps for a random duration up to {@code BATCH_BASE_BACKOFF_MS * 2^attempt} (full jitter).
+     */
+    private static void sleepWithJitter(int attempt) {
+        long cap = BATCH_BASE_BACKOFF_MS << Math.min(attempt, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off", e);
+        }
+    }
+
+    /**
+     * Returns the job, served from {@link JobCache} when present and otherwise read
+     * with a strongly consistent GetItem and cached. The read is hedged (see {@link Hedger}).
+     */
     public Optional<Job> getJob(String jobId) {
-        Map<String, AttributeValue> key = Map.of("jobId", AttributeValue.fromS(jobId));
+        Optional<Job> cached = jobCache.get(jobId);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        return refreshJob(jobId);
+    }
 
-        var resp = ddb.getItem(GetItemRequest.builder()
+    /**
+     * Reads the job with a strongly consistent GetItem, bypassing {@link JobCache}, and
+     * caches the result. For decisions that must not act on another replica's stale entry.
+     */
+    public Optional<Job> refreshJob(String jobId) {
+        GetItemRequest request = GetItemRequest.builder()
                 .tableName(jobsTable)
-                .key(key)
+                .key(JobItems.key(jobId))
                 .consistentRead(true)
-                .build());
+                .build();
+        var resp = hedger.hedgeBlocking("dynamodb.getItem", () -> ddb.getItem(request));
 
         if (!resp.hasItem() || resp.item().isEmpty()) {
             return Optional.empty();
         }
 
-        return Optional.of(mapToJob(resp.item()));
+        Job job = JobItems.toJob(resp.item());
+        jobCache.put(job);
+        return Optional.of(job);
     }
 
-    public void setInputS3Key(String jobId, String inputS3Key) {
-        Map<String, AttributeValue> key = Map.of("jobId", AttributeValue.fromS(jobId));
+    /**
+     * Fetches many jobs with BatchGetItem.
+     * <p>
+     * Keys are deduplicated and split into chunks of 100 (the BatchGetItem limit) that are
+     * issued in parallel; {@code UnprocessedKeys} are retried with jittered backoff. Reads
+     * are strongly consistent unless {@code consistentRead} is false, which halves the read
+     * units consumed. When {@code fields} is given only those attributes (see
+     * {@link JobProjection}) are fetched; full, consistent lookups are served from and
+     * written back to {@link JobCache}.
+     *
+     * @throws IllegalArgumentException if {@code fields} names an unknown job attribute
+     */
+    public BatchGetResult getJobs(Collection<String> jobIds, boolean consistentRead, Set<String> fields) {
+        return getJobs(jobIds, consistentRead, fields, true);
+    }
 
-        Map<String, String> names = Map.of("#input", "inputS3Key");
-        Map<String, AttributeValue> values = Map.of(":val", AttributeValue.fromS(inputS3Key));
+    /**
+     * As {@link #refreshJob} for many jobs: full, strongly consistent BatchGetItem reads that
+     * bypass {@link JobCache} and refresh it.
+     */
+    public BatchGetResult refreshJobs(Collection<String> jobIds) {
+        return getJobs(jobIds, true, null, false);
+    }
 
-        ddb.updateItem(UpdateItemRequest.builder()
-                .tableName(jobsTable)
-                .key(key)
-                .updateExpression("SET #input = :val")
-                .expressionAttributeNames(names)
-                .expressionAttributeValues(values)
-                .build());
+    private BatchGetResult getJobs(Collection<String> jobIds, boolean consistentRead, Set<String> fields,
+                                   boolean fromCache) {
+        boolean projected = fields != null && !fields.isEmpty();
+        JobProjection projection = projected ? JobProjection.of(fields) : null;
+
+        Map<String, Job> found = new HashMap<>();
+        List<String> toFetch = new ArrayList<>();
+        for (String jobId : new LinkedHashSet<>(jobIds)) {
+            Optional<Job> cached = (fromCache && !projected && consistentRead) ? jobCache.get(jobId) : Optional.empty();
+            if (cached.isPresent()) {
+                found.put(jobId, cached.get());
+            } else {
+                toFetch.add(jobId);
+            }
+        }
+
+        List<CompletableFuture<BatchGetResult>> futures = new ArrayList<>();
+        for (int i = 0; i < toFetch.size(); i += BATCH_GET_CHUNK_SIZE) {
+            List<String> chunk = toFetch.subList(i, Math.min(i + BATCH_GET_CHUNK_SIZE, toFetch.size()));
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> readJobChunk(chunk, consistentRead, projection), parallelExecutor));
+        }
+
+        List<String> unprocessed = new ArrayList<>();
+        for (CompletableFuture<BatchGetResult> future : futures) {
+            BatchGetResult chunkResult = joinUnwrapped(future);
+            for (Job job : chunkResult.jobs()) {
+                found.put(job.jobId(), job);
+                // Eventually consistent reads may be stale and must not overwrite fresher entries
+                if (consistentRead && !projected) {
+                    jobCache.put(job);
+                }
+            }
+            unprocessed.addAll(chunkResult.unprocessedJobIds());
+        }
+
+        List<Job> ordered = new ArrayList<>();
+        for (String jobId : new LinkedHashSet<>(jobIds)) {
+            Job job = found.get(jobId);
+            if (job != null) {
+                ordered.add(job);
+            }
+        }
+        return new BatchGetResult(ordered, unprocessed);
+    }
+
+    private BatchGetResult readJobChunk(List<String> jobIds, boolean consistentRead, JobProjection projection) {
+        List<Map<String, AttributeValue>> keys = new ArrayList<>();
+        for (String jobId : jobIds) {
+            keys.add(Map.of("jobId", AttributeValue.fromS(jobId)));
+        }
+
+        KeysAndAttributes.Builder keysAndAttributes = KeysAndAttributes.builder()
+                .keys(keys)
+                .consistentRead(consistentRead);
+        if (projection != null) {
+            keysAndAttributes
+                    .projectionExpression(projection.expression())
+                    .expressionAttributeNames(projection.names());
+        }
+
+        Map<String, KeysAndAttributes> pending = Map.of(jobsTable, keysAndAttributes.build());
+        List<Job> jobs = new ArrayList<>();
+
+        for (int attempt = 0; !pending.isEmpty() && attempt < BATCH_MAX_ATTEMPTS; attempt++) {
+            if (attempt > 0) {
+                sleepWithJitter(attempt);
+            }
+
+            BatchGetItemRequest request = BatchGetItemRequest.builder()
+                    .requestItems(pending)
+                    .overrideConfiguration(bulkOverride)
+                    .build();
+            BatchGetItemResponse resp = hedger.hedgeBlocking("dynamodb.batchGetItem", () -> ddb.batchGetItem(request));
+
+            for (Map<String, AttributeValue> item : resp.responses().getOrDefault(jobsTable, List.of())) {
+                jobs.add(JobItems.toJob(item));
+            }
+
+            pending = resp.hasUnprocessedKeys() ? resp.unprocessedKeys() : Map.of();
+        }
+
+        List<String> unprocessed = new ArrayList<>();
+        KeysAndAttributes leftover = pending.get(jobsTable);
+        if (leftover != null) {
+            leftover.keys().forEach(key -> unprocessed.add(key.get("jobId").s()));
+        }
+        return new BatchGetResult(jobs, unprocessed);
+    }
+
+    public Job setInputS3Key(String jobId, String inputS3Key) {
+        UpdateItemResponse resp = ddb.updateItem(
+                JobItems.setAttributeRequest(jobsTable, jobId, "inputS3Key", inputS3Key));
+
+        Job updated = JobItems.toJob(resp.attributes());
+        jobCache.put(updated);
+        return updated;
+    }
+
+    /**
+     * Records the file count and total size from the job's output manifest.
+     */
+    public Job setOutputTotals(String jobId, int fileCount, long sizeBytes) {
+        UpdateItemResponse resp = ddb.updateItem(JobItems.setAttributesRequest(jobsTable, jobId, Map.of(
+                "outputFileCount", AttributeValue.fromN(Integer.toString(fileCount)),
+                "outputSizeBytes", AttributeValue.fromN(Long.toString(sizeBytes)))));
+
+        Job updated = JobItems.toJob(resp.attributes());
+        jobCache.put(updated);
+        return updated;
     }
 
     public Job updateStatus(String jobId, JobStatus status, String message, String outputS3Key) {
-        String now = Instant.now().toString();
-        Map<String, AttributeValue> key = Map.of("jobId", AttributeValue.fromS(jobId));
+        UpdateItemResponse resp = ddb.updateItem(
+                JobItems.statusUpdateRequest(jobsTable, jobId, status, message, outputS3Key, activeShards));
+
+        Job updated = JobItems.toJob(resp.attributes());
+        jobCache.put(updated);
+        return updated;
+    }
 
-        StringBuilder setExpr = new StringBuilder("SET #status = :status, #updatedAt = :updatedAt");
-        Map<String, String> names = new HashMap<>();
-        names.put("#status", "status");
-        names.put("#updatedAt", "updatedAt");
+    /**
+     * Applies a status transition in a single conditional UpdateItem.
+     * <p>
+     * The allowed-transition map from {@link JobStatusTransitionValidator} is compiled into
+     * the {@code ConditionExpression}, so concurrent callers cannot both move a job out of
+     * the same state. On a failed condition the current item comes back with the error and
+     * is reported through {@link InvalidStatusTransitionException}, unless that item is this
+     * call's own write (a retried attempt that had already been applied).
+     *
+     * @return the job after the transition
+     * @throws InvalidStatusTransitionException if the job does not exist or the transition is not allowed
+     */
+    public Job transitionStatus(String jobId, JobStatus status, String message, String outputS3Key) {
+        Set<JobStatus> allowedFrom = JobStatusTransitionValidator.getAllowedSourceStatuses(status);
+        if (allowedFrom.isEmpty()) {
+            // Nothing can transition into this status; no write to attempt
+            throw new InvalidStatusTransitionException(jobId, status, getJob(jobId).orElse(null));
+        }
 
-        Map<String, AttributeValue> values = new HashMap<>();
-        values.put(":status", AttributeValue.fromS(status.name()));
-        values.put(":updatedAt", AttributeValue.fromS(now));
+        UpdateItemRequest request =
+                JobItems.transitionRequest(jobsTable, jobId, status, message, outputS3Key, allowedFrom, activeShards);
+        try {
+            UpdateItemResponse resp = ddb.updateItem(request);
 
-        if (message != null && !message.isBlank()) {
-            setExpr.append(", #statusMessage = :statusMessage");
-            names.put("#statusMessage", "statusMessage");
-            values.put(":statusMessage", AttributeValue.fromS(message));
+            Job updated = JobItems.toJob(resp.attributes());
+            jobCache.put(updated);
+            return updated;
+        } catch (ConditionalCheckFailedException e) {
+            Job current = null;
+            if (e.hasItem() && !e.item().isEmpty()) {
+                current = JobItems.toJob(e.item());
+                jobCache.put(current);
+                if (JobItems.writtenBy(request, e.item())) {
+                    return current;
+                }
+            } else {
+                jobCache.invalidate(jobId);
+            }
+            throw new InvalidStatusTransitionException(jobId, status, current);
         }
+    }
+
+    /**
+     * Applies many status transitions with conditional TransactWriteItems.
+     * <p>
+     * Transitions are grouped into transactions of up to 100 items that run in parallel. Each
+     * item carries the same condition as {@link #transitionStatus}. When a transaction is
+     * cancelled, items whose condition failed are dropped as rejected and the remainder is
+     * retried with jittered backoff. A transaction costs twice the write units of plain
+     * updates, so this is for flushing many transitions in a few round trips. It is not a
+     * replacement for single updates.
+     * <p>
+     * A transaction may touch each item only once, so when a job appears more than once the
+     * last transition wins and the earlier ones are reported as rejected.
+     */
+    public TransitionBatchResult transitionStatuses(List<StatusTransition> transitions) {
+        List<StatusTransition> applied = new ArrayList<>();
+        List<StatusTransition> rejected = new ArrayList<>();
+        List<StatusTransition> unprocessed = new ArrayList<>();
 
-        if (outputS3Key != null && !outputS3Key.isBlank()) {
-            setExpr.append(", #outputS3Key = :outputS3Key");
-            names.put("#outputS3Key", "outputS3Key");
-            values.put(":outputS3Key", AttributeValue.fromS(outputS3Key));
+        Map<String, StatusTransition> byJobId = new LinkedHashMap<>();
+        for (StatusTransition t : transitions) {
+            if (JobStatusTransitionValidator.getAllowedSourceStatuses(t.status()).isEmpty()) {
+                rejected.add(t);
+                continue;
+            }
+            StatusTransition superseded = byJobId.put(t.jobId(), t);
+            if (superseded != null) {
+                rejected.add(superseded);
+            }
         }
+        List<StatusTransition> writable = new ArrayList<>(byJobId.values());
 
-        UpdateItemResponse resp = ddb.updateItem(UpdateItemRequest.builder()
-                .tableName(jobsTable)
-                .key(key)
-                .updateExpression(setExpr.toString())
-                .expressionAttributeNames(names)
-                .expressionAttributeValues(values)
-                .returnValues("ALL_NEW")
-                .build());
+        List<CompletableFuture<TransitionBatchResult>> futures = new ArrayList<>();
+        for (int i = 0; i < writable.size(); i += TRANSACT_CHUNK_SIZE) {
+            List<StatusTransition> chunk = writable.subList(i, Math.min(i + TRANSACT_CHUNK_SIZE, writable.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> writeTransitionChunk(chunk), parallelExecutor));
+        }
+
+        for (CompletableFuture<TransitionBatchResult> future : futures) {
+            TransitionBatchResult chunkResult = future.join();
+            applied.addAll(chunkResult.applied());
+            rejected.addAll(chunkResult.rejected());
+            unprocessed.addAll(chunkResult.unprocessed());
+        }
 
-        return mapToJob(resp.attributes());
+        // No ALL_NEW from transactions; let the next read repopulate the cache
+        applied.forEach(t -> jobCache.invalidate(t.jobId()));
+        rejected.forEach(t -> jobCache.invalidate(t.jobId()));
+
+        return new TransitionBatchResult(applied, rejected, unprocessed);
+    }
+
+    private TransitionBatchResult writeTransitionChunk(List<StatusTransition> chunk) {
+        List<StatusTransition> pending = new ArrayList<>(chunk);
+        List<StatusTransition> rejected = new ArrayList<>();
+
+        for (int attempt = 0; !pending.isEmpty() && attempt < BATCH_MAX_ATTEMPTS; attempt++) {
+            List<TransactWriteItem> items = new ArrayList<>();
+            for (StatusTransition t : pending) {
+                JobItems.StatusUpdate update = JobItems.statusUpdate(t.jobId(), t.status(), t.message(), t.outputS3Key(),
+                        JobStatusTransitionValidator.getAllowedSourceStatuses(t.status()), activeShards);
+                items.add(TransactWriteItem.builder()
+                        .update(Update.builder()
+                                .tableName(jobsTable)
+                                .key(update.key())
+                                .updateExpression(update.updateExpression())
+                                .conditionExpression(update.conditionExpression())
+                                .expressionAttributeNames(update.names())
+                                .expressionAttributeValues(update.values())
+                                .build())
+                        .build());
+            }
+
+            try {
+                ddb.transactWriteItems(TransactWriteItemsRequest.builder()
+                        .transactItems(items)
+                        .overrideConfiguration(bulkOverride)
+                        .build());
+                List<StatusTransition> applied = new ArrayList<>(pending);
+                return new TransitionBatchResult(applied, rejected, List.of());
+            } catch (TransactionCanceledException e) {
+                List<CancellationReason> reasons = e.hasCancellationReasons() ? e.cancellationReasons() : List.of();
+                List<StatusTransition> retry = new ArrayList<>();
+                boolean onlyConditionFailures = true;
+                for (int i = 0; i < pending.size(); i++) {
+                    String code = i < reasons.size() ? reasons.get(i).code() : null;
+                    if ("ConditionalCheckFailed".equals(code)) {
+                        rejected.add(pending.get(i));
+                    } else {
+                        retry.add(pending.get(i));
+                        if (code != null && !"None".equals(code)) {
+                            onlyConditionFailures = false;
+                        }
+                    }
+                }
+                pending = retry;
+                // Conflicts and throttling need a pause; a transaction that failed only on
+                // conditions can be resubmitted straight away without those items
+                if (!onlyConditionFailures && !pending.isEmpty()) {
+                    sleepWithJitter(attempt + 1);
+                }
+            } catch (Exception e) {
+                log.warn("Transition batch of {} jobs failed: {}", pending.size(), e.getMessage());
+                return new TransitionBatchResult(List.of(), rejected, pending);
+            }
+        }
+
+        return new TransitionBatchResult(List.of(), rejected, pending);
     }
 
+    /**
+     * Lists jobs newest first across all GSI partitions.
+     * <p>
+     * Each partition is queried in parallel and the results are k-way merged by
+     * {@code createdAt} descending. A partition whose page was truncated has only been read
+     * down to its last returned item, so the merge stops before any item older than the
+     * newest such boundary; the rest is picked up by the next page. The returned cursor maps
+     * every partition that still has items to the position of the last item consumed from
+     * it ({@code createdAt|jobId}, or empty when nothing has been consumed yet); exhausted
+     * partitions are left out.
+     */
     public JobsPage listJobs(Integer limit, Map<String, String> lastEvaluatedKey) {
+        return listJobs(limit, lastEvaluatedKey, null);
+    }
+
+    /**
+     * Same as {@link #listJobs(Integer, Map)}, fetching only the attributes in
+     * {@code projection} (all attributes when null).
+     */
+    public JobsPage listJobs(Integer limit, Map<String, String> lastEvaluatedKey, JobProjection projection) {
+        Map<String, String> positions = new LinkedHashMap<>();
+        if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+            listPartitions.forEach(partition -> positions.put(partition, ""));
+        } else {
+            lastEvaluatedKey.forEach((partition, position) -> {
+                if (!listPartitions.contains(partition)) {
+                    throw new IllegalArgumentException("Unknown job partition in cursor: " + partition);
+                }
+                positions.put(partition, position == null ? "" : position);
+            });
+        }
+
+        List<ShardPage> pages;
+        if (positions.size() == 1) {
+            Map.Entry<String, String> only = positions.entrySet().iterator().next();
+            pages = List.of(queryShard(only.getKey(), only.getValue(), limit, projection));
+        } else {
+            List<CompletableFuture<ShardPage>> futures = new ArrayList<>();
+            positions.forEach((partition, position) -> futures.add(CompletableFuture.supplyAsync(
+                    () -> queryShard(partition, position, limit, projection), parallelExecutor)));
+            pages = futures.stream().map(JobsRepository::joinUnwrapped).toList();
+        }
+
+        return mergeShardPages(pages, positions, limit);
+    }
+
+    static JobsPage mergeShardPages(List<ShardPage> pages, Map<String, String> positions, Integer limit) {
+        Comparator<Job> newestFirst = Comparator
+                .comparing(Job::createdAt)
+                .thenComparing(Job::jobId)
+                .reversed();
+        PriorityQueue<ShardCursor> heads = new PriorityQueue<>(
+                Comparator.comparing(ShardCursor::head, newestFirst));
+        // Unread items of a truncated shard all sort after its last returned item, so
+        // nothing older than the newest of those boundaries can be emitted yet
+        Job boundary = null;
+        for (ShardPage page : pages) {
+            if (page.items().isEmpty()) {
+                continue;
+            }
+            heads.add(new ShardCursor(page, 0));
+            Job last = page.items().get(page.items().size() - 1);
+            if (page.hasMore() && (boundary == null || newestFirst.compare(last, boundary) < 0)) {
+                boundary = last;
+            }
+        }
+
+        int take = (limit != null && limit > 0) ? limit : Integer.MAX_VALUE;
+        Map<String, Integer> consumed = new HashMap<>();
+        List<Job> items = new ArrayList<>();
+
+        while (items.size() < take && !heads.isEmpty()) {
+            if (boundary != null && newestFirst.compare(heads.peek().head(), boundary) > 0) {
+                break;
+            }
+            ShardCursor cursor = heads.poll();
+            items.add(cursor.head());
+            consumed.put(cursor.page().partition(), cursor.index() + 1);
+            if (cursor.index() + 1 < cursor.page().items().size()) {
+                heads.add(new ShardCursor(cursor.page(), cursor.index() + 1));
+            }
+        }
+
+        Map<String, String> nextKey = new LinkedHashMap<>();
+        for (ShardPage page : pages) {
+            int count = consumed.getOrDefault(page.partition(), 0);
+            if (count == page.items().size() && !page.hasMore()) {
+                continue;
+            }
+            if (count == 0) {
+                nextKey.put(page.partition(), positions.get(page.partition()));
+            } else {
+                Job last = page.items().get(count - 1);
+                nextKey.put(page.partition(), last.createdAt() + CURSOR_SEPARATOR + last.jobId());
+            }
+        }
+
+        return new JobsPage(items, nextKey.isEmpty() ? null : nextKey);
+    }
+
+    private ShardPage queryShard(String partition, String position, Integer limit, JobProjection projection) {
         QueryRequest.Builder builder = QueryRequest.builder()
                 .tableName(jobsTable)
                 .indexName(GSI_NAME)
                 .keyConditionExpression("jobPartition = :partition")
                 .expressionAttributeValues(Map.of(
-                        ":partition", AttributeValue.fromS(JOB_PARTITION_VALUE)
+                        ":partition", AttributeValue.fromS(partition)
                 ))
                 .scanIndexForward(false);
 
+        if (projection != null) {
+            builder.projectionExpression(projection.expression())
+                    .expressionAttributeNames(projection.names());
+        }
+
         if (limit != null && limit > 0) {
             builder.limit(limit);
         }
 
-        if (lastEvaluatedKey != null && !lastEvaluatedKey.isEmpty()) {
-            Map<String, AttributeValue> exclusiveStartKey = new HashMap<>();
-            lastEvaluatedKey.forEach((k, v) -> exclusiveStartKey.put(k, AttributeValue.fromS(v)));
-            builder.exclusiveStartKey(exclusiveStartKey);
+        if (position != null && !position.isEmpty()) {
+            int sep = position.lastIndexOf(CURSOR_SEPARATOR);
+            if (sep <= 0 || sep == position.length() - 1) {
+                throw new IllegalArgumentException("Malformed cursor position for partition " + partition);
+            }
+            builder.exclusiveStartKey(Map.of(
+                    "jobId", AttributeValue.fromS(position.substring(sep + 1)),
+                    "jobPartition", AttributeValue.fromS(partition),
+                    "createdAt", AttributeValue.fromS(position.substring(0, sep))
+            ));
         }
 
         QueryResponse resp = ddb.query(builder.build());
 
         List<Job> items = new ArrayList<>();
         for (Map<String, AttributeValue> item : resp.items()) {
-            items.add(mapToJob(item));
+            items.add(JobItems.toJob(item));
         }
 
-        Map<String, String> nextKey = null;
-        if (resp.hasLastEvaluatedKey() && !resp.lastEvaluatedKey().isEmpty()) {
-            Map<String, String> map = new HashMap<>();
-            resp.lastEvaluatedKey().forEach((k, v) -> map.put(k, v.s()));
-            nextKey = map;
+        boolean hasMore = resp.hasLastEvaluatedKey() && !resp.lastEvaluatedKey().isEmpty();
+        return new ShardPage(partition, items, hasMore);
+    }
+
+    private static <T> T joinUnwrapped(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
+    }
 
-        return new JobsPage(items, nextKey);
+    record ShardPage(String partition, List<Job> items, boolean hasMore) {}
+
+    private record ShardCursor(ShardPage page, int index) {
+        Job head() {
+            return page.items().get(index);
+        }
     }
 
+    /**
+     * Returns every job in the given status, following {@code LastEvaluatedKey} to the end.
+     * <p>
+     * Non-terminal statuses are read from the sparse {@code activeStatus-createdAt-index}, so the cost
+     * scales with in-flight jobs rather than table size. Terminal statuses are not indexed
+     * and fall back to a paginated table scan.
+     */
     public List<Job> getJobsByStatus(JobStatus status) {
-        ScanRequest request = ScanRequest.builder()
-                .tableName(jobsTable)
-                .filterExpression("#status = :status")
-                .expressionAttributeNames(Map.of("#status", "status"))
-                .expressionAttributeValues(Map.of(":status", AttributeValue.fromS(status.name())))
-                .build();
+        return getJobsByStatus(status, null);
+    }
 
-        ScanResponse response = ddb.scan(request);
+    /**
+     * Same as {@link #getJobsByStatus(JobStatus)}, fetching only the attributes in
+     * {@code projection} (all attributes when null).
+     */
+    public List<Job> getJobsByStatus(JobStatus status, JobProjection projection) {
+        if (status.isTerminal()) {
+            return scanJobsByStatus(status, projection);
+        }
+        List<Integer> shards = new ArrayList<>();
+        for (int shard = 0; shard < activeShards; shard++) {
+            shards.add(shard);
+        }
+        return getJobsByStatus(status, projection, shards);
+    }
 
+    /**
+     * Returns the jobs in a non-terminal status that fall in the given shards of the active
+     * index (see {@link #activeShardFor}), querying the shards in parallel. Shard 0 also
+     * covers items written before the index was sharded.
+     */
+    public List<Job> getJobsByStatus(JobStatus status, JobProjection projection, Collection<Integer> shards) {
+        if (status.isTerminal()) {
+            throw new IllegalArgumentException("Terminal status " + status + " is not in the active index");
+        }
+
+        List<String> values = new ArrayList<>();
+        for (int shard : shards) {
+            if (activeShards <= 1) {
+                values.add(status.name());
+            } else {
+                values.add(status.name() + "#" + shard);
+                if (shard == 0) {
+                    values.add(status.name());
+                }
+            }
+        }
+
+        if (values.size() == 1) {
+            return queryActiveStatus(values.get(0), projection);
+        }
+        List<CompletableFuture<List<Job>>> futures = new ArrayList<>();
+        for (String value : values) {
+            futures.add(CompletableFuture.supplyAsync(() -> queryActiveStatus(value, projection), parallelExecutor));
+        }
         List<Job> jobs = new ArrayList<>();
-        for (Map<String, AttributeValue> item : response.items()) {
-            jobs.add(mapToJob(item));
+        for (CompletableFuture<List<Job>> future : futures) {
+            jobs.addAll(joinUnwrapped(future));
         }
+        return jobs;
+    }
+
+    public int activeShardCount() {
+        return activeShards;
+    }
+
+    /**
+     * @return the shard of the active index that holds {@code jobId} while it is not terminal
+     */
+    public int activeShardFor(String jobId) {
+        return JobItems.activeShardFor(jobId, activeShards);
+    }
+
+    private List<Job> queryActiveStatus(String activeStatus, JobProjection projection) {
+        Map<String, String> names = withProjectionNames(Map.of("#activeStatus", "activeStatus"), projection);
+
+        List<Job> jobs = new ArrayList<>();
+        Map<String, AttributeValue> startKey = null;
+
+        do {
+            QueryRequest.Builder builder = QueryRequest.builder()
+                    .tableName(jobsTable)
+                    .indexName(ACTIVE_GSI_NAME)
+                    .keyConditionExpression("#activeStatus = :status")
+                    .expressionAttributeNames(names)
+                    .expressionAttributeValues(Map.of(":status", AttributeValue.fromS(activeStatus)));
+
+            if (projection != null) {
+                builder.projectionExpression(projection.expression());
+            }
+
+            if (startKey != null) {
+                builder.exclusiveStartKey(startKey);
+            }
+
+            QueryResponse response = ddb.query(builder.build());
+            for (Map<String, AttributeValue> item : response.items()) {
+                jobs.add(JobItems.toJob(item));
+            }
+
+            startKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                    ? response.lastEvaluatedKey()
+                    : null;
+        } while (startKey != null);
+
+        return jobs;
+    }
+
+    private List<Job> scanJobsByStatus(JobStatus status, JobProjection projection) {
+        Map<String, String> names = withProjectionNames(Map.of("#status", "status"), projection);
+        List<Job> jobs = new ArrayList<>();
+        Map<String, AttributeValue> startKey = null;
+
+        do {
+            ScanRequest.Builder builder = ScanRequest.builder()
+                    .tableName(jobsTable)
+                    .overrideConfiguration(bulkOverride)
+                    .filterExpression("#status = :status")
+                    .expressionAttributeNames(names)
+                    .expressionAttributeValues(Map.of(":status", AttributeValue.fromS(status.name())));
+
+            if (projection != null) {
+                builder.projectionExpression(projection.expression());
+            }
+
+            if (startKey != null) {
+                builder.exclusiveStartKey(startKey);
+            }
+
+            ScanResponse response = ddb.scan(builder.build());
+            for (Map<String, AttributeValue> item : response.items()) {
+                jobs.add(JobItems.toJob(item));
+            }
+
+            startKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                    ? response.lastEvaluatedKey()
+                    : null;
+        } while (startKey != null);
 
         return jobs;
     }
 
-    private Job mapToJob(Map<String, AttributeValue> item) {
-        String jobId = item.getOrDefault("jobId", AttributeValue.fromS("")).s();
-        String status = item.getOrDefault("status", AttributeValue.fromS("UNKNOWN")).s();
-        String createdAt = item.getOrDefault("createdAt", AttributeValue.fromS("")).s();
-        String inputS3Key = item.containsKey("inputS3Key") ? item.get("inputS3Key").s() : null;
-        String updatedAt = item.containsKey("updatedAt") ? item.get("updatedAt").s() : null;
-        String statusMessage = item.containsKey("statusMessage") ? item.get("statusMessage").s() : null;
-        String outputS3Key = item.containsKey("outputS3Key") ? item.get("outputS3Key").s() : null;
-        String emrJobRunId = item.containsKey("emrJobRunId") ? item.get("emrJobRunId").s() : null;
+    /**
+     * Streams every job in the table to {@code consumer} using a parallel segmented Scan.
+     * <p>
+     * Segments run on virtual threads, at most {@code maxConcurrency} at a time, and each
+     * follows its own {@code LastEvaluatedKey}. All segments share one token bucket charged
+     * with the capacity each page actually consumed, so the scan stays within
+     * {@code maxReadUnitsPerSecond} and leaves headroom for live traffic. Reads are
+     * eventually consistent. {@code consumer} is called concurrently from several segments.
+     *
+     * @return the number of jobs scanned
+     */
+    public long scanJobs(ParallelScanOptions options, JobProjection projection, Consumer<Job> consumer) {
+        int totalSegments = Math.max(1, options.totalSegments());
+        TokenBucket readUnits = new TokenBucket(options.maxReadUnitsPerSecond(), options.maxReadUnitsPerSecond());
+        Semaphore running = new Semaphore(Math.max(1, options.maxConcurrency()));
+        LongAdder scanned = new LongAdder();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int segment = 0; segment < totalSegments; segment++) {
+                int current = segment;
+                futures.add(executor.submit(() -> {
+                    running.acquire();
+                    try {
+                        scanSegment(current, totalSegments, readUnits, projection, consumer, scanned);
+                    } finally {
+                        running.release();
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during parallel scan", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Parallel scan failed", e.getCause());
+        }
 
-        return new Job(jobId, status, createdAt, inputS3Key, updatedAt, statusMessage, outputS3Key, emrJobRunId);
+        return scanned.sum();
     }
 
-    public void setEmrJobRunId(String jobId, String emrJobRunId) {
-    Map<String, AttributeValue> key = Map.of("jobId", AttributeValue.fromS(jobId));
+    private void scanSegment(int segment, int totalSegments, TokenBucket readUnits, JobProjection projection,
+                             Consumer<Job> consumer, LongAdder scanned) throws InterruptedException {
+        Map<String, AttributeValue> startKey = null;
+
+        do {
+            readUnits.awaitAvailable();
+
+            ScanRequest.Builder builder = ScanRequest.builder()
+                    .tableName(jobsTable)
+                    .overrideConfiguration(bulkOverride)
+                    .segment(segment)
+                    .totalSegments(totalSegments)
+                    .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+
+            if (projection != null) {
+                builder.projectionExpression(projection.expression())
+                        .expressionAttributeNames(projection.names());
+            }
+
+            if (startKey != null) {
+                builder.exclusiveStartKey(startKey);
+            }
+
+            ScanResponse response = ddb.scan(builder.build());
+            readUnits.consume(response.consumedCapacity() != null && response.consumedCapacity().capacityUnits() != null
+                    ? response.consumedCapacity().capacityUnits()
+                    : 1.0);
 
-    Map<String, String> names = Map.of("#emr", "emrJobRunId");
-    Map<String, AttributeValue> values = Map.of(":val", AttributeValue.fromS(emrJobRunId));
+            for (Map<String, AttributeValue> item : response.items()) {
+                consumer.accept(JobItems.toJob(item));
+            }
+            scanned.add(response.items().size());
 
-    ddb.updateItem(UpdateItemRequest.builder()
-            .tableName(jobsTable)
-            .key(key)
-            .updateExpression("SET #emr = :val")
-            .expressionAttributeNames(names)
-            .expressionAttributeValues(values)
-            .build());
+            startKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                    ? response.lastEvaluatedKey()
+                    : null;
+        } while (startKey != null);
+    }
+
+    private static Map<String, String> withProjectionNames(Map<String, String> names, JobProjection projection) {
+        if (projection == null) {
+            return names;
+        }
+        Map<String, String> merged = new HashMap<>(names);
+        merged.putAll(projection.names());
+        return merged;
+    }
+
+    /**
+     * Stamps {@code submissionQueuedAt} on jobs still waiting for their EMR run, so the
+     * recovery sweep knows a replica holds them. Jobs that were submitted or deleted in the
+     * meantime are skipped. The cache is not touched; the marker is only read by the sweep.
+     */
+    public void markSubmissionQueued(Collection<String> jobIds, Instant queuedAt) {
+        String value = queuedAt.toString();
+        for (String jobId : jobIds) {
+            try {
+                ddb.updateItem(JobItems.submissionQueuedRequest(jobsTable, jobId, value));
+            } catch (ConditionalCheckFailedException e) {
+                // Submitted or gone; nothing to mark
+            }
+        }
+    }
+
+    public Job setEmrJobRunId(String jobId, String emrJobRunId) {
+        UpdateItemResponse resp = ddb.updateItem(
+                JobItems.setAttributeRequest(jobsTable, jobId, "emrJobRunId", emrJobRunId));
+
+        Job updated = JobItems.toJob(resp.attributes());
+        jobCache.put(updated);
+        return updated;
+    }
+
+    /**
+     * Records the EMR run started for a job together with the Spark resource profile chosen
+     * for it and the input size that profile was picked from.
+     */
+    public Job setEmrJobRun(String jobId, String emrJobRunId, String resourceProfile, Long inputSizeBytes) {
+        UpdateItemResponse resp = ddb.updateItem(JobItems.setAttributesRequest(jobsTable, jobId,
+                emrRunAttributes(emrJobRunId, null, resourceProfile, inputSizeBytes)));
+
+        Job updated = JobItems.toJob(resp.attributes());
+        jobCache.put(updated);
+        return updated;
+    }
+
+    /**
+     * Records that the jobs are processed by the shared EMR run of a coalesced batch.
+     *
+     * @param inputSizesByJobId each job's input size in bytes (null if unknown), in submission order
+     * @return the updated jobs, in the same order
+     */
+    public List<Job> setEmrBatchRun(Map<String, Long> inputSizesByJobId, String emrJobRunId, String emrBatchId,
+                                    String resourceProfile) {
+        List<Job> updated = new ArrayList<>(inputSizesByJobId.size());
+        for (Map.Entry<String, Long> entry : inputSizesByJobId.entrySet()) {
+            UpdateItemResponse resp = ddb.updateItem(JobItems.setAttributesRequest(jobsTable, entry.getKey(),
+                    emrRunAttributes(emrJobRunId, emrBatchId, resourceProfile, entry.getValue())));
+
+            Job job = JobItems.toJob(resp.attributes());
+            jobCache.put(job);
+            updated.add(job);
+        }
+        return updated;
+    }
+
+    private static Map<String, AttributeValue> emrRunAttributes(String emrJobRunId, String emrBatchId,
+                                                                String resourceProfile, Long inputSizeBytes) {
+        Map<String, AttributeValue> attributes = new HashMap<>();
+        attributes.put("emrJobRunId", AttributeValue.fromS(emrJobRunId));
+        if (emrBatchId != null) {
+            attributes.put("emrBatchId", AttributeValue.fromS(emrBatchId));
+        }
+        if (resourceProfile != null) {
+            attributes.put("resourceProfile", AttributeValue.fromS(resourceProfile));
+        }
+        if (inputSizeBytes != null) {
+            attributes.put("inputSizeBytes", AttributeValue.fromN(Long.toString(inputSizeBytes)));
+        }
+        return attributes;
     }
-}
\ No newline at end of file
+}
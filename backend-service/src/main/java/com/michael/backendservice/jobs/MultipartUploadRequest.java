@@ -0,0 +1,7 @@
+package com.michael.backendservice.jobs;
+
+/**
+ * @param contentLength total size of the input in bytes
+ * @param partSize preferred part size in bytes; raised if needed to stay within 10,000 parts
+ */
+public record MultipartUploadRequest(Long contentLength, Long partSize) {}
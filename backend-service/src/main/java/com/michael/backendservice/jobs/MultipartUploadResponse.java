@@ -0,0 +1,22 @@
+package com.michael.backendservice.jobs;
+
+import java.util.List;
+
+/**
+ * A started multipart upload. Every part is {@code partSize} bytes except the last.
+ * {@code parts} holds URLs for the first parts only; the rest are requested from the
+ * {@code /parts} endpoint.
+ */
+public record MultipartUploadResponse(
+        String jobId,
+        String bucket,
+        String s3Key,
+        String uploadId,
+        long partSize,
+        int partCount,
+        List<UploadPartUrl> parts,
+        int expiresInSeconds
+) {
+
+    public record UploadPartUrl(int partNumber, String uploadUrl) {}
+}
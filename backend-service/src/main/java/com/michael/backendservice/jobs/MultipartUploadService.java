@@ -0,0 +1,198 @@
+package com.michael.backendservice.jobs;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.ListPartsRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Multipart uploads of job inputs straight to S3.
+ * <p>
+ * The service starts the upload and presigns URLs for the first
+ * {@code app.s3.multipart.initialPartUrls} parts; clients fetch URLs for the remaining parts
+ * (and for parts that failed or expired) in batches of up to {@value #MAX_PRESIGN_BATCH},
+ * upload parts in parallel, and then complete or abort the upload. Part URLs are signed for {@code app.s3.multipart.partUrlValidity} and are not cached,
+ * since each belongs to a single upload. Incomplete uploads are removed by the bucket's
+ * lifecycle rule after 7 days.
+ */
+@Service
+public class MultipartUploadService {
+
+    static final long MIN_PART_SIZE = DataSize.ofMegabytes(5).toBytes();
+    static final long MAX_PART_SIZE = DataSize.ofGigabytes(5).toBytes();
+    static final long MAX_OBJECT_SIZE = DataSize.ofTerabytes(5).toBytes();
+    static final int MAX_PARTS = 10_000;
+    static final int MAX_PRESIGN_BATCH = 1_000;
+
+    private final S3Client s3Client;
+    private final S3Presigner presigner;
+    private final String rawBucket;
+    private final long defaultPartSize;
+    private final Duration partUrlValidity;
+    private final int initialPartUrls;
+    private final AwsRequestOverrideConfiguration completeOverride;
+
+    public MultipartUploadService(
+            S3Client s3Client,
+            S3Presigner presigner,
+            @Value("${app.s3.rawBucket}") String rawBucket,
+            @Value("${app.s3.multipart.partSize:64MB}") DataSize defaultPartSize,
+            @Value("${app.s3.multipart.partUrlValidity:1h}") Duration partUrlValidity,
+            @Value("${app.s3.multipart.initialPartUrls:100}") int initialPartUrls,
+            @Value("${app.s3.multipart.completeTimeout:15m}") Duration completeTimeout
+    ) {
+        this.s3Client = s3Client;
+        this.presigner = presigner;
+        this.rawBucket = rawBucket;
+        this.defaultPartSize = defaultPartSize.toBytes();
+        this.partUrlValidity = partUrlValidity;
+        this.initialPartUrls = Math.max(1, Math.min(initialPartUrls, MAX_PRESIGN_BATCH));
+        // S3 assembles the parts before it responds, which can take minutes for large objects
+        this.completeOverride = AwsRequestOverrideConfiguration.builder()
+                .apiCallAttemptTimeout(completeTimeout)
+                .apiCallTimeout(completeTimeout)
+                .build();
+    }
+
+    public String bucket() {
+        return rawBucket;
+    }
+
+    public int partUrlValiditySeconds() {
+        return (int) partUrlValidity.toSeconds();
+    }
+
+    /**
+     * @return how many part URLs are returned when an upload is started
+     */
+    public int initialPartUrls() {
+        return initialPartUrls;
+    }
+
+    /**
+     * Picks the part size: the requested (or default) size, raised so the upload fits in
+     * {@value #MAX_PARTS} parts and kept within S3's 5MB-5GB part limits.
+     *
+     * @throws IllegalArgumentException if the content length is missing or too large
+     */
+    public long partSizeFor(Long contentLength, Long requestedPartSize) {
+        if (contentLength == null || contentLength < 1) {
+            throw new IllegalArgumentException("contentLength must be a positive number of bytes");
+        }
+        if (contentLength > MAX_OBJECT_SIZE) {
+            throw new IllegalArgumentException("contentLength exceeds the 5TB S3 object limit");
+        }
+        long partSize = requestedPartSize != null ? requestedPartSize : defaultPartSize;
+        long minForCount = (contentLength + MAX_PARTS - 1) / MAX_PARTS;
+        return Math.min(MAX_PART_SIZE, Math.max(MIN_PART_SIZE, Math.max(partSize, minForCount)));
+    }
+
+    public static int partCount(long contentLength, long partSize) {
+        return (int) ((contentLength + partSize - 1) / partSize);
+    }
+
+    /**
+     * @return the upload id
+     */
+    public String create(String key, String contentType) {
+        return s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(rawBucket)
+                .key(key)
+                .contentType(contentType)
+                .build()).uploadId();
+    }
+
+    /**
+     * Presigns UploadPart URLs for the given part numbers, in parallel.
+     *
+     * @throws IllegalArgumentException if a part number is outside 1-{@value #MAX_PARTS} or more
+     *                                  than {@value #MAX_PRESIGN_BATCH} parts are requested
+     */
+    public List<MultipartUploadResponse.UploadPartUrl> presignParts(String key, String uploadId, List<Integer> partNumbers) {
+        if (partNumbers.size() > MAX_PRESIGN_BATCH) {
+            throw new IllegalArgumentException("At most " + MAX_PRESIGN_BATCH + " parts can be presigned per request");
+        }
+        for (Integer partNumber : partNumbers) {
+            if (partNumber == null || partNumber < 1 || partNumber > MAX_PARTS) {
+                throw new IllegalArgumentException("Part numbers must be between 1 and " + MAX_PARTS);
+            }
+        }
+
+        return partNumbers.parallelStream()
+                .map(partNumber -> new MultipartUploadResponse.UploadPartUrl(partNumber,
+                        presigner.presignUploadPart(UploadPartPresignRequest.builder()
+                                .signatureDuration(partUrlValidity)
+                                .uploadPartRequest(UploadPartRequest.builder()
+                                        .bucket(rawBucket)
+                                        .key(key)
+                                        .uploadId(uploadId)
+                                        .partNumber(partNumber)
+                                        .build())
+                                .build()).url().toString()))
+                .toList();
+    }
+
+    /**
+     * Completes the upload. Without {@code parts}, the parts S3 has received are used.
+     *
+     * @throws software.amazon.awssdk.services.s3.model.NoSuchUploadException if the upload does not exist
+     */
+    public void complete(String key, String uploadId, List<CompleteUploadRequest.Part> parts) {
+        List<CompletedPart> completed;
+        if (parts == null || parts.isEmpty()) {
+            completed = s3Client.listPartsPaginator(ListPartsRequest.builder()
+                            .bucket(rawBucket)
+                            .key(key)
+                            .uploadId(uploadId)
+                            .build())
+                    .parts()
+                    .stream()
+                    .map(part -> CompletedPart.builder().partNumber(part.partNumber()).eTag(part.eTag()).build())
+                    .toList();
+        } else {
+            for (CompleteUploadRequest.Part part : parts) {
+                if (part == null || part.partNumber() == null || part.eTag() == null || part.eTag().isBlank()) {
+                    throw new IllegalArgumentException("Each part needs a partNumber and eTag");
+                }
+            }
+            completed = parts.stream()
+                    .sorted(Comparator.comparing(CompleteUploadRequest.Part::partNumber))
+                    .map(part -> CompletedPart.builder().partNumber(part.partNumber()).eTag(part.eTag()).build())
+                    .toList();
+        }
+
+        if (completed.isEmpty()) {
+            throw new IllegalArgumentException("No parts have been uploaded");
+        }
+
+        s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                .bucket(rawBucket)
+                .key(key)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(completed).build())
+                .overrideConfiguration(completeOverride)
+                .build());
+    }
+
+    public void abort(String key, String uploadId) {
+        s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                .bucket(rawBucket)
+                .key(key)
+                .uploadId(uploadId)
+                .build());
+    }
+}
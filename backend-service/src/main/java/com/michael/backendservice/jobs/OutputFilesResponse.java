@@ -2,11 +2,17 @@ package com.michael.backendservice.jobs;
 
 import java.util.List;
 
+/**
+ * One page of a job's output files. {@code totalFiles} and {@code totalSizeBytes} cover all of
+ * the job's output and are null while its manifest is still being built; {@code nextToken} is
+ * set when more files follow.
+ */
 public record OutputFilesResponse(
         String jobId,
         String status,
         String outputPath,
         List<OutputFile> files,
-        int totalFiles,
-        long totalSizeBytes
-) {}
\ No newline at end of file
+        Integer totalFiles,
+        Long totalSizeBytes,
+        String nextToken
+) {}
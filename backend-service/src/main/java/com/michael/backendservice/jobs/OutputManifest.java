@@ -0,0 +1,97 @@
+package com.michael.backendservice.jobs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The files a SUCCEEDED job wrote, in key order. Keys are relative to {@code outputPath} to keep
+ * the stored manifest small; {@code partitions} holds the Hive-style {@code name=value} path
+ * segments of each file. Files in the same partition share one partitions map in memory.
+ */
+public record OutputManifest(
+        String jobId,
+        String outputPath,
+        String createdAt,
+        int totalFiles,
+        long totalSizeBytes,
+        List<Entry> files
+) {
+
+    public static final String FILE_NAME = "_manifest.json";
+
+    public record Entry(String key, long sizeBytes, Map<String, String> partitions) {}
+
+    public OutputManifest {
+        files = files == null ? List.of() : sharePartitions(files);
+    }
+
+    static OutputManifest of(String jobId, String outputPath, String createdAt, List<S3OutputLister.OutputObject> objects) {
+        List<Entry> entries = objects.stream()
+                .map(obj -> {
+                    String relative = obj.key().substring(outputPath.length());
+                    return new Entry(relative, obj.sizeBytes(), partitionsOf(relative));
+                })
+                .toList();
+        long totalSize = entries.stream().mapToLong(Entry::sizeBytes).sum();
+        return new OutputManifest(jobId, outputPath, createdAt, entries.size(), totalSize, entries);
+    }
+
+    static String keyFor(String outputPath) {
+        return outputPath + FILE_NAME;
+    }
+
+    /**
+     * @return the index of the first file whose full key sorts after {@code startAfter}
+     */
+    int indexAfter(String startAfter) {
+        if (startAfter == null) {
+            return 0;
+        }
+        String relative = startAfter.substring(outputPath.length());
+        int low = 0;
+        int high = files.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (files.get(mid).key().compareTo(relative) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    String objectKey(Entry entry) {
+        return outputPath + entry.key();
+    }
+
+    private static List<Entry> sharePartitions(List<Entry> files) {
+        Map<Map<String, String>, Map<String, String>> shared = new HashMap<>();
+        List<Entry> compact = new ArrayList<>(files.size());
+        for (Entry entry : files) {
+            Map<String, String> partitions = entry.partitions() == null || entry.partitions().isEmpty()
+                    ? Map.of()
+                    : shared.computeIfAbsent(entry.partitions(), Collections::unmodifiableMap);
+            compact.add(partitions == entry.partitions()
+                    ? entry
+                    : new Entry(entry.key(), entry.sizeBytes(), partitions));
+        }
+        return Collections.unmodifiableList(compact);
+    }
+
+    private static Map<String, String> partitionsOf(String relativeKey) {
+        Map<String, String> partitions = new LinkedHashMap<>();
+        String[] segments = relativeKey.split("/");
+        for (int i = 0; i < segments.length - 1; i++) {
+            int eq = segments[i].indexOf('=');
+            if (eq > 0) {
+                partitions.put(segments[i].substring(0, eq), segments[i].substring(eq + 1));
+            }
+        }
+        return partitions.isEmpty() ? Map.of() : partitions;
+    }
+}
@@ -0,0 +1,151 @@
+package com.michael.backendservice.jobs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Builds and serves the {@link OutputManifest} of SUCCEEDED jobs.
+ * <p>
+ * A job's outputs never change once it has succeeded, so the output prefix is listed once and
+ * the result is written next to the data as {@code _manifest.json} (the leading underscore
+ * keeps Spark and Hadoop readers from treating it as data). The file count and total size are
+ * also stored on the job. The manifest is built when a job is marked SUCCEEDED, or on first
+ * access for jobs that succeeded before; afterwards it is read from S3 and kept in memory, up to
+ * {@code app.jobs.outputManifest.cacheMaxFiles} files across all cached manifests.
+ */
+@Component
+public class OutputManifestStore implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(OutputManifestStore.class);
+
+    private final S3OutputLister outputLister;
+    private final S3Client s3Client;
+    private final JobsRepository repo;
+    private final String processedBucket;
+    private final boolean buildOnSuccess;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService buildExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Cache<String, OutputManifest> cache;
+
+    public OutputManifestStore(
+            S3OutputLister outputLister,
+            S3Client s3Client,
+            JobsRepository repo,
+            @Value("${app.s3.processedBucket:cloud-data-platform-dev-processed}") String processedBucket,
+            @Value("${app.jobs.outputManifest.buildOnSuccess:true}") boolean buildOnSuccess,
+            @Value("${app.jobs.outputManifest.cacheMaxFiles:100000}") long cacheMaxFiles
+    ) {
+        this.outputLister = outputLister;
+        this.s3Client = s3Client;
+        this.repo = repo;
+        this.processedBucket = processedBucket;
+        this.buildOnSuccess = buildOnSuccess;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxFiles)
+                .weigher((String jobId, OutputManifest manifest) -> Math.max(1, manifest.totalFiles()))
+                .build();
+    }
+
+    /**
+     * Returns the job's manifest, reading it from S3 or building it if it does not exist yet.
+     * Concurrent callers for the same job share one load.
+     */
+    public OutputManifest getOrBuild(String jobId, String outputPath) {
+        return cache.get(jobId, id -> {
+            OutputManifest stored = read(outputPath);
+            return stored != null ? stored : build(id, outputPath);
+        });
+    }
+
+    /**
+     * @return the job's manifest if it is already in memory, without reading or building it
+     */
+    public OutputManifest getIfLoaded(String jobId) {
+        return cache.getIfPresent(jobId);
+    }
+
+    /**
+     * Builds the manifest in the background for a job that has just succeeded.
+     */
+    public void buildAsync(String jobId, String outputPath) {
+        if (buildOnSuccess) {
+            loadAsync(jobId, outputPath);
+        }
+    }
+
+    /**
+     * Reads or builds the manifest in the background so later calls find it in memory.
+     */
+    public void loadAsync(String jobId, String outputPath) {
+        if (outputPath == null || outputPath.isBlank()) {
+            return;
+        }
+        buildExecutor.execute(() -> {
+            try {
+                getOrBuild(jobId, outputPath);
+            } catch (Exception e) {
+                // Built on first access instead
+                log.warn("Could not build output manifest for job {}: {}", jobId, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        buildExecutor.shutdownNow();
+    }
+
+    private OutputManifest read(String outputPath) {
+        try {
+            byte[] bytes = s3Client.getObjectAsBytes(GetObjectRequest.builder()
+                    .bucket(processedBucket)
+                    .key(OutputManifest.keyFor(outputPath))
+                    .build()).asByteArray();
+            return objectMapper.readValue(bytes, OutputManifest.class);
+        } catch (NoSuchKeyException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Unreadable output manifest under s3://{}/{}; rebuilding: {}",
+                    processedBucket, outputPath, e.getMessage());
+            return null;
+        }
+    }
+
+    private OutputManifest build(String jobId, String outputPath) {
+        OutputManifest manifest = OutputManifest.of(jobId, outputPath, Instant.now().toString(),
+                outputLister.listOutputObjects(processedBucket, outputPath));
+
+        try {
+            s3Client.putObject(PutObjectRequest.builder()
+                            .bucket(processedBucket)
+                            .key(OutputManifest.keyFor(outputPath))
+                            .contentType("application/json")
+                            .build(),
+                    RequestBody.fromBytes(objectMapper.writeValueAsBytes(manifest)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        repo.setOutputTotals(jobId, manifest.totalFiles(), manifest.totalSizeBytes());
+        log.info("Built output manifest for job {}: {} files, {} bytes",
+                jobId, manifest.totalFiles(), manifest.totalSizeBytes());
+        return manifest;
+    }
+}
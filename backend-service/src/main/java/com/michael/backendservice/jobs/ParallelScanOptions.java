@@ -0,0 +1,14 @@
+package com.michael.backendservice.jobs;
+
+/**
+ * Tuning for {@link JobsRepository#scanJobs}.
+ *
+ * @param totalSegments          number of scan segments the table is split into
+ * @param maxConcurrency         segments scanned at the same time
+ * @param maxReadUnitsPerSecond  read capacity budget shared by all segments
+ */
+public record ParallelScanOptions(
+        int totalSegments,
+        int maxConcurrency,
+        double maxReadUnitsPerSecond
+) {}
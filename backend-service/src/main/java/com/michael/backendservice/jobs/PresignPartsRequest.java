@@ -0,0 +1,5 @@
+package com.michael.backendservice.jobs;
+
+import java.util.List;
+
+public record PresignPartsRequest(List<Integer> partNumbers) {}
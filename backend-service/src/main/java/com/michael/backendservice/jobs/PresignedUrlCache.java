@@ -0,0 +1,91 @@
+package com.michael.backendservice.jobs;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.awscore.presigner.PresignedRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Presigned S3 URLs, reused while enough of their validity remains.
+ * <p>
+ * Clients ask for the same download and upload URLs over and over; signing each time costs
+ * SigV4 CPU and allocation. URLs are signed for {@code app.s3.presign.validity} and handed out
+ * again until only {@code minRemaining} is left, after which they are evicted and re-signed.
+ * The returned expiry is the time actually remaining, not the full validity.
+ */
+@Component
+public class PresignedUrlCache {
+
+    enum Operation { GET, PUT }
+
+    private final S3Presigner presigner;
+    private final Duration validity;
+    private final Cache<UrlKey, Signed> cache;
+
+    public PresignedUrlCache(
+            S3Presigner presigner,
+            @Value("${app.s3.presign.validity:300s}") Duration validity,
+            @Value("${app.s3.presign.minRemaining:150s}") Duration minRemaining,
+            @Value("${app.s3.presign.cacheMaxSize:100000}") long cacheMaxSize
+    ) {
+        this.presigner = presigner;
+        this.validity = validity;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(validity.minus(minRemaining))
+                .build();
+    }
+
+    public PresignedUrl presignGet(String bucket, String key) {
+        return lookup(new UrlKey(Operation.GET, bucket, key, null));
+    }
+
+    public PresignedUrl presignPut(String bucket, String key, String contentType) {
+        return lookup(new UrlKey(Operation.PUT, bucket, key, contentType));
+    }
+
+    private PresignedUrl lookup(UrlKey urlKey) {
+        Signed signed = cache.get(urlKey, this::sign);
+        long remaining = Duration.between(Instant.now(), signed.expiration()).toSeconds();
+        return new PresignedUrl(signed.url(), (int) Math.max(0, remaining));
+    }
+
+    private Signed sign(UrlKey urlKey) {
+        PresignedRequest presigned = switch (urlKey.operation()) {
+            case GET -> presigner.presignGetObject(GetObjectPresignRequest.builder()
+                    .signatureDuration(validity)
+                    .getObjectRequest(GetObjectRequest.builder()
+                            .bucket(urlKey.bucket())
+                            .key(urlKey.key())
+                            .build())
+                    .build());
+            case PUT -> presigner.presignPutObject(PutObjectPresignRequest.builder()
+                    .signatureDuration(validity)
+                    .putObjectRequest(PutObjectRequest.builder()
+                            .bucket(urlKey.bucket())
+                            .key(urlKey.key())
+                            .contentType(urlKey.contentType())
+                            .build())
+                    .build());
+        };
+        return new Signed(presigned.url().toString(), presigned.expiration());
+    }
+
+    /**
+     * @param expiresInSeconds time left before the URL stops working
+     */
+    public record PresignedUrl(String url, int expiresInSeconds) {}
+
+    private record UrlKey(Operation operation, String bucket, String key, String contentType) {}
+
+    private record Signed(String url, Instant expiration) {}
+}
@@ -0,0 +1,16 @@
+package com.michael.backendservice.jobs;
+
+/**
+ * Outcome of a {@link JobReconciler} run. {@code finishedAt} and {@code error} are null while
+ * the run is in progress.
+ */
+public record ReconciliationReport(
+        String startedAt,
+        String finishedAt,
+        long scanned,
+        long checked,
+        long applied,
+        long rejected,
+        long unprocessed,
+        String error
+) {}
@@ -0,0 +1,20 @@
+package com.michael.backendservice.jobs;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * EventBridge "Object Created" event from S3. Only the fields used to start a job are mapped.
+ */
+public record S3ObjectCreatedEvent(
+        @JsonProperty("detail-type") String detailType,
+        String source,
+        String time,
+        Detail detail
+) {
+
+    public record Detail(Bucket bucket, S3Object object, String reason) {}
+
+    public record Bucket(String name) {}
+
+    public record S3Object(String key, Long size, String etag, String sequencer) {}
+}
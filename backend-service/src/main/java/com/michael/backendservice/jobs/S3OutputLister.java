@@ -2,100 +2,117 @@ package com.michael.backendservice.jobs;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
-import software.amazon.awssdk.services.s3.model.S3Object;
-import software.amazon.awssdk.services.s3.presigner.S3Presigner;
-import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
-import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-
-import java.time.Duration;
-import java.util.ArrayList;
+
 import java.util.List;
 
+/**
+ * Lists a job's output files and presigns their download URLs.
+ * <p>
+ * Objects are read page by page from {@code ListObjectsV2}. Download URLs come from
+ * {@link PresignedUrlCache}; those not cached are signed in parallel, as signing is local CPU work.
+ */
 @Service
 public class S3OutputLister {
 
     private static final Logger log = LoggerFactory.getLogger(S3OutputLister.class);
 
     private final S3Client s3Client;
-    private final S3Presigner presigner;
+    private final PresignedUrlCache presignedUrls;
 
-    public S3OutputLister(S3Client s3Client, S3Presigner presigner) {
+    public S3OutputLister(S3Client s3Client, PresignedUrlCache presignedUrls) {
         this.s3Client = s3Client;
-        this.presigner = presigner;
+        this.presignedUrls = presignedUrls;
     }
 
-    public List<OutputFile> listOutputFiles(String bucket, String outputPath) {
-        List<OutputFile> files = new ArrayList<>();
+    /**
+     * Lists every output data file under {@code outputPath}, in key order.
+     */
+    public List<OutputObject> listOutputObjects(String bucket, String outputPath) {
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(outputPath)
+                .build();
+
+        List<OutputObject> objects = s3Client.listObjectsV2Paginator(request)
+                .contents()
+                .stream()
+                .filter(obj -> isOutputFile(obj.key()))
+                .map(obj -> new OutputObject(obj.key(), obj.size()))
+                .toList();
+
+        log.info("Listed {} output files from s3://{}/{}", objects.size(), bucket, outputPath);
+        return objects;
+    }
 
-        try {
-            ListObjectsV2Request request = ListObjectsV2Request.builder()
-                    .bucket(bucket)
-                    .prefix(outputPath)
-                    .build();
-
-            ListObjectsV2Response response = s3Client.listObjectsV2(request);
-
-            if (response.contents() == null || response.contents().isEmpty()) {
-                log.warn("No objects found at s3://{}/{}", bucket, outputPath);
-                return files;
-            }
-
-            for (S3Object obj : response.contents()) {
-                String key = obj.key();
-
-                // Skip directory markers and internal metadata
-                if (key.endsWith("/") || key.endsWith("_SUCCESS") || key.contains("_metadata")) {
-                    continue;
-                }
-
-                // Skip partition directories (processed_year=*, etc.)
-                if (key.endsWith("=") || !key.contains(".")) {
-                    continue;
-                }
-
-                String fileName = key.substring(key.lastIndexOf("/") + 1);
-                String downloadUrl = generatePresignedUrl(bucket, key);
-
-                files.add(new OutputFile(
-                        fileName,
-                        key,
-                        obj.size(),
-                        downloadUrl,
-                        300
-                ));
-            }
-
-            log.info("Listed {} output files from s3://{}/{}", files.size(), bucket, outputPath);
-        } catch (Exception e) {
-            log.error("Failed to list output files from s3://{}/{}: {}", bucket, outputPath, e.getMessage());
+    /**
+     * Lists up to {@code maxKeys} objects after {@code startAfter} with a single
+     * {@code ListObjectsV2} call, keeping only output data files.
+     *
+     * @return the files and, when the listing has more, the last key read to continue from
+     */
+    public OutputPage listOutputPage(String bucket, String outputPath, String startAfter, int maxKeys) {
+        ListObjectsV2Request.Builder request = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(outputPath)
+                .maxKeys(maxKeys);
+        if (startAfter != null) {
+            request.startAfter(startAfter);
+        }
+
+        ListObjectsV2Response response = s3Client.listObjectsV2(request.build());
+        List<OutputObject> objects = response.contents().stream()
+                .filter(obj -> isOutputFile(obj.key()))
+                .map(obj -> new OutputObject(obj.key(), obj.size()))
+                .toList();
+        String lastKey = Boolean.TRUE.equals(response.isTruncated()) && !response.contents().isEmpty()
+                ? response.contents().get(response.contents().size() - 1).key()
+                : null;
+        return new OutputPage(objects, lastKey);
+    }
+
+    /**
+     * Presigns download URLs for the files, keeping their order.
+     */
+    public List<OutputFile> presign(String bucket, List<OutputObject> objects) {
+        return objects.parallelStream()
+                .map(obj -> {
+                    PresignedUrlCache.PresignedUrl url = generatePresignedUrl(bucket, obj.key());
+                    return new OutputFile(
+                            obj.key().substring(obj.key().lastIndexOf("/") + 1),
+                            obj.key(),
+                            obj.sizeBytes(),
+                            url != null ? url.url() : null,
+                            url != null ? url.expiresInSeconds() : 0
+                    );
+                })
+                .toList();
+    }
+
+    private static boolean isOutputFile(String key) {
+        // Skip directory markers, internal metadata and the output manifest
+        if (key.endsWith("/") || key.endsWith("_SUCCESS") || key.contains("_metadata")
+                || key.endsWith(OutputManifest.FILE_NAME)) {
+            return false;
         }
 
-        return files;
+        // Skip partition directories (processed_year=*, etc.)
+        return !key.endsWith("=") && key.contains(".");
     }
 
-    private String generatePresignedUrl(String bucket, String key) {
+    private PresignedUrlCache.PresignedUrl generatePresignedUrl(String bucket, String key) {
         try {
-            GetObjectRequest objectRequest = GetObjectRequest.builder()
-                    .bucket(bucket)
-                    .key(key)
-                    .build();
-
-            GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
-                    .signatureDuration(Duration.ofSeconds(300))
-                    .getObjectRequest(objectRequest)
-                    .build();
-
-            PresignedGetObjectRequest presigned = presigner.presignGetObject(presignRequest);
-            return presigned.url().toString();
+            return presignedUrls.presignGet(bucket, key);
         } catch (Exception e) {
             log.error("Failed to generate presigned URL for s3://{}/{}: {}", bucket, key, e.getMessage());
             return null;
         }
     }
-}
\ No newline at end of file
+
+    public record OutputObject(String key, long sizeBytes) {}
+
+    public record OutputPage(List<OutputObject> objects, String lastKey) {}
+}
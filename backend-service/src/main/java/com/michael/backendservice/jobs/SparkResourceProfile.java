@@ -0,0 +1,43 @@
+package com.michael.backendservice.jobs;
+
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Spark resources for EMR runs whose input is at most {@code maxInputSize}
+ * (no limit when null). Configured as a tier under {@code app.emr.sizing.tiers}.
+ */
+public record SparkResourceProfile(
+        String name,
+        DataSize maxInputSize,
+        int driverCores,
+        String driverMemory,
+        int executorCores,
+        String executorMemory,
+        int minExecutors,
+        int initialExecutors,
+        int maxExecutors,
+        int shufflePartitions
+) {
+
+    public boolean covers(long inputBytes) {
+        return maxInputSize == null || (inputBytes >= 0 && inputBytes <= maxInputSize.toBytes());
+    }
+
+    /**
+     * @return the {@code --conf} flags appended to {@code sparkSubmitParameters}
+     */
+    public String sparkSubmitParameters() {
+        return String.join(" ",
+                "--conf spark.driver.cores=" + driverCores,
+                "--conf spark.driver.memory=" + driverMemory,
+                "--conf spark.executor.cores=" + executorCores,
+                "--conf spark.executor.memory=" + executorMemory,
+                "--conf spark.executor.instances=" + initialExecutors,
+                "--conf spark.dynamicAllocation.enabled=true",
+                "--conf spark.dynamicAllocation.minExecutors=" + minExecutors,
+                "--conf spark.dynamicAllocation.initialExecutors=" + initialExecutors,
+                "--conf spark.dynamicAllocation.maxExecutors=" + maxExecutors,
+                "--conf spark.sql.shuffle.partitions=" + shufflePartitions
+        );
+    }
+}
@@ -0,0 +1,44 @@
+package com.michael.backendservice.jobs;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Size-tier table used to pick Spark resources from the input size. Tiers are checked in
+ * order and the first whose {@code maxInputSize} covers the input wins; when the size is
+ * unknown the tier named by {@code defaultTier} is used (the first tier if it is unset or
+ * names no tier).
+ */
+@ConfigurationProperties(prefix = "app.emr.sizing")
+public record SparkSizingProperties(List<SparkResourceProfile> tiers, String defaultTier) {
+
+    public SparkSizingProperties {
+        tiers = tiers == null ? List.of() : List.copyOf(tiers);
+    }
+
+    /**
+     * @param inputBytes total input size, or a negative value if unknown
+     * @return the matching profile, or empty if no tiers are configured
+     */
+    public Optional<SparkResourceProfile> profileFor(long inputBytes) {
+        if (tiers.isEmpty()) {
+            return Optional.empty();
+        }
+        if (inputBytes >= 0) {
+            for (SparkResourceProfile tier : tiers) {
+                if (tier.covers(inputBytes)) {
+                    return Optional.of(tier);
+                }
+            }
+            return Optional.of(tiers.get(tiers.size() - 1));
+        }
+        for (SparkResourceProfile tier : tiers) {
+            if (tier.name() != null && tier.name().equals(defaultTier)) {
+                return Optional.of(tier);
+            }
+        }
+        return Optional.of(tiers.get(0));
+    }
+}
@@ -0,0 +1,8 @@
+package com.michael.backendservice.jobs;
+
+public record StatusTransition(
+        String jobId,
+        JobStatus status,
+        String message,
+        String outputS3Key
+) {}
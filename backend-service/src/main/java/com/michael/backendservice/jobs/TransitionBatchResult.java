@@ -0,0 +1,9 @@
+package com.michael.backendservice.jobs;
+
+import java.util.List;
+
+public record TransitionBatchResult(
+        List<StatusTransition> applied,
+        List<StatusTransition> rejected,   // current status did not allow the transition
+        List<StatusTransition> unprocessed // not written after retries; safe to try again later
+) {}
@@ -1,23 +1,39 @@
 package com.michael.backendservice.observability;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
 
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Service
 public class MetricsService {
 
+    private final MeterRegistry registry;
+
     private final Counter jobsCreated;
     private final Counter jobsCompleted;
     private final Counter jobsFailed;
     private final Counter emrJobsStarted;
     private final Counter emrJobsFailed;
+    private final Counter emrApiCalls;
     private final Timer jobProcessingTime;
+    private final Counter jobCacheHits;
+    private final Counter jobCacheMisses;
+    private final Counter jobCacheEvictions;
+    private final Timer pollCycleDuration;
+    private final Timer completionDetectionLag;
+    private final Timer emrSubmissionWaitTime;
+    private final Timer emrSubmissionLatency;
+    private final Counter emrSubmissionRetries;
+    private final Counter emrSubmissionFailures;
 
     public MetricsService(MeterRegistry registry) {
+        this.registry = registry;
+
         this.jobsCreated = Counter.builder("jobs.created")
                 .description("Total number of jobs created")
                 .register(registry);
@@ -38,15 +54,60 @@ public class MetricsService {
                 .description("Total number of EMR jobs failed")
                 .register(registry);
 
+        this.emrApiCalls = Counter.builder("emr.api.calls")
+                .description("EMR Serverless GetJobRun and ListJobRuns calls made to detect completion")
+                .register(registry);
+
         this.jobProcessingTime = Timer.builder("jobs.processing.time")
                 .description("Time taken for job to complete")
                 .register(registry);
+
+        this.jobCacheHits = Counter.builder("jobs.cache.hits")
+                .description("Job lookups served from the in-memory job cache")
+                .register(registry);
+
+        this.jobCacheMisses = Counter.builder("jobs.cache.misses")
+                .description("Job lookups that fell through to DynamoDB")
+                .register(registry);
+
+        this.jobCacheEvictions = Counter.builder("jobs.cache.evictions")
+                .description("Job cache entries evicted by size or expiry")
+                .register(registry);
+
+        this.pollCycleDuration = Timer.builder("jobs.poller.cycle.duration")
+                .description("Time taken for one status poller cycle")
+                .register(registry);
+
+        this.completionDetectionLag = Timer.builder("jobs.completion.detection.lag")
+                .description("Time between an EMR run finishing and its job status being updated")
+                .publishPercentiles(0.5, 0.95)
+                .register(registry);
+
+        this.emrSubmissionWaitTime = Timer.builder("emr.submission.wait.time")
+                .description("Time a job waited in the EMR submission queue before StartJobRun succeeded")
+                .register(registry);
+
+        this.emrSubmissionLatency = Timer.builder("emr.submission.latency")
+                .description("Duration of StartJobRun calls")
+                .register(registry);
+
+        this.emrSubmissionRetries = Counter.builder("emr.submission.retries")
+                .description("StartJobRun attempts that failed and were retried")
+                .register(registry);
+
+        this.emrSubmissionFailures = Counter.builder("emr.submission.failures")
+                .description("Jobs marked FAILED after exhausting StartJobRun retries")
+                .register(registry);
     }
 
     public void incrementJobsCreated() {
         jobsCreated.increment();
     }
 
+    public void incrementJobsCreated(int count) {
+        jobsCreated.increment(count);
+    }
+
     public void incrementJobsCompleted() {
         jobsCompleted.increment();
     }
@@ -63,7 +124,96 @@ public class MetricsService {
         emrJobsFailed.increment();
     }
 
+    public void incrementEmrApiCalls() {
+        emrApiCalls.increment();
+    }
+
     public void recordJobProcessingTime(long durationMillis) {
         jobProcessingTime.record(durationMillis, TimeUnit.MILLISECONDS);
     }
+
+    public void incrementJobCacheHits() {
+        jobCacheHits.increment();
+    }
+
+    public void incrementJobCacheMisses() {
+        jobCacheMisses.increment();
+    }
+
+    public void incrementJobCacheEvictions() {
+        jobCacheEvictions.increment();
+    }
+
+    public void recordPollCycleDuration(long durationMillis) {
+        pollCycleDuration.record(durationMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordCompletionDetectionLag(long lagMillis) {
+        completionDetectionLag.record(Math.max(0, lagMillis), TimeUnit.MILLISECONDS);
+    }
+
+    public void registerEmrSubmissionQueueDepth(Supplier<Number> depth) {
+        Gauge.builder("emr.submission.queue.depth", depth)
+                .description("Jobs waiting to be submitted to EMR on this replica")
+                .register(registry);
+    }
+
+    public void registerEmrAdmissionGauges(Supplier<Number> activeRuns, Supplier<Number> waiting) {
+        Gauge.builder("emr.admission.active", activeRuns)
+                .description("EMR runs counted against the application capacity")
+                .register(registry);
+        Gauge.builder("emr.admission.waiting", waiting)
+                .description("EMR starts waiting for capacity on this replica")
+                .register(registry);
+    }
+
+    public void recordEmrSubmissionWaitTime(long durationMillis) {
+        emrSubmissionWaitTime.record(durationMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordEmrSubmissionLatency(long durationMillis) {
+        emrSubmissionLatency.record(durationMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void incrementEmrSubmissionRetries() {
+        emrSubmissionRetries.increment();
+    }
+
+    public void incrementEmrSubmissionFailures() {
+        emrSubmissionFailures.increment();
+    }
+
+    /**
+     * Circuit breaker state per dependency: 0 = closed, 1 = half-open, 2 = open.
+     */
+    public void registerCircuitBreakerState(String dependency, Supplier<Number> state) {
+        Gauge.builder("resilience.circuit.state", state)
+                .description("Circuit breaker state (0 closed, 1 half-open, 2 open)")
+                .tag("dependency", dependency)
+                .register(registry);
+    }
+
+    public void incrementCircuitBreakerRejections(String dependency) {
+        Counter.builder("resilience.circuit.rejections")
+                .description("Calls failed fast by an open circuit breaker")
+                .tag("dependency", dependency)
+                .register(registry)
+                .increment();
+    }
+
+    public void incrementHedgesFired(String operation) {
+        Counter.builder("resilience.hedges.fired")
+                .description("Hedged (duplicate) requests sent after the p95 delay")
+                .tag("operation", operation)
+                .register(registry)
+                .increment();
+    }
+
+    public void incrementHedgesWon(String operation) {
+        Counter.builder("resilience.hedges.won")
+                .description("Hedged requests that completed before the original")
+                .tag("operation", operation)
+                .register(registry)
+                .increment();
+    }
 }
\ No newline at end of file
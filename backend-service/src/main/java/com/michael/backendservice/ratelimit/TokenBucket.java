@@ -0,0 +1,95 @@
+package com.michael.backendservice.ratelimit;
+
+/**
+ * Thread-safe token bucket.
+ * <p>
+ * Tokens refill continuously at {@code ratePerSecond} up to {@code capacity}. Callers either
+ * acquire tokens up front ({@link #acquire}) or, when the real cost is only known afterwards
+ * (such as DynamoDB consumed capacity), wait for a positive balance with {@link #awaitAvailable}
+ * and then charge the actual cost with {@link #consume}, which may leave the bucket in debt.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double ratePerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(double ratePerSecond, double capacity) {
+        if (ratePerSecond <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("ratePerSecond and capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.ratePerNano = ratePerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Blocks until {@code permits} tokens are available and takes them.
+     */
+    public void acquire(double permits) throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                if (tokens >= permits) {
+                    tokens -= permits;
+                    return;
+                }
+                waitNanos = (long) Math.ceil((permits - tokens) / ratePerNano);
+            }
+            sleepNanos(waitNanos);
+        }
+    }
+
+    /**
+     * Takes {@code permits} tokens if they are available right now.
+     *
+     * @return true if the tokens were taken
+     */
+    public synchronized boolean tryAcquire(double permits) {
+        refill();
+        if (tokens >= permits) {
+            tokens -= permits;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Blocks until the balance is positive, without taking anything.
+     */
+    public void awaitAvailable() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                if (tokens > 0) {
+                    return;
+                }
+                waitNanos = (long) Math.ceil((-tokens + 1e-9) / ratePerNano);
+            }
+            sleepNanos(waitNanos);
+        }
+    }
+
+    /**
+     * Charges {@code permits} tokens after the fact; the balance may go negative.
+     */
+    public synchronized void consume(double permits) {
+        refill();
+        tokens -= permits;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * ratePerNano);
+        lastRefillNanos = now;
+    }
+
+    private static void sleepNanos(long nanos) throws InterruptedException {
+        long millis = Math.max(1, nanos / 1_000_000);
+        Thread.sleep(millis);
+    }
+}
@@ -0,0 +1,85 @@
+package com.michael.backendservice.resilience;
+
+import com.michael.backendservice.observability.MetricsService;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.exception.ApiCallAttemptTimeoutException;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+
+import java.util.function.Predicate;
+
+/**
+ * Applies a {@link CircuitBreaker} to every call made by an AWS SDK client.
+ * <p>
+ * Only failures that indicate the dependency is unhealthy count: timeouts, connection
+ * errors, throttling and 5xx responses. Client errors such as a failed DynamoDB condition
+ * are normal outcomes and count as successes. Timeouts and throttling of bulk requests
+ * (see {@code bulkRequests}) are expected under load and count as neither, so a large
+ * batch cannot open the breaker shared by every other caller.
+ */
+public class CircuitBreakerInterceptor implements ExecutionInterceptor {
+
+    private final CircuitBreaker breaker;
+    private final MetricsService metricsService;
+    private final Predicate<SdkRequest> bulkRequests;
+
+    public CircuitBreakerInterceptor(CircuitBreaker breaker, MetricsService metricsService) {
+        this(breaker, metricsService, request -> false);
+    }
+
+    public CircuitBreakerInterceptor(CircuitBreaker breaker, MetricsService metricsService,
+                                     Predicate<SdkRequest> bulkRequests) {
+        this.breaker = breaker;
+        this.metricsService = metricsService;
+        this.bulkRequests = bulkRequests;
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        if (!breaker.tryAcquire()) {
+            metricsService.incrementCircuitBreakerRejections(breaker.name());
+            throw new CircuitBreakerOpenException(breaker.name());
+        }
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        breaker.onSuccess();
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        Throwable error = context.exception();
+        if (error instanceof CircuitBreakerOpenException) {
+            return;
+        }
+        if (isLoadFailure(error) && bulkRequests.test(context.request())) {
+            breaker.onNeutral();
+            return;
+        }
+        if (isDependencyFailure(error)) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess();
+        }
+    }
+
+    private static boolean isLoadFailure(Throwable error) {
+        return error instanceof ApiCallTimeoutException || error instanceof ApiCallAttemptTimeoutException
+                || error instanceof SdkServiceException service && service.isThrottlingException();
+    }
+
+    private static boolean isDependencyFailure(Throwable error) {
+        if (error instanceof ApiCallTimeoutException || error instanceof ApiCallAttemptTimeoutException) {
+            return true;
+        }
+        if (error instanceof SdkServiceException service) {
+            return service.statusCode() >= 500 || service.isThrottlingException();
+        }
+        return error instanceof SdkClientException;
+    }
+}
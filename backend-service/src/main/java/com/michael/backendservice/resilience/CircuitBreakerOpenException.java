@@ -0,0 +1,13 @@
+package com.michael.backendservice.resilience;
+
+import software.amazon.awssdk.core.exception.SdkClientException;
+
+/**
+ * Thrown instead of calling a dependency whose circuit breaker is open.
+ */
+public class CircuitBreakerOpenException extends SdkClientException {
+
+    public CircuitBreakerOpenException(String dependency) {
+        super(SdkClientException.builder().message("Circuit breaker open for " + dependency));
+    }
+}
@@ -0,0 +1,76 @@
+package com.michael.backendservice.resilience;
+
+import com.michael.backendservice.observability.MetricsService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * One {@link CircuitBreaker} per downstream dependency ({@code dynamodb}, {@code s3},
+ * {@code emr}), shared by every client of that dependency.
+ */
+@Component
+public class CircuitBreakers {
+
+    public static final String DYNAMODB = "dynamodb";
+    public static final String S3 = "s3";
+    public static final String EMR = "emr";
+
+    private final MetricsService metricsService;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public CircuitBreakers(
+            MetricsService metricsService,
+            @Value("${app.resilience.circuitBreaker.failureThreshold:5}") int failureThreshold,
+            @Value("${app.resilience.circuitBreaker.openDuration:30s}") Duration openDuration
+    ) {
+        this.metricsService = metricsService;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    public CircuitBreaker forDependency(String dependency) {
+        return breakers.computeIfAbsent(dependency, name -> {
+            CircuitBreaker breaker = new CircuitBreaker(name, failureThreshold, openDuration);
+            metricsService.registerCircuitBreakerState(name, () -> breaker.state().ordinal());
+            return breaker;
+        });
+    }
+
+    public Duration openDuration() {
+        return openDuration;
+    }
+
+    public boolean isOpen(String dependency) {
+        return forDependency(dependency).isOpen();
+    }
+
+    /**
+     * Client configuration with the dependency's breaker and per-attempt / per-call timeouts.
+     */
+    public ClientOverrideConfiguration clientOverrides(String dependency, Duration attemptTimeout, Duration callTimeout) {
+        return clientOverrides(dependency, attemptTimeout, callTimeout, request -> false);
+    }
+
+    /**
+     * As {@link #clientOverrides(String, Duration, Duration)}; timeouts and throttling of
+     * requests matching {@code bulkRequests} do not count against the breaker.
+     */
+    public ClientOverrideConfiguration clientOverrides(String dependency, Duration attemptTimeout, Duration callTimeout,
+                                                       Predicate<SdkRequest> bulkRequests) {
+        return ClientOverrideConfiguration.builder()
+                .addExecutionInterceptor(new CircuitBreakerInterceptor(forDependency(dependency), metricsService,
+                        bulkRequests))
+                .apiCallAttemptTimeout(attemptTimeout)
+                .apiCallTimeout(callTimeout)
+                .build();
+    }
+}
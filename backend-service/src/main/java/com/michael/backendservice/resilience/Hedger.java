@@ -0,0 +1,129 @@
+package com.michael.backendservice.resilience;
+
+import com.michael.backendservice.observability.MetricsService;
+import com.michael.backendservice.ratelimit.TokenBucket;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Hedged requests for idempotent reads.
+ * <p>
+ * The call is issued once; if it has not completed after the operation's recent p95 latency,
+ * an identical second call is sent and whichever succeeds first wins. Only about 5% of calls
+ * are hedged, which cuts the tail without doubling load. A token bucket caps hedges per second
+ * so a general slowdown cannot turn into a traffic spike. Only use for calls that are safe to
+ * repeat.
+ */
+@Component
+public class Hedger {
+
+    private static final int WINDOW_SIZE = 1024;
+
+    private final MetricsService metricsService;
+    private final boolean enabled;
+    private final long defaultDelayNanos;
+    private final long minDelayNanos;
+    private final TokenBucket hedgeBudget;
+    private final Map<String, LatencyTracker> trackers = new ConcurrentHashMap<>();
+    private final ExecutorService blockingExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public Hedger(
+            MetricsService metricsService,
+            @Value("${app.resilience.hedging.enabled:true}") boolean enabled,
+            @Value("${app.resilience.hedging.defaultDelay:50ms}") Duration defaultDelay,
+            @Value("${app.resilience.hedging.minDelay:5ms}") Duration minDelay,
+            @Value("${app.resilience.hedging.maxHedgesPerSecond:50}") double maxHedgesPerSecond
+    ) {
+        this.metricsService = metricsService;
+        this.enabled = enabled;
+        this.defaultDelayNanos = defaultDelay.toNanos();
+        this.minDelayNanos = minDelay.toNanos();
+        this.hedgeBudget = new TokenBucket(maxHedgesPerSecond, maxHedgesPerSecond);
+    }
+
+    /**
+     * Hedges a non-blocking call.
+     */
+    public <T> CompletableFuture<T> hedge(String operation, Supplier<CompletableFuture<T>> call) {
+        if (!enabled) {
+            return call.get();
+        }
+
+        LatencyTracker tracker = trackers.computeIfAbsent(operation, op -> new LatencyTracker(WINDOW_SIZE));
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        long start = System.nanoTime();
+
+        invoke(call).whenComplete((value, error) -> {
+            if (error == null) {
+                tracker.record(System.nanoTime() - start);
+            }
+            settle(result, outstanding, false, operation).accept(value, error);
+        });
+
+        long p95 = tracker.p95Nanos();
+        long delayNanos = p95 < 0 ? defaultDelayNanos : Math.max(p95, minDelayNanos);
+        Executor delayed = CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS, blockingExecutor);
+        delayed.execute(() -> {
+            if (result.isDone() || !hedgeBudget.tryAcquire(1)) {
+                return;
+            }
+            outstanding.incrementAndGet();
+            metricsService.incrementHedgesFired(operation);
+            invoke(call).whenComplete(settle(result, outstanding, true, operation));
+        });
+
+        return result;
+    }
+
+    /**
+     * Hedges a blocking call, running each attempt on a virtual thread.
+     */
+    public <T> T hedgeBlocking(String operation, Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        try {
+            return hedge(operation, () -> CompletableFuture.supplyAsync(call, blockingExecutor)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static <T> CompletableFuture<T> invoke(Supplier<CompletableFuture<T>> call) {
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private <T> BiConsumer<T, Throwable> settle(CompletableFuture<T> result, AtomicInteger outstanding,
+                                                 boolean isHedge, String operation) {
+        return (value, error) -> {
+            if (error == null) {
+                if (result.complete(value) && isHedge) {
+                    metricsService.incrementHedgesWon(operation);
+                }
+            } else if (outstanding.decrementAndGet() == 0) {
+                result.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+            }
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package com.michael.backendservice.resilience;
+
+import java.util.Arrays;
+
+/**
+ * Recent-latency window for one operation. Keeps the last {@code capacity} samples and
+ * recomputes the 95th percentile every {@code RECOMPUTE_EVERY} samples.
+ */
+class LatencyTracker {
+
+    private static final int RECOMPUTE_EVERY = 64;
+
+    private final long[] samples;
+    private int next;
+    private int count;
+    private int sinceRecompute;
+    private volatile long p95Nanos = -1;
+
+    LatencyTracker(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    void record(long nanos) {
+        long[] snapshot = null;
+        synchronized (this) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+            if (++sinceRecompute >= RECOMPUTE_EVERY) {
+                sinceRecompute = 0;
+                snapshot = Arrays.copyOf(samples, count);
+            }
+        }
+        if (snapshot != null) {
+            Arrays.sort(snapshot);
+            p95Nanos = snapshot[(int) Math.ceil(snapshot.length * 0.95) - 1];
+        }
+    }
+
+    /**
+     * @return the recent 95th percentile, or -1 until enough samples have been seen
+     */
+    long p95Nanos() {
+        return p95Nanos;
+    }
+}
@@ -0,0 +1,87 @@
+package com.michael.backendservice.cluster;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsistentHashRingTests {
+
+	@Test
+	void emptyRingHasNoOwner() {
+		assertThat(new ConsistentHashRing(List.of(), 16).ownerOf("job-1")).isNull();
+	}
+
+	@Test
+	void virtualNodePointIsOwnedByItsMember() {
+		ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c"), 8);
+
+		for (String member : List.of("a", "b", "c")) {
+			for (int i = 0; i < 8; i++) {
+				assertThat(ring.ownerOf(member + "#" + i)).isEqualTo(member);
+			}
+		}
+	}
+
+	@Test
+	void keysPastTheLastPointWrapToTheFirst() {
+		List<String> members = List.of("a", "b", "c");
+		ConsistentHashRing ring = new ConsistentHashRing(members, 4);
+
+		long highest = Long.MIN_VALUE;
+		long lowest = Long.MAX_VALUE;
+		String lowestOwner = null;
+		for (String member : members) {
+			for (int i = 0; i < 4; i++) {
+				long point = ConsistentHashRing.hash(member + "#" + i);
+				highest = Math.max(highest, point);
+				if (point < lowest) {
+					lowest = point;
+					lowestOwner = member;
+				}
+			}
+		}
+
+		int wrapped = 0;
+		for (int i = 0; i < 10_000; i++) {
+			String key = "job-" + i;
+			if (ConsistentHashRing.hash(key) > highest) {
+				assertThat(ring.ownerOf(key)).isEqualTo(lowestOwner);
+				wrapped++;
+			}
+		}
+		assertThat(wrapped).isPositive();
+	}
+
+	@Test
+	void virtualNodesSpreadKeysAcrossMembers() {
+		List<String> members = List.of("a", "b", "c");
+		ConsistentHashRing ring = new ConsistentHashRing(members, 128);
+
+		Map<String, Integer> counts = new HashMap<>();
+		for (int i = 0; i < 30_000; i++) {
+			counts.merge(ring.ownerOf("job-" + i), 1, Integer::sum);
+		}
+
+		assertThat(counts).containsOnlyKeys(members);
+		counts.values().forEach(count -> assertThat(count).isBetween(7_000, 13_000));
+	}
+
+	@Test
+	void removingAMemberOnlyMovesItsKeys() {
+		ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b", "c"), 64);
+		ConsistentHashRing after = new ConsistentHashRing(List.of("a", "b"), 64);
+
+		for (int i = 0; i < 10_000; i++) {
+			String key = "job-" + i;
+			String owner = before.ownerOf(key);
+			if (!owner.equals("c")) {
+				assertThat(after.ownerOf(key)).isEqualTo(owner);
+			}
+		}
+	}
+
+}
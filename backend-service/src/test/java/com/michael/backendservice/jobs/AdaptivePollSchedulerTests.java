@@ -0,0 +1,152 @@
+package com.michael.backendservice.jobs;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.michael.backendservice.observability.MetricsService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.services.emrserverless.model.JobRun;
+import software.amazon.awssdk.services.emrserverless.model.JobRunState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdaptivePollSchedulerTests {
+
+	private final EmrService emrService = mock(EmrService.class);
+	private final JobCompletionService completionService = mock(JobCompletionService.class);
+	private final List<Long> checks = new ArrayList<>();
+	private AdaptivePollScheduler scheduler;
+
+	@AfterEach
+	void stop() {
+		if (scheduler != null) {
+			scheduler.destroy();
+		}
+	}
+
+	@Test
+	void backsOffGeometricallyUpToMaxInterval() throws InterruptedException {
+		stillRunning();
+		scheduler = scheduler(Duration.ofMillis(20), Duration.ofMillis(80), "adaptive");
+
+		long tracked = System.nanoTime();
+		scheduler.track(job("job-1"));
+		awaitChecks(5);
+
+		List<Long> times;
+		synchronized (checks) {
+			times = new ArrayList<>(checks);
+		}
+		assertThat(millis(times.get(0) - tracked)).isGreaterThanOrEqualTo(18);
+		// 40ms, 80ms, then capped at 80ms
+		assertThat(millis(times.get(1) - times.get(0))).isGreaterThanOrEqualTo(38);
+		assertThat(millis(times.get(2) - times.get(1))).isGreaterThanOrEqualTo(78);
+		assertThat(millis(times.get(3) - times.get(2))).isBetween(78L, 300L);
+		assertThat(millis(times.get(4) - times.get(3))).isBetween(78L, 300L);
+	}
+
+	@Test
+	void stopsPollingOnceTheOutcomeIsApplied() throws InterruptedException {
+		Job job = job("job-1");
+		StatusTransition done = new StatusTransition("job-1", JobStatus.SUCCEEDED, null, null);
+		when(emrService.getJobRun(anyString())).thenAnswer(invocation -> {
+			recordCheck();
+			return JobRun.builder().state(JobRunState.SUCCESS).build();
+		});
+		when(completionService.transitionFor(any(Job.class), eq(JobRunState.SUCCESS))).thenReturn(Optional.of(done));
+		when(completionService.apply(any(), anyMap()))
+				.thenReturn(new TransitionBatchResult(List.of(done), List.of(), List.of()));
+		scheduler = scheduler(Duration.ofMillis(10), Duration.ofMillis(20), "adaptive");
+
+		scheduler.track(job);
+		await(() -> scheduler.trackedCount() == 0, "job to be untracked");
+		// Would have been checked again at 20ms intervals if still tracked
+		Thread.sleep(100);
+
+		synchronized (checks) {
+			assertThat(checks).hasSize(1);
+		}
+	}
+
+	@Test
+	void syncUntracksJobsThatAreNoLongerRunning() {
+		scheduler = scheduler(Duration.ofMinutes(1), Duration.ofMinutes(1), "fixed");
+
+		scheduler.sync(List.of(job("a"), job("b")));
+		assertThat(scheduler.trackedCount()).isEqualTo(2);
+
+		scheduler.sync(List.of(job("b")));
+		assertThat(scheduler.trackedCount()).isEqualTo(1);
+	}
+
+	@Test
+	void ignoresJobsWithoutRun() {
+		scheduler = scheduler(Duration.ofMinutes(1), Duration.ofMinutes(1), "fixed");
+
+		scheduler.track(new Job("job-1", "RUNNING", "1", null, null, null, null, null, null, null,
+				null, null, null, null, null, null));
+
+		assertThat(scheduler.trackedCount()).isZero();
+	}
+
+	private AdaptivePollScheduler scheduler(Duration initial, Duration max, String mode) {
+		return new AdaptivePollScheduler(emrService, completionService, new MetricsService(new SimpleMeterRegistry()),
+				4, initial, max, 2.0, false, mode);
+	}
+
+	private void stillRunning() {
+		when(emrService.getJobRun(anyString())).thenAnswer(invocation -> {
+			recordCheck();
+			return JobRun.builder().state(JobRunState.RUNNING).build();
+		});
+		when(completionService.transitionFor(any(Job.class), any())).thenReturn(Optional.empty());
+	}
+
+	private void recordCheck() {
+		synchronized (checks) {
+			checks.add(System.nanoTime());
+		}
+	}
+
+	private void awaitChecks(int count) throws InterruptedException {
+		await(() -> {
+			synchronized (checks) {
+				return checks.size() >= count;
+			}
+		}, count + " checks");
+	}
+
+	private static void await(BooleanSupplier condition, String description) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (System.nanoTime() < deadline) {
+			if (condition.getAsBoolean()) {
+				return;
+			}
+			Thread.sleep(5);
+		}
+		throw new AssertionError("Timed out waiting for " + description);
+	}
+
+	private static long millis(long nanos) {
+		return nanos / 1_000_000;
+	}
+
+	private static Job job(String jobId) {
+		return new Job(jobId, "RUNNING", "2026-01-01T00:00:00Z", null, null, null, null, "run-" + jobId, null, null,
+				null, null, null, null, null, null);
+	}
+
+}
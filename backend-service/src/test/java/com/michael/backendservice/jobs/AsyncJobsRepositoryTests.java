@@ -0,0 +1,143 @@
+package com.michael.backendservice.jobs;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.michael.backendservice.observability.MetricsService;
+import com.michael.backendservice.resilience.Hedger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import static com.michael.backendservice.jobs.JobsRepositoryTransitionTests.item;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AsyncJobsRepositoryTests {
+
+	private final DynamoDbAsyncClient ddb = mock(DynamoDbAsyncClient.class);
+	private final JobCache jobCache = new JobCache(new MetricsService(new SimpleMeterRegistry()), 100,
+			Duration.ofMinutes(1), Duration.ofMinutes(10));
+	private final AsyncJobsRepository repository = new AsyncJobsRepository(ddb, jobCache,
+			new Hedger(new MetricsService(new SimpleMeterRegistry()), false, Duration.ofMillis(50), Duration.ofMillis(5), 50),
+			"jobs", 1, 8);
+
+	@Test
+	void returnsWithoutWaitingForDynamoDb() {
+		CompletableFuture<UpdateItemResponse> pending = new CompletableFuture<>();
+		when(ddb.updateItem(any(UpdateItemRequest.class))).thenReturn(pending);
+
+		CompletableFuture<Job> result = repository.transitionStatus("job-1", JobStatus.RUNNING, null, null);
+
+		assertThat(result).isNotDone();
+		pending.complete(UpdateItemResponse.builder().attributes(item("job-1", "RUNNING", "t1")).build());
+		assertThat(result.join().status()).isEqualTo("RUNNING");
+	}
+
+	@Test
+	void createdJobIsServedFromCache() {
+		when(ddb.putItem(any(PutItemRequest.class)))
+				.thenReturn(CompletableFuture.completedFuture(PutItemResponse.builder().build()));
+
+		Job created = repository.createJob("job-1", new CreateJobRequest("raw/in.csv", null, null)).join();
+
+		assertThat(repository.getJob("job-1").join()).contains(created);
+		verify(ddb, never()).getItem(any(GetItemRequest.class));
+	}
+
+	@Test
+	void readsMissingJobAsEmpty() {
+		when(ddb.getItem(any(GetItemRequest.class)))
+				.thenReturn(CompletableFuture.completedFuture(GetItemResponse.builder().build()));
+
+		assertThat(repository.getJob("missing").join()).isEmpty();
+
+		ArgumentCaptor<GetItemRequest> request = ArgumentCaptor.forClass(GetItemRequest.class);
+		verify(ddb).getItem(request.capture());
+		assertThat(request.getValue().consistentRead()).isTrue();
+	}
+
+	@Test
+	void rejectedTransitionCompletesWithCurrentJob() {
+		when(ddb.updateItem(any(UpdateItemRequest.class))).thenReturn(CompletableFuture.failedFuture(
+				ConditionalCheckFailedException.builder().item(item("job-1", "FAILED", "t1")).build()));
+
+		CompletableFuture<Job> result = repository.transitionStatus("job-1", JobStatus.SUCCEEDED, null, null);
+
+		assertThatThrownBy(result::join)
+				.isInstanceOf(CompletionException.class)
+				.cause()
+				.isInstanceOfSatisfying(InvalidStatusTransitionException.class,
+						e -> assertThat(e.getCurrentJob().status()).isEqualTo("FAILED"));
+		assertThat(jobCache.get("job-1")).map(Job::status).contains("FAILED");
+	}
+
+	@Test
+	void retryFailingAgainstItsOwnWriteSucceeds() {
+		when(ddb.updateItem(any(UpdateItemRequest.class))).thenAnswer(invocation -> {
+			Map<String, AttributeValue> values = invocation.<UpdateItemRequest>getArgument(0).expressionAttributeValues();
+			return CompletableFuture.failedFuture(ConditionalCheckFailedException.builder()
+					.item(item("job-1", values.get(":status").s(), values.get(":updatedAt").s()))
+					.build());
+		});
+
+		Job job = repository.startWithInput("job-1", "raw/in.csv", null).join();
+
+		assertThat(job.status()).isEqualTo("RUNNING");
+	}
+
+	@Test
+	void startWithInputSetsKeyUnderTheSubmittedCondition() {
+		when(ddb.updateItem(any(UpdateItemRequest.class))).thenReturn(CompletableFuture.completedFuture(
+				UpdateItemResponse.builder().attributes(item("job-1", "RUNNING", "t1")).build()));
+
+		repository.startWithInput("job-1", "raw/in.csv", "started").join();
+
+		ArgumentCaptor<UpdateItemRequest> request = ArgumentCaptor.forClass(UpdateItemRequest.class);
+		verify(ddb).updateItem(request.capture());
+		assertThat(request.getValue().conditionExpression()).contains("#status IN (:fromSUBMITTED)");
+		assertThat(request.getValue().expressionAttributeValues()).containsEntry(":inputS3Key",
+				AttributeValue.fromS("raw/in.csv"));
+	}
+
+	@Test
+	void transitionToUnreachableStatusFailsWithoutWriting() {
+		when(ddb.getItem(any(GetItemRequest.class)))
+				.thenReturn(CompletableFuture.completedFuture(GetItemResponse.builder().build()));
+
+		assertThatThrownBy(repository.transitionStatus("job-1", JobStatus.SUBMITTED, null, null)::join)
+				.cause()
+				.isInstanceOf(InvalidStatusTransitionException.class);
+		verify(ddb, never()).updateItem(any(UpdateItemRequest.class));
+	}
+
+	@Test
+	void otherErrorsPropagate() {
+		when(ddb.updateItem(any(UpdateItemRequest.class)))
+				.thenReturn(CompletableFuture.failedFuture(new IllegalStateException("boom")));
+
+		assertThatThrownBy(repository.transitionStatus("job-1", JobStatus.RUNNING, null, null)::join)
+				.cause()
+				.isInstanceOf(IllegalStateException.class);
+		assertThat(jobCache.get("job-1")).isEmpty();
+	}
+
+}
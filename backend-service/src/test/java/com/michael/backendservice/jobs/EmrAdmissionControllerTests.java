@@ -0,0 +1,183 @@
+package com.michael.backendservice.jobs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.michael.backendservice.cluster.PollerMembership;
+import com.michael.backendservice.jobs.EmrAdmissionController.Slot;
+import com.michael.backendservice.observability.MetricsService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmrAdmissionControllerTests {
+
+	private final EmrService emrService = mock(EmrService.class);
+	private final PollerMembership membership = mock(PollerMembership.class);
+	private final BlockingQueue<Admitted> admitted = new LinkedBlockingQueue<>();
+	private EmrAdmissionController controller;
+
+	EmrAdmissionControllerTests() {
+		when(membership.memberCount()).thenReturn(1);
+	}
+
+	@AfterEach
+	void stop() {
+		if (controller != null) {
+			controller.destroy();
+		}
+	}
+
+	@Test
+	void admitsUpToCapacityAndHoldsTheRest() throws InterruptedException {
+		controller = controller(2);
+
+		offer("a", 0, "1");
+		offer("a", 0, "2");
+		offer("a", 0, "3");
+
+		List<Admitted> first = take(2);
+		assertThat(first).extracting(Admitted::label).containsExactly("1", "2");
+		assertNoneAdmitted();
+		assertThat(controller.activeCount()).isEqualTo(2);
+		assertThat(controller.waitingCount()).isEqualTo(1);
+
+		first.get(0).slot().started("run-1");
+		controller.release("run-1");
+
+		assertThat(take(1)).extracting(Admitted::label).containsExactly("3");
+	}
+
+	@Test
+	void admitsHighestPriorityFirst() throws InterruptedException {
+		controller = controller(1);
+		Admitted blocker = offerAndTake("a", 0, "blocker");
+
+		offer("a", 1, "low");
+		offer("b", 9, "high");
+		offer("c", 5, "medium");
+		blocker.slot().release();
+
+		assertThat(take(1)).extracting(Admitted::label).containsExactly("high");
+	}
+
+	@Test
+	void prefersSubmitterWithFewerActiveRunsAtEqualPriority() throws InterruptedException {
+		controller = controller(4);
+		offerAndTake("heavy", 0, "h1").slot().started("run-h1");
+		offerAndTake("heavy", 0, "h2").slot().started("run-h2");
+		offerAndTake("heavy", 0, "h3").slot().started("run-h3");
+		offerAndTake("light", 0, "l1").slot().started("run-l1");
+
+		// heavy queued first, but still has two runs to light's one after the release
+		offer("heavy", 0, "h4");
+		offer("light", 0, "l2");
+		controller.release("run-h1");
+
+		assertThat(take(1)).extracting(Admitted::label).containsExactly("l2");
+	}
+
+	@Test
+	void keepsEachReplicaWithinItsShare() throws InterruptedException {
+		when(membership.memberCount()).thenReturn(2);
+		controller = controller(4);
+
+		for (int i = 0; i < 4; i++) {
+			offer("a", 0, Integer.toString(i));
+		}
+
+		assertThat(take(2)).hasSize(2);
+		assertNoneAdmitted();
+	}
+
+	@Test
+	void resyncReleasesFinishedRunsAndCountsOtherReplicasRuns() throws InterruptedException {
+		controller = controller(3);
+		offerAndTake("a", 0, "1").slot().started("run-1");
+		offerAndTake("a", 0, "2").slot().started("run-2");
+		when(emrService.listActiveJobRunIds()).thenReturn(Set.of("run-2", "other-1", "other-2"));
+
+		controller.resync();
+
+		// run-1 finished without a local completion; two runs belong to other replicas
+		assertThat(controller.activeCount()).isEqualTo(3);
+		offer("a", 0, "3");
+		assertNoneAdmitted();
+	}
+
+	@Test
+	void releasedSlotFreesCapacityOnce() throws InterruptedException {
+		controller = controller(1);
+		Admitted first = offerAndTake("a", 0, "1");
+		offer("a", 0, "2");
+
+		first.slot().release();
+		first.slot().release();
+		Admitted second = take(1).get(0);
+
+		assertThat(second.label()).isEqualTo("2");
+		assertThat(controller.activeCount()).isEqualTo(1);
+	}
+
+	@Test
+	void sameRunBoundTwiceIsCountedOnce() throws InterruptedException {
+		controller = controller(2);
+		offerAndTake("a", 0, "1").slot().started("run-1");
+		offerAndTake("a", 0, "2").slot().started("run-1");
+
+		assertThat(controller.activeCount()).isEqualTo(1);
+	}
+
+	@Test
+	void nonPositiveLimitDisablesAdmissionControl() throws InterruptedException {
+		controller = controller(0);
+
+		for (int i = 0; i < 5; i++) {
+			offer("a", 0, Integer.toString(i));
+		}
+
+		assertThat(take(5)).hasSize(5);
+		assertThat(controller.activeCount()).isZero();
+	}
+
+	private EmrAdmissionController controller(int maxActiveRuns) {
+		return new EmrAdmissionController(emrService, new MetricsService(new SimpleMeterRegistry()), membership,
+				maxActiveRuns);
+	}
+
+	private void offer(String submitter, int priority, String label) {
+		controller.offer(submitter, priority, slot -> admitted.add(new Admitted(label, slot)));
+	}
+
+	private Admitted offerAndTake(String submitter, int priority, String label) throws InterruptedException {
+		offer(submitter, priority, label);
+		return take(1).get(0);
+	}
+
+	private List<Admitted> take(int count) throws InterruptedException {
+		List<Admitted> taken = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Admitted next = admitted.poll(2, TimeUnit.SECONDS);
+			assertThat(next).as("admission %d of %d", i + 1, count).isNotNull();
+			taken.add(next);
+		}
+		return taken;
+	}
+
+	private void assertNoneAdmitted() throws InterruptedException {
+		assertThat(admitted.poll(50, TimeUnit.MILLISECONDS)).isNull();
+	}
+
+	private record Admitted(String label, Slot slot) {}
+
+}
@@ -0,0 +1,333 @@
+package com.michael.backendservice.jobs;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.util.unit.DataSize;
+
+import com.michael.backendservice.cluster.PollerMembership;
+import com.michael.backendservice.observability.MetricsService;
+import com.michael.backendservice.resilience.CircuitBreakerOpenException;
+import com.michael.backendservice.resilience.CircuitBreakers;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmrSubmissionQueueTests {
+
+	private static final long VERIFY_TIMEOUT_MS = 2000;
+
+	private final MetricsService metrics = new MetricsService(new SimpleMeterRegistry());
+	private final JobsRepository repo = mock(JobsRepository.class);
+	private final EmrService emrService = mock(EmrService.class);
+	private final JobStatusPoller statusPoller = mock(JobStatusPoller.class);
+	private final PollerMembership membership = mock(PollerMembership.class);
+	private final S3Client s3Client = mock(S3Client.class);
+	private final List<EmrSubmissionQueue> queues = new ArrayList<>();
+	private EmrAdmissionController admission;
+
+	EmrSubmissionQueueTests() {
+		when(s3Client.headObject(any(HeadObjectRequest.class)))
+				.thenReturn(HeadObjectResponse.builder().contentLength(1024L).build());
+	}
+
+	@AfterEach
+	void stop() {
+		queues.forEach(EmrSubmissionQueue::destroy);
+		if (admission != null) {
+			admission.destroy();
+		}
+	}
+
+	@Test
+	void submitsQueuedJobAndRecordsItsRun() {
+		Job updated = job("job-1");
+		when(emrService.startSparkJob(eq("job-1"), anyString(), anyString(), any())).thenReturn("run-1");
+		when(repo.setEmrJobRun(eq("job-1"), eq("run-1"), any(), any())).thenReturn(updated);
+		EmrSubmissionQueue queue = queue(3);
+
+		queue.enqueue(job("job-1"));
+
+		verify(statusPoller, timeout(VERIFY_TIMEOUT_MS)).onEmrJobStarted(updated);
+		verify(emrService).startSparkJob(eq("job-1"), eq("s3://raw/raw/jobs/job-1/input.csv"),
+				eq("s3://processed/processed/jobs/job-1/output/"), any());
+		assertThat(queue.depth()).isZero();
+	}
+
+	@Test
+	void ignoresJobsWithoutInputAndJobsAlreadyQueued() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		when(emrService.startSparkJob(anyString(), anyString(), anyString(), any())).thenAnswer(invocation -> {
+			release.await();
+			return "run-1";
+		});
+		when(repo.setEmrJobRun(anyString(), anyString(), any(), any())).thenReturn(job("job-1"));
+		EmrSubmissionQueue queue = queue(3);
+
+		queue.enqueue(new Job("job-0", "RUNNING", "1", null, null, null, null, null, null, null,
+				null, null, null, null, null, null));
+		queue.enqueue(job("job-1"));
+		queue.enqueue(job("job-1"));
+		assertThat(queue.depth()).isEqualTo(1);
+		release.countDown();
+
+		verify(statusPoller, timeout(VERIFY_TIMEOUT_MS)).onEmrJobStarted(any());
+		verify(emrService, after(100).times(1)).startSparkJob(anyString(), anyString(), anyString(), any());
+	}
+
+	@Test
+	void retriesFailedStartWithBackoff() {
+		when(emrService.startSparkJob(eq("job-1"), anyString(), anyString(), any()))
+				.thenThrow(new IllegalStateException("throttled"))
+				.thenReturn("run-1");
+		when(repo.setEmrJobRun(anyString(), anyString(), any(), any())).thenReturn(job("job-1"));
+		EmrSubmissionQueue queue = queue(3);
+
+		queue.enqueue(job("job-1"));
+
+		verify(statusPoller, timeout(VERIFY_TIMEOUT_MS)).onEmrJobStarted(any());
+		verify(emrService, times(2)).startSparkJob(eq("job-1"), anyString(), anyString(), any());
+		verify(repo, never()).transitionStatus(anyString(), any(), any(), any());
+	}
+
+	@Test
+	void marksJobFailedAfterMaxAttempts() {
+		when(emrService.startSparkJob(eq("job-1"), anyString(), anyString(), any()))
+				.thenThrow(new IllegalStateException("invalid application"));
+		EmrSubmissionQueue queue = queue(2);
+
+		queue.enqueue(job("job-1"));
+
+		verify(repo, timeout(VERIFY_TIMEOUT_MS))
+				.transitionStatus(eq("job-1"), eq(JobStatus.FAILED), startsWith("EMR submission failed"), any());
+		verify(emrService, times(2)).startSparkJob(eq("job-1"), anyString(), anyString(), any());
+		assertThat(queue.depth()).isZero();
+	}
+
+	@Test
+	void defersWhileCircuitIsOpenWithoutSpendingAnAttempt() {
+		when(emrService.startSparkJob(eq("job-1"), anyString(), anyString(), any()))
+				.thenThrow(new CircuitBreakerOpenException(CircuitBreakers.EMR))
+				.thenThrow(new CircuitBreakerOpenException(CircuitBreakers.EMR))
+				.thenReturn("run-1");
+		when(repo.setEmrJobRun(anyString(), anyString(), any(), any())).thenReturn(job("job-1"));
+		EmrSubmissionQueue queue = queue(1);
+
+		queue.enqueue(job("job-1"));
+
+		verify(statusPoller, timeout(VERIFY_TIMEOUT_MS)).onEmrJobStarted(any());
+		verify(repo, never()).transitionStatus(anyString(), any(), any(), any());
+	}
+
+	@Test
+	void recoverySkipsJobsThatAreSubmittedOrHeldElsewhere() {
+		Instant stale = Instant.now().minus(Duration.ofMinutes(10));
+		Instant recent = Instant.now();
+		Job lost = running("lost", null, stale, null);
+		Job started = running("started", "run-1", stale, null);
+		Job justStarted = running("just-started", null, recent, null);
+		Job heldElsewhere = running("held", null, stale, recent);
+		Job heldLongAgo = running("held-long-ago", null, stale, stale);
+		when(emrService.isConfigured()).thenReturn(true);
+		when(repo.activeShardCount()).thenReturn(8);
+		when(membership.ownedShards(8)).thenReturn(List.of(0, 1));
+		when(repo.getJobsByStatus(JobStatus.RUNNING, JobProjection.SUBMISSION, List.of(0, 1)))
+				.thenReturn(List.of(lost, started, justStarted, heldElsewhere, heldLongAgo));
+		when(emrService.startSparkJob(anyString(), anyString(), anyString(), any())).thenReturn("run-2");
+		when(repo.setEmrJobRun(anyString(), anyString(), any(), any())).thenReturn(job("x"));
+		EmrSubmissionQueue queue = queue(3);
+
+		queue.recoverPendingSubmissions();
+
+		verify(statusPoller, timeout(VERIFY_TIMEOUT_MS).times(2)).onEmrJobStarted(any());
+		verify(emrService).startSparkJob(eq("lost"), anyString(), anyString(), any());
+		verify(emrService).startSparkJob(eq("held-long-ago"), anyString(), anyString(), any());
+		verify(emrService, times(2)).startSparkJob(anyString(), anyString(), anyString(), any());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void refreshesQueuedMarkerForJobsItHolds() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		when(emrService.startSparkJob(anyString(), anyString(), anyString(), any())).thenAnswer(invocation -> {
+			release.await();
+			return "run-1";
+		});
+		EmrSubmissionQueue queue = queue(3);
+		queue.refreshQueuedMarkers();
+		verify(repo, never()).markSubmissionQueued(anyCollection(), any());
+
+		queue.enqueue(job("job-1"));
+		queue.refreshQueuedMarkers();
+		release.countDown();
+
+		ArgumentCaptor<Collection<String>> jobIds = ArgumentCaptor.forClass(Collection.class);
+		verify(repo).markSubmissionQueued(jobIds.capture(), any(Instant.class));
+		assertThat(jobIds.getValue()).containsExactly("job-1");
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void coalescesSmallJobsIntoOneBatchRunAtMaxJobs() {
+		when(emrService.startSparkBatchJob(anyString(), anyString(), anyString(), any())).thenReturn("run-1");
+		when(repo.setEmrBatchRun(anyMap(), eq("run-1"), anyString(), any()))
+				.thenReturn(List.of(job("a"), job("b")));
+		EmrSubmissionQueue queue = coalescingQueue(3, 2, DataSize.ofMegabytes(512));
+
+		queue.enqueue(job("a"));
+		queue.enqueue(job("b"));
+
+		ArgumentCaptor<Map<String, Long>> sizes = ArgumentCaptor.forClass(Map.class);
+		ArgumentCaptor<String> batchId = ArgumentCaptor.forClass(String.class);
+		verify(repo, timeout(VERIFY_TIMEOUT_MS)).setEmrBatchRun(sizes.capture(), eq("run-1"), batchId.capture(), any());
+		assertThat(sizes.getValue()).containsOnlyKeys("a", "b").containsValues(1024L, 1024L);
+		verify(s3Client).putObject(
+				argThat((PutObjectRequest request) -> request.key().equals(EmrBatchResults.manifestKey(batchId.getValue()))),
+				any(RequestBody.class));
+		verify(emrService, never()).startSparkJob(anyString(), anyString(), anyString(), any());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void closesBatchBeforeAnInputWouldTakeItPastMaxBatchSize() throws InterruptedException {
+		when(emrService.startSparkBatchJob(anyString(), anyString(), anyString(), any())).thenReturn("run-1");
+		when(repo.setEmrBatchRun(anyMap(), anyString(), anyString(), any())).thenReturn(List.of(job("x")));
+		EmrSubmissionQueue queue = coalescingQueue(3, 50, DataSize.ofBytes(1500));
+
+		queue.enqueue(job("a"));
+		queue.enqueue(job("b"));
+		verify(emrService, timeout(VERIFY_TIMEOUT_MS)).startSparkBatchJob(anyString(), anyString(), anyString(), any());
+
+		Thread.sleep(60);
+		queue.flushCoalescedJobs();
+
+		ArgumentCaptor<Map<String, Long>> sizes = ArgumentCaptor.forClass(Map.class);
+		verify(repo, timeout(VERIFY_TIMEOUT_MS).times(2)).setEmrBatchRun(sizes.capture(), anyString(), anyString(), any());
+		assertThat(sizes.getAllValues()).allSatisfy(batch -> assertThat(batch).hasSize(1));
+	}
+
+	@Test
+	void flushesPartialBatchOnlyOnceTheWindowHasPassed() throws InterruptedException {
+		when(emrService.startSparkBatchJob(anyString(), anyString(), anyString(), any())).thenReturn("run-1");
+		when(repo.setEmrBatchRun(anyMap(), anyString(), anyString(), any())).thenReturn(List.of(job("a")));
+		EmrSubmissionQueue queue = coalescingQueue(3, 50, DataSize.ofMegabytes(512));
+
+		queue.enqueue(job("a"));
+		verify(s3Client, timeout(VERIFY_TIMEOUT_MS)).headObject(any(HeadObjectRequest.class));
+		queue.flushCoalescedJobs();
+		verify(emrService, after(20).never()).startSparkBatchJob(anyString(), anyString(), anyString(), any());
+
+		Thread.sleep(60);
+		queue.flushCoalescedJobs();
+
+		verify(emrService, timeout(VERIFY_TIMEOUT_MS)).startSparkBatchJob(anyString(), anyString(), anyString(), any());
+	}
+
+	@Test
+	void submitsLargeInputsOnTheirOwn() {
+		when(s3Client.headObject(any(HeadObjectRequest.class)))
+				.thenReturn(HeadObjectResponse.builder().contentLength(DataSize.ofMegabytes(100).toBytes()).build());
+		when(emrService.startSparkJob(anyString(), anyString(), anyString(), any())).thenReturn("run-1");
+		when(repo.setEmrJobRun(anyString(), anyString(), any(), any())).thenReturn(job("big"));
+		EmrSubmissionQueue queue = coalescingQueue(3, 50, DataSize.ofMegabytes(512));
+
+		queue.enqueue(job("big"));
+
+		verify(repo, timeout(VERIFY_TIMEOUT_MS)).setEmrJobRun(eq("big"), eq("run-1"), any(),
+				eq(DataSize.ofMegabytes(100).toBytes()));
+		verify(emrService, never()).startSparkBatchJob(anyString(), anyString(), anyString(), any());
+	}
+
+	@Test
+	void fallsBackToIndividualSubmissionsWhenBatchCannotBeSubmitted() {
+		when(emrService.startSparkBatchJob(anyString(), anyString(), anyString(), any()))
+				.thenThrow(new IllegalStateException("manifest rejected"));
+		when(emrService.startSparkJob(anyString(), anyString(), anyString(), any())).thenReturn("run-1");
+		when(repo.setEmrJobRun(anyString(), anyString(), any(), any())).thenReturn(job("x"));
+		EmrSubmissionQueue queue = coalescingQueue(2, 2, DataSize.ofMegabytes(512));
+
+		queue.enqueue(job("a"));
+		queue.enqueue(job("b"));
+
+		verify(emrService, timeout(VERIFY_TIMEOUT_MS)).startSparkJob(eq("a"), anyString(), anyString(), any());
+		verify(emrService, timeout(VERIFY_TIMEOUT_MS)).startSparkJob(eq("b"), anyString(), anyString(), any());
+		verify(emrService, times(2)).startSparkBatchJob(anyString(), anyString(), anyString(), any());
+		verify(repo, never()).transitionStatus(anyString(), any(), any(), any());
+	}
+
+	@Test
+	void retriesUnsizedInputAndUsesDefaultTierOnFinalAttempt() {
+		SparkResourceProfile small = new SparkResourceProfile("small", DataSize.ofMegabytes(256), 1, "2g", 2, "4g", 1, 2, 4, 16);
+		SparkResourceProfile large = new SparkResourceProfile("large", null, 4, "16g", 4, "16g", 2, 8, 64, 400);
+		when(s3Client.headObject(any(HeadObjectRequest.class))).thenThrow(new IllegalStateException("403"));
+		when(emrService.startSparkJob(anyString(), anyString(), anyString(), any())).thenReturn("run-1");
+		when(repo.setEmrJobRun(anyString(), anyString(), any(), any())).thenReturn(job("job-1"));
+		queue(3, false, 50, DataSize.ofMegabytes(512), DataSize.ofMegabytes(64), List.of(small, large), "small")
+				.enqueue(job("job-1"));
+
+		verify(repo, timeout(VERIFY_TIMEOUT_MS)).setEmrJobRun("job-1", "run-1", "small", null);
+		verify(emrService, times(1)).startSparkJob(eq("job-1"), anyString(), anyString(), eq(small));
+		verify(s3Client, times(3)).headObject(any(HeadObjectRequest.class));
+	}
+
+	private EmrSubmissionQueue coalescingQueue(int maxAttempts, int maxJobs, DataSize maxBatchSize) {
+		return queue(maxAttempts, true, maxJobs, maxBatchSize, DataSize.ofMegabytes(64), List.of(), null);
+	}
+
+	private EmrSubmissionQueue queue(int maxAttempts) {
+		return queue(maxAttempts, false, 50, DataSize.ofMegabytes(512), DataSize.ofMegabytes(64), List.of(), null);
+	}
+
+	EmrSubmissionQueue queue(int maxAttempts, boolean coalesce, int maxJobs, DataSize maxBatchSize,
+			DataSize smallJobMaxSize, List<SparkResourceProfile> tiers, String defaultTier) {
+		when(membership.memberCount()).thenReturn(1);
+		if (admission == null) {
+			admission = new EmrAdmissionController(emrService, metrics, membership, 0);
+		}
+		EmrSubmissionQueue queue = new EmrSubmissionQueue(repo, emrService, admission, statusPoller, membership,
+				metrics, new SparkSizingProperties(tiers, defaultTier), new CircuitBreakers(metrics, 5, Duration.ofMillis(20)),
+				s3Client, "raw", "processed", 1000, 1000, 4, maxAttempts, Duration.ofMillis(10), Duration.ofSeconds(60),
+				coalesce, Duration.ofMillis(50), maxJobs, maxBatchSize, smallJobMaxSize);
+		queues.add(queue);
+		return queue;
+	}
+
+	static Job job(String jobId) {
+		return new Job(jobId, "RUNNING", "1", "raw/jobs/" + jobId + "/input.csv", null, null, null, null, null, null,
+				null, null, null, null, null, null);
+	}
+
+	private static Job running(String jobId, String emrJobRunId, Instant updatedAt, Instant queuedAt) {
+		return new Job(jobId, "RUNNING", "1", "raw/jobs/" + jobId + "/input.csv", updatedAt.toString(), null, null,
+				emrJobRunId, null, null, null, null, null, null, null, queuedAt == null ? null : queuedAt.toString());
+	}
+
+}
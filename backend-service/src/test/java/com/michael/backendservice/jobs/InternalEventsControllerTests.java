@@ -0,0 +1,294 @@
+package com.michael.backendservice.jobs;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import com.michael.backendservice.observability.MetricsService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.services.emrserverless.model.JobRunState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InternalEventsControllerTests {
+
+	private static final String APPLICATION_ID = "app-1";
+
+	private final JobsRepository repo = mock(JobsRepository.class);
+	private final AsyncJobsRepository asyncRepo = mock(AsyncJobsRepository.class);
+	private final EmrService emrService = mock(EmrService.class);
+	private final JobCompletionService completionService = mock(JobCompletionService.class);
+	private final EmrBatchResults batchResults = mock(EmrBatchResults.class);
+	private final EmrSubmissionQueue submissionQueue = mock(EmrSubmissionQueue.class);
+	private final InternalEventsController controller = new InternalEventsController(repo, asyncRepo, emrService,
+			completionService, batchResults, submissionQueue, new MetricsService(new SimpleMeterRegistry()), "raw");
+
+	InternalEventsControllerTests() {
+		when(emrService.isOwnApplication(APPLICATION_ID)).thenReturn(true);
+	}
+
+	@Test
+	void rejectsEventsThatAreNotEmrStateChanges() {
+		EmrJobRunStateChangeEvent event = new EmrJobRunStateChangeEvent("Object Created", "aws.s3", null,
+				new EmrJobRunStateChangeEvent.Detail("run-1", "job-1", APPLICATION_ID, "SUCCESS", null, null));
+
+		assertThat(controller.ingestEmrEvent(event).getStatusCode().value()).isEqualTo(400);
+	}
+
+	@Test
+	void rejectsEventsWithoutState() {
+		assertThat(controller.ingestEmrEvent(emrEvent("job-1", "run-1", null)).getStatusCode().value()).isEqualTo(400);
+	}
+
+	@Test
+	void ignoresOtherApplicationsAndRunsNotStartedByThisService() {
+		EmrJobRunStateChangeEvent otherApp = new EmrJobRunStateChangeEvent("EMR Serverless Job Run State Change",
+				"aws.emr-serverless", null,
+				new EmrJobRunStateChangeEvent.Detail("run-1", "job-1", "app-2", "SUCCESS", null, null));
+
+		assertThat(body(controller.ingestEmrEvent(otherApp))).containsEntry("outcome", "ignored");
+		assertThat(body(controller.ingestEmrEvent(emrEvent("adhoc-1", "run-1", "SUCCESS"))))
+				.containsEntry("outcome", "ignored");
+		verify(repo, never()).refreshJob(anyString());
+	}
+
+	@Test
+	void appliesTerminalStateReadPastTheCache() {
+		Job job = job("job-1", "run-1");
+		StatusTransition transition = new StatusTransition("job-1", JobStatus.SUCCEEDED, null, null);
+		when(repo.refreshJob("job-1")).thenReturn(Optional.of(job));
+		when(completionService.transitionFor(job, JobRunState.SUCCESS)).thenReturn(Optional.of(transition));
+		when(completionService.apply(List.of(transition), Map.of("job-1", job)))
+				.thenReturn(new TransitionBatchResult(List.of(transition), List.of(), List.of()));
+
+		ResponseEntity<?> response = controller.ingestEmrEvent(emrEvent("job-job-1", "run-1", "SUCCESS"));
+
+		assertThat(response.getStatusCode().value()).isEqualTo(200);
+		assertThat(body(response)).containsEntry("outcome", "applied").containsEntry("status", "SUCCEEDED");
+		verify(repo, never()).getJob(anyString());
+	}
+
+	@Test
+	void ignoresEventsFromAnEarlierRunOfTheJob() {
+		when(repo.refreshJob("job-1")).thenReturn(Optional.of(job("job-1", "run-2")));
+
+		ResponseEntity<?> response = controller.ingestEmrEvent(emrEvent("job-job-1", "run-1", "FAILED"));
+
+		assertThat(body(response)).containsEntry("outcome", "ignored");
+		verify(completionService, never()).apply(any(), anyMap());
+	}
+
+	@Test
+	void reportsDuplicateWhenJobIsAlreadyTerminal() {
+		Job job = job("job-1", "run-1");
+		StatusTransition transition = new StatusTransition("job-1", JobStatus.FAILED, null, null);
+		when(repo.refreshJob("job-1")).thenReturn(Optional.of(job));
+		when(completionService.transitionFor(job, JobRunState.FAILED)).thenReturn(Optional.of(transition));
+		when(completionService.apply(any(), anyMap()))
+				.thenReturn(new TransitionBatchResult(List.of(), List.of(transition), List.of()));
+
+		assertThat(body(controller.ingestEmrEvent(emrEvent("job-job-1", "run-1", "FAILED"))))
+				.containsEntry("outcome", "duplicate");
+	}
+
+	@Test
+	void asksForRetryWhenWriteIsNotCompleted() {
+		Job job = job("job-1", "run-1");
+		StatusTransition transition = new StatusTransition("job-1", JobStatus.FAILED, null, null);
+		when(repo.refreshJob("job-1")).thenReturn(Optional.of(job));
+		when(completionService.transitionFor(job, JobRunState.FAILED)).thenReturn(Optional.of(transition));
+		when(completionService.apply(any(), anyMap()))
+				.thenReturn(new TransitionBatchResult(List.of(), List.of(), List.of(transition)));
+
+		assertThat(controller.ingestEmrEvent(emrEvent("job-job-1", "run-1", "FAILED")).getStatusCode().value())
+				.isEqualTo(503);
+	}
+
+	@Test
+	void ignoresNonTerminalStates() {
+		Job job = job("job-1", "run-1");
+		when(repo.refreshJob("job-1")).thenReturn(Optional.of(job));
+		when(completionService.transitionFor(job, JobRunState.RUNNING)).thenReturn(Optional.empty());
+
+		assertThat(body(controller.ingestEmrEvent(emrEvent("job-job-1", "run-1", "RUNNING"))))
+				.containsEntry("outcome", "ignored");
+	}
+
+	@Test
+	void appliesBatchRunToJobsStillOnThatRun() {
+		Job first = job("a", "run-1");
+		Job second = job("b", "run-1");
+		Job resubmitted = job("c", "run-9");
+		StatusTransition firstDone = new StatusTransition("a", JobStatus.SUCCEEDED, null, null);
+		StatusTransition secondDone = new StatusTransition("b", JobStatus.FAILED, "bad input", null);
+		when(batchResults.jobIdsFor("b-1")).thenReturn(Optional.of(List.of("a", "b", "c")));
+		when(repo.refreshJobs(List.of("a", "b", "c")))
+				.thenReturn(new BatchGetResult(List.of(first, second, resubmitted), List.of()));
+		when(completionService.transitionFor(first, JobRunState.SUCCESS)).thenReturn(Optional.of(firstDone));
+		when(completionService.transitionFor(second, JobRunState.SUCCESS)).thenReturn(Optional.of(secondDone));
+		when(completionService.apply(eq(List.of(firstDone, secondDone)), eq(Map.of("a", first, "b", second))))
+				.thenReturn(new TransitionBatchResult(List.of(firstDone, secondDone), List.of(), List.of()));
+
+		ResponseEntity<?> response = controller.ingestEmrEvent(emrEvent("batch-b-1", "run-1", "SUCCESS"));
+
+		assertThat(body(response))
+				.containsEntry("batchId", "b-1")
+				.containsEntry("outcome", "applied")
+				.containsEntry("applied", 2);
+		verify(completionService, never()).transitionFor(eq(resubmitted), any());
+	}
+
+	@Test
+	void asksForRetryWhenBatchManifestOrResultsAreNotReadable() {
+		when(batchResults.jobIdsFor("b-1")).thenReturn(Optional.empty());
+
+		assertThat(controller.ingestEmrEvent(emrEvent("batch-b-1", "run-1", "SUCCESS")).getStatusCode().value())
+				.isEqualTo(503);
+
+		Job job = job("a", "run-1");
+		when(batchResults.jobIdsFor("b-1")).thenReturn(Optional.of(List.of("a")));
+		when(repo.refreshJobs(List.of("a"))).thenReturn(new BatchGetResult(List.of(job), List.of()));
+		when(completionService.transitionFor(job, JobRunState.SUCCESS)).thenReturn(Optional.empty());
+
+		assertThat(controller.ingestEmrEvent(emrEvent("batch-b-1", "run-1", "SUCCESS")).getStatusCode().value())
+				.isEqualTo(503);
+	}
+
+	@Test
+	void asksForRetryWhenBatchJobsAreNotRead() {
+		when(batchResults.jobIdsFor("b-1")).thenReturn(Optional.of(List.of("a", "b")));
+		when(repo.refreshJobs(List.of("a", "b"))).thenReturn(new BatchGetResult(List.of(), List.of("a", "b")));
+
+		assertThat(controller.ingestEmrEvent(emrEvent("batch-b-1", "run-1", "SUCCESS")).getStatusCode().value())
+				.isEqualTo(503);
+	}
+
+	@Test
+	void rejectsEventsThatAreNotS3ObjectCreated() {
+		S3ObjectCreatedEvent event = new S3ObjectCreatedEvent("Object Deleted", "aws.s3", null,
+				new S3ObjectCreatedEvent.Detail(new S3ObjectCreatedEvent.Bucket("raw"),
+						new S3ObjectCreatedEvent.S3Object("raw/jobs/job-1/input.csv", 10L, null, null), null));
+
+		assertThat(controller.ingestS3Event(event).join().getStatusCode().value()).isEqualTo(400);
+	}
+
+	@Test
+	void ignoresObjectsThatAreNotJobInputs() {
+		assertThat(body(controller.ingestS3Event(s3Event("other", "raw/jobs/job-1/input.csv", 10L)).join()))
+				.containsEntry("outcome", "ignored");
+		assertThat(body(controller.ingestS3Event(s3Event("raw", "uploads/job-1.csv", 10L)).join()))
+				.containsEntry("outcome", "ignored");
+		assertThat(body(controller.ingestS3Event(s3Event("raw", "raw/jobs/job-1", 10L)).join()))
+				.containsEntry("outcome", "ignored");
+		assertThat(body(controller.ingestS3Event(s3Event("raw", "raw/jobs/job-1/input.csv", 0L)).join()))
+				.containsEntry("outcome", "ignored");
+		verify(asyncRepo, never()).getJob(anyString());
+	}
+
+	@Test
+	void ignoresUploadsForUnknownJobsOrOtherKeys() {
+		when(asyncRepo.getJob("missing")).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+		when(asyncRepo.getJob("job-1")).thenReturn(CompletableFuture.completedFuture(
+				Optional.of(submitted("job-1", "raw/jobs/job-1/data.parquet"))));
+
+		assertThat(body(controller.ingestS3Event(s3Event("raw", "raw/jobs/missing/input.csv", 10L)).join()))
+				.containsEntry("outcome", "ignored");
+		assertThat(body(controller.ingestS3Event(s3Event("raw", "raw/jobs/job-1/input.csv", 10L)).join()))
+				.containsEntry("outcome", "ignored");
+		verify(asyncRepo, never()).startWithInput(anyString(), anyString(), any());
+	}
+
+	@Test
+	void startsJobFromItsCanonicalKeyWhenNoInputIsRecordedYet() {
+		Job started = job("job-1", null);
+		when(asyncRepo.getJob("job-1")).thenReturn(CompletableFuture.completedFuture(
+				Optional.of(submitted("job-1", null))));
+		when(asyncRepo.startWithInput("job-1", "raw/jobs/job-1/input.csv", "Input uploaded"))
+				.thenReturn(CompletableFuture.completedFuture(started));
+
+		ResponseEntity<?> response = controller.ingestS3Event(s3Event("raw", "raw/jobs/job-1/input.csv", 10L)).join();
+
+		assertThat(body(response)).containsEntry("outcome", "applied").containsEntry("status", "RUNNING");
+		verify(submissionQueue).enqueue(started);
+	}
+
+	@Test
+	void requeuesStartedJobThatHasNoRunOnDuplicateUpload() {
+		Job running = job("job-1", null);
+		when(asyncRepo.getJob("job-1")).thenReturn(CompletableFuture.completedFuture(
+				Optional.of(submitted("job-1", "raw/jobs/job-1/input.csv"))));
+		when(asyncRepo.startWithInput(anyString(), anyString(), any())).thenReturn(CompletableFuture.failedFuture(
+				new InvalidStatusTransitionException("job-1", JobStatus.RUNNING, running)));
+
+		ResponseEntity<?> response = controller.ingestS3Event(s3Event("raw", "raw/jobs/job-1/input.csv", 10L)).join();
+
+		assertThat(body(response)).containsEntry("outcome", "duplicate");
+		verify(submissionQueue).enqueue(running);
+	}
+
+	@Test
+	void doesNotRequeueJobThatAlreadyHasARun() {
+		when(asyncRepo.getJob("job-1")).thenReturn(CompletableFuture.completedFuture(
+				Optional.of(submitted("job-1", "raw/jobs/job-1/input.csv"))));
+		when(asyncRepo.startWithInput(anyString(), anyString(), any())).thenReturn(CompletableFuture.failedFuture(
+				new InvalidStatusTransitionException("job-1", JobStatus.RUNNING, job("job-1", "run-1"))));
+
+		assertThat(body(controller.ingestS3Event(s3Event("raw", "raw/jobs/job-1/input.csv", 10L)).join()))
+				.containsEntry("outcome", "duplicate");
+		verify(submissionQueue, never()).enqueue(any());
+	}
+
+	@Test
+	void propagatesWriteFailures() {
+		when(asyncRepo.getJob("job-1")).thenReturn(CompletableFuture.completedFuture(
+				Optional.of(submitted("job-1", null))));
+		when(asyncRepo.startWithInput(anyString(), anyString(), any()))
+				.thenReturn(CompletableFuture.failedFuture(new IllegalStateException("throttled")));
+
+		assertThatThrownBy(() -> controller.ingestS3Event(s3Event("raw", "raw/jobs/job-1/input.csv", 10L)).join())
+				.isInstanceOf(CompletionException.class)
+				.hasCauseInstanceOf(IllegalStateException.class);
+	}
+
+	@SuppressWarnings("unchecked")
+	static Map<String, Object> body(ResponseEntity<?> response) {
+		return (Map<String, Object>) response.getBody();
+	}
+
+	private static EmrJobRunStateChangeEvent emrEvent(String jobRunName, String jobRunId, String state) {
+		return new EmrJobRunStateChangeEvent("EMR Serverless Job Run State Change", "aws.emr-serverless", null,
+				new EmrJobRunStateChangeEvent.Detail(jobRunId, jobRunName, APPLICATION_ID, state, null, null));
+	}
+
+	private static S3ObjectCreatedEvent s3Event(String bucket, String key, Long size) {
+		return new S3ObjectCreatedEvent("Object Created", "aws.s3", null,
+				new S3ObjectCreatedEvent.Detail(new S3ObjectCreatedEvent.Bucket(bucket),
+						new S3ObjectCreatedEvent.S3Object(key, size, null, null), null));
+	}
+
+	private static Job submitted(String jobId, String inputS3Key) {
+		return new Job(jobId, "SUBMITTED", "1", inputS3Key, null, null, null, null, null, null,
+				null, null, null, null, null, null);
+	}
+
+	static Job job(String jobId, String emrJobRunId) {
+		return new Job(jobId, "RUNNING", "1", null, null, null, null, emrJobRunId, null, null,
+				null, null, null, null, null, null);
+	}
+
+}
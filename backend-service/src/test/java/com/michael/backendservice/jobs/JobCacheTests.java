@@ -0,0 +1,78 @@
+package com.michael.backendservice.jobs;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.michael.backendservice.jobs.JobCache.StatusAwareExpiry;
+import com.michael.backendservice.observability.MetricsService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobCacheTests {
+
+	private static final long ACTIVE = 5;
+	private static final long TERMINAL = 600;
+
+	private final StatusAwareExpiry expiry = new StatusAwareExpiry(ACTIVE, TERMINAL);
+
+	@Test
+	void nonTerminalJobsUseActiveTtl() {
+		assertThat(expiry.expireAfterCreate("a", job("a", "SUBMITTED", null), 0)).isEqualTo(ACTIVE);
+		assertThat(expiry.expireAfterCreate("a", job("a", "RUNNING", null), 0)).isEqualTo(ACTIVE);
+	}
+
+	@Test
+	void terminalJobsUseTerminalTtl() {
+		assertThat(expiry.expireAfterCreate("a", job("a", "FAILED", null), 0)).isEqualTo(TERMINAL);
+		assertThat(expiry.expireAfterCreate("a", job("a", "SUCCEEDED", 3), 0)).isEqualTo(TERMINAL);
+	}
+
+	@Test
+	void succeededJobWithoutOutputTotalsStaysShortLived() {
+		assertThat(expiry.expireAfterCreate("a", job("a", "SUCCEEDED", null), 0)).isEqualTo(ACTIVE);
+	}
+
+	@Test
+	void unknownOrMissingStatusUsesActiveTtl() {
+		assertThat(expiry.expireAfterCreate("a", job("a", null, null), 0)).isEqualTo(ACTIVE);
+		assertThat(expiry.expireAfterCreate("a", job("a", "CANCELLED", null), 0)).isEqualTo(ACTIVE);
+	}
+
+	@Test
+	void updateRecomputesTtlAndReadKeepsRemainingTime() {
+		assertThat(expiry.expireAfterUpdate("a", job("a", "FAILED", null), 0, ACTIVE)).isEqualTo(TERMINAL);
+		assertThat(expiry.expireAfterRead("a", job("a", "FAILED", null), 0, 42)).isEqualTo(42);
+	}
+
+	@Test
+	void activeEntriesExpireWhileTerminalEntriesRemain() throws InterruptedException {
+		JobCache cache = new JobCache(new MetricsService(new SimpleMeterRegistry()), 100,
+				Duration.ofMillis(50), Duration.ofMinutes(10));
+		cache.put(job("running", "RUNNING", null));
+		cache.put(job("failed", "FAILED", null));
+
+		Thread.sleep(120);
+
+		assertThat(cache.get("running")).isEmpty();
+		assertThat(cache.get("failed")).isPresent();
+	}
+
+	@Test
+	void ignoresJobsWithoutId() {
+		JobCache cache = new JobCache(new MetricsService(new SimpleMeterRegistry()), 100,
+				Duration.ofMinutes(1), Duration.ofMinutes(10));
+		cache.put(job(" ", "RUNNING", null));
+		cache.put(null);
+
+		assertThat(cache.get(" ")).isEmpty();
+	}
+
+	private static Job job(String jobId, String status, Integer outputFileCount) {
+		return new Job(jobId, status, "1", null, null, null, null, null, null, null,
+				null, null, null, outputFileCount, null, null);
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.michael.backendservice.jobs;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+import static com.michael.backendservice.jobs.JobsRepositoryTransitionTests.item;
+import static com.michael.backendservice.jobs.JobsRepositoryTransitionTests.repository;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JobProjectionTests {
+
+	@Test
+	void alwaysIncludesIdentifyingAttributesInAttributeOrder() {
+		JobProjection projection = JobProjection.of(Set.of("emrJobRunId", "inputS3Key"));
+
+		assertThat(projection.expression()).isEqualTo("#jobId, #status, #createdAt, #inputS3Key, #emrJobRunId");
+		assertThat(projection.names()).containsOnly(
+				Map.entry("#jobId", "jobId"),
+				Map.entry("#status", "status"),
+				Map.entry("#createdAt", "createdAt"),
+				Map.entry("#inputS3Key", "inputS3Key"),
+				Map.entry("#emrJobRunId", "emrJobRunId"));
+	}
+
+	@Test
+	void rejectsUnknownFields() {
+		assertThatThrownBy(() -> JobProjection.of(Set.of("status", "password")))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("password");
+	}
+
+	@Test
+	void mapsProjectedItemWithUnrequestedFieldsAsNull() {
+		Map<String, AttributeValue> item = item("job-1", "RUNNING", "t1");
+		item.put("priority", AttributeValue.fromN("7"));
+		item.put("outputSizeBytes", AttributeValue.fromN("12345678901"));
+
+		Job job = JobItems.toJob(item);
+
+		assertThat(job.jobId()).isEqualTo("job-1");
+		assertThat(job.status()).isEqualTo("RUNNING");
+		assertThat(job.priority()).isEqualTo(7);
+		assertThat(job.outputSizeBytes()).isEqualTo(12345678901L);
+		assertThat(job.inputS3Key()).isNull();
+		assertThat(job.emrJobRunId()).isNull();
+		assertThat(job.outputFileCount()).isNull();
+	}
+
+	@Test
+	void mapsEmptyItemToDefaults() {
+		Job job = JobItems.toJob(Map.of());
+
+		assertThat(job.jobId()).isEmpty();
+		assertThat(job.status()).isEqualTo("UNKNOWN");
+		assertThat(job.createdAt()).isEmpty();
+	}
+
+	@Test
+	void listJobsRequestsOnlyProjectedAttributes() {
+		DynamoDbClient ddb = mock(DynamoDbClient.class);
+		when(ddb.query(any(QueryRequest.class))).thenReturn(QueryResponse.builder().build());
+		JobProjection projection = JobProjection.of(Set.of("updatedAt"));
+
+		repository(ddb).listJobs(10, null, projection);
+
+		ArgumentCaptor<QueryRequest> request = ArgumentCaptor.forClass(QueryRequest.class);
+		verify(ddb).query(request.capture());
+		assertThat(request.getValue().projectionExpression()).isEqualTo("#jobId, #status, #createdAt, #updatedAt");
+		assertThat(request.getValue().expressionAttributeNames()).isEqualTo(projection.names());
+	}
+
+}
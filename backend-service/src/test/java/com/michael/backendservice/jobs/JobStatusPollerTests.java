@@ -0,0 +1,239 @@
+package com.michael.backendservice.jobs;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.michael.backendservice.cluster.PollerMembership;
+import com.michael.backendservice.observability.MetricsService;
+import com.michael.backendservice.resilience.CircuitBreakers;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.services.emrserverless.model.JobRun;
+import software.amazon.awssdk.services.emrserverless.model.JobRunState;
+import software.amazon.awssdk.services.emrserverless.model.JobRunSummary;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JobStatusPollerTests {
+
+	private static final String STARTED = Instant.now().toString();
+
+	private final JobsRepository repo = mock(JobsRepository.class);
+	private final EmrService emrService = mock(EmrService.class);
+	private final JobCompletionService completionService = mock(JobCompletionService.class);
+	private final AdaptivePollScheduler adaptiveScheduler = mock(AdaptivePollScheduler.class);
+	private final PollerMembership membership = mock(PollerMembership.class);
+	private final MetricsService metrics = new MetricsService(new SimpleMeterRegistry());
+	private final CircuitBreakers circuitBreakers = new CircuitBreakers(metrics, 1, Duration.ofMinutes(1));
+
+	JobStatusPollerTests() {
+		when(repo.activeShardCount()).thenReturn(8);
+		when(membership.ownedShards(8)).thenReturn(IntStream.range(0, 8).boxed().toList());
+		when(membership.owns(anyString())).thenReturn(true);
+		when(completionService.transitionFor(any(Job.class), any(JobRunState.class))).thenAnswer(invocation -> {
+			Job job = invocation.getArgument(0);
+			return invocation.getArgument(1) == JobRunState.SUCCESS
+					? Optional.of(new StatusTransition(job.jobId(), JobStatus.SUCCEEDED, null, null))
+					: Optional.empty();
+		});
+		when(completionService.apply(anyList(), anyMap())).thenAnswer(invocation ->
+				new TransitionBatchResult(invocation.getArgument(0), List.of(), List.of()));
+	}
+
+	@Test
+	void checksJobsConcurrentlyUpToTheConcurrencyLimit() {
+		running(job("job-1"), job("job-2"), job("job-3"), job("job-4"), job("job-5"), job("job-6"));
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		when(emrService.getJobRun(anyString())).thenAnswer(invocation -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			Thread.sleep(50);
+			inFlight.decrementAndGet();
+			return run(JobRunState.RUNNING);
+		});
+
+		poller("get", 2).pollRunningJobs();
+
+		verify(emrService, times(6)).getJobRun(anyString());
+		assertThat(maxInFlight).hasValue(2);
+	}
+
+	@Test
+	void flushesCompletionsOfTheCycleInOneBatch() {
+		running(job("job-1"), job("job-2"), job("job-3"));
+		when(emrService.getJobRun("run-job-1")).thenReturn(run(JobRunState.SUCCESS));
+		when(emrService.getJobRun("run-job-2")).thenReturn(run(JobRunState.RUNNING));
+		when(emrService.getJobRun("run-job-3")).thenReturn(run(JobRunState.SUCCESS));
+
+		poller("get", 4).pollRunningJobs();
+
+		ArgumentCaptor<List<StatusTransition>> applied = transitions();
+		verify(completionService).apply(applied.capture(), anyMap());
+		assertThat(applied.getValue()).extracting(StatusTransition::jobId).containsExactlyInAnyOrder("job-1", "job-3");
+	}
+
+	@Test
+	void failedLookupDoesNotStopTheCycle() {
+		running(job("job-1"), job("job-2"), job("job-3"));
+		when(emrService.getJobRun("run-job-1")).thenThrow(new IllegalStateException("boom"));
+		when(emrService.getJobRun("run-job-2")).thenReturn(null);
+		when(emrService.getJobRun("run-job-3")).thenReturn(run(JobRunState.SUCCESS));
+
+		poller("get", 4).pollRunningJobs();
+
+		ArgumentCaptor<List<StatusTransition>> applied = transitions();
+		verify(completionService).apply(applied.capture(), anyMap());
+		assertThat(applied.getValue()).extracting(StatusTransition::jobId).containsExactly("job-3");
+	}
+
+	@Test
+	void skipsJobsWithoutRun() {
+		running(new Job("job-1", "RUNNING", "t0", null, null, null, null, null, null, null, null, null, null, null,
+				null, null));
+
+		poller("get", 4).pollRunningJobs();
+
+		verify(emrService, never()).getJobRun(anyString());
+		verify(completionService, never()).apply(anyList(), anyMap());
+	}
+
+	@Test
+	void skipsCycleWhileEmrCircuitIsOpen() {
+		circuitBreakers.forDependency(CircuitBreakers.EMR).onFailure();
+
+		poller("get", 4).pollRunningJobs();
+
+		verify(repo, never()).getJobsByStatus(any(), any(), anyList());
+	}
+
+	@Test
+	void adaptiveModeHandsJobsToTheScheduler() {
+		running(job("job-1"), job("job-2"));
+
+		poller("adaptive", 4).pollRunningJobs();
+
+		verify(adaptiveScheduler).sync(List.of(job("job-1"), job("job-2")));
+		verify(emrService, never()).getJobRun(anyString());
+	}
+
+	@Test
+	void listModeJoinsTerminalRunsToJobsWithoutGetJobRun() {
+		running(job("job-1"), job("job-2"));
+		when(emrService.listTerminalJobRuns(any(Instant.class)))
+				.thenReturn(Map.of("run-job-1", summary("run-job-1", JobRunState.SUCCESS, Instant.now())));
+
+		poller("list", 4).pollRunningJobs();
+
+		verify(emrService).listTerminalJobRuns(Instant.parse(STARTED));
+		verify(emrService, never()).getJobRun(anyString());
+		verify(emrService, never()).listActiveJobRunIds();
+		ArgumentCaptor<List<StatusTransition>> applied = transitions();
+		verify(completionService).apply(applied.capture(), anyMap());
+		assertThat(applied.getValue()).extracting(StatusTransition::jobId).containsExactly("job-1");
+	}
+
+	@Test
+	void listModeChecksJobsBeforeTheHighWaterMarkAgainstActiveRuns() {
+		Job earlier = job("job-1", Instant.now().minus(Duration.ofMinutes(10)).toString());
+		running(earlier);
+		when(emrService.listTerminalJobRuns(any(Instant.class)))
+				.thenReturn(Map.of("run-other", summary("run-other", JobRunState.SUCCESS, Instant.now())));
+		when(emrService.listActiveJobRunIds()).thenReturn(Set.of("run-job-1"));
+		JobStatusPoller poller = poller("list", 4);
+
+		poller.pollRunningJobs();
+		poller.pollRunningJobs();
+
+		// The first listing moved the mark past job-1's creation, so the second cycle checks it against active runs
+		verify(emrService, times(1)).listTerminalJobRuns(any(Instant.class));
+		verify(emrService).listActiveJobRunIds();
+		verify(emrService, never()).getJobRun(anyString());
+	}
+
+	@Test
+	void listModeChecksOldJobsIndividuallyOnceTheirRunIsNoLongerActive() {
+		running(job("job-1", Instant.now().minus(Duration.ofDays(2)).toString()),
+				job("job-2", Instant.now().minus(Duration.ofDays(2)).toString()));
+		when(emrService.listActiveJobRunIds()).thenReturn(Set.of("run-job-2"));
+		when(emrService.getJobRun("run-job-1")).thenReturn(run(JobRunState.SUCCESS));
+
+		poller("list", 4).pollRunningJobs();
+
+		verify(emrService, never()).listTerminalJobRuns(any());
+		verify(emrService).getJobRun("run-job-1");
+		verify(emrService, never()).getJobRun("run-job-2");
+	}
+
+	@Test
+	void listModeFallsBackToGetJobRunWhenListingFails() {
+		running(job("job-1"), job("job-2"));
+		when(emrService.listTerminalJobRuns(any(Instant.class))).thenReturn(null);
+		when(emrService.getJobRun(anyString())).thenReturn(run(JobRunState.RUNNING));
+
+		poller("list", 4).pollRunningJobs();
+
+		verify(emrService, times(2)).getJobRun(anyString());
+	}
+
+	@Test
+	void listModeRunsOnlyOnTheReplicaOwningTheSweep() {
+		when(membership.owns(anyString())).thenReturn(false);
+
+		poller("list", 4).pollRunningJobs();
+
+		verify(repo, never()).getJobsByStatus(any(), any(), anyList());
+	}
+
+	private JobStatusPoller poller(String mode, int concurrency) {
+		return new JobStatusPoller(repo, emrService, completionService, metrics, adaptiveScheduler, membership,
+				circuitBreakers, concurrency, mode, Duration.ofHours(24), Duration.ofMinutes(2));
+	}
+
+	private void running(Job... jobs) {
+		when(repo.getJobsByStatus(eq(JobStatus.RUNNING), eq(JobProjection.POLLER), anyList()))
+				.thenReturn(new ArrayList<>(List.of(jobs)));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ArgumentCaptor<List<StatusTransition>> transitions() {
+		return ArgumentCaptor.forClass(List.class);
+	}
+
+	private static Job job(String jobId) {
+		return job(jobId, STARTED);
+	}
+
+	private static Job job(String jobId, String createdAt) {
+		return new Job(jobId, "RUNNING", createdAt, null, null, null, null, "run-" + jobId, null, null, null, null,
+				null, null, null, null);
+	}
+
+	private static JobRunSummary summary(String id, JobRunState state, Instant updatedAt) {
+		return JobRunSummary.builder().id(id).state(state).updatedAt(updatedAt).build();
+	}
+
+	private static JobRun run(JobRunState state) {
+		return JobRun.builder().state(state).updatedAt(Instant.now()).build();
+	}
+
+}
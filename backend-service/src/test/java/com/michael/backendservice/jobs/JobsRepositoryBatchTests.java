@@ -0,0 +1,196 @@
+package com.michael.backendservice.jobs;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import static com.michael.backendservice.jobs.JobsRepositoryTransitionTests.item;
+import static com.michael.backendservice.jobs.JobsRepositoryTransitionTests.repository;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JobsRepositoryBatchTests {
+
+	private final DynamoDbClient ddb = mock(DynamoDbClient.class);
+	private final JobsRepository repository = repository(ddb);
+
+	@Test
+	void writesJobsInChunksOf25AndCachesThem() {
+		when(ddb.batchWriteItem(any(BatchWriteItemRequest.class))).thenReturn(BatchWriteItemResponse.builder().build());
+
+		BatchCreateResult result = repository.createJobs(requests(60));
+
+		ArgumentCaptor<BatchWriteItemRequest> requests = ArgumentCaptor.forClass(BatchWriteItemRequest.class);
+		verify(ddb, times(3)).batchWriteItem(requests.capture());
+		assertThat(requests.getAllValues()).extracting(request -> request.requestItems().get("jobs").size())
+				.containsExactlyInAnyOrder(25, 25, 10);
+		assertThat(result.failures()).isEmpty();
+		assertThat(result.created()).extracting(Job::jobId).startsWith("job-0", "job-1", "job-2").hasSize(60);
+
+		assertThat(repository.getJob("job-42")).isPresent();
+		verify(ddb, never()).getItem(any(GetItemRequest.class));
+	}
+
+	@Test
+	void retriesUnprocessedItems() {
+		when(ddb.batchWriteItem(any(BatchWriteItemRequest.class))).thenAnswer(invocation -> {
+			List<WriteRequest> sent = invocation.<BatchWriteItemRequest>getArgument(0).requestItems().get("jobs");
+			return sent.size() > 1
+					? BatchWriteItemResponse.builder().unprocessedItems(Map.of("jobs", sent.subList(1, sent.size()))).build()
+					: BatchWriteItemResponse.builder().build();
+		});
+
+		BatchCreateResult result = repository.createJobs(requests(3));
+
+		ArgumentCaptor<BatchWriteItemRequest> requests = ArgumentCaptor.forClass(BatchWriteItemRequest.class);
+		verify(ddb, times(3)).batchWriteItem(requests.capture());
+		assertThat(requests.getAllValues()).extracting(request -> request.requestItems().get("jobs").size())
+				.containsExactly(3, 2, 1);
+		assertThat(result.created()).hasSize(3);
+		assertThat(result.failures()).isEmpty();
+	}
+
+	@Test
+	void reportsItemsStillUnprocessedAfterLastAttempt() {
+		when(ddb.batchWriteItem(any(BatchWriteItemRequest.class))).thenAnswer(invocation -> {
+			List<WriteRequest> sent = invocation.<BatchWriteItemRequest>getArgument(0).requestItems().get("jobs");
+			return BatchWriteItemResponse.builder().unprocessedItems(Map.of("jobs", sent.subList(0, 1))).build();
+		});
+
+		BatchCreateResult result = repository.createJobs(requests(2));
+
+		verify(ddb, times(5)).batchWriteItem(any(BatchWriteItemRequest.class));
+		assertThat(result.created()).extracting(Job::jobId).containsExactly("job-1");
+		assertThat(result.failures()).containsOnlyKeys("job-0");
+	}
+
+	@Test
+	void reportsWholeChunkWhenWriteFails() {
+		when(ddb.batchWriteItem(any(BatchWriteItemRequest.class))).thenThrow(new IllegalStateException("boom"));
+		when(ddb.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder().build());
+
+		BatchCreateResult result = repository.createJobs(requests(2));
+
+		assertThat(result.created()).isEmpty();
+		assertThat(result.failures()).containsEntry("job-0", "boom").containsEntry("job-1", "boom");
+		assertThat(repository.getJob("job-0")).isEmpty();
+	}
+
+	@Test
+	void readsDeduplicatedKeysInChunksOf100AndKeepsRequestOrder() {
+		when(ddb.batchGetItem(any(BatchGetItemRequest.class))).thenAnswer(invocation -> found(invocation.getArgument(0)));
+		List<String> jobIds = new ArrayList<>();
+		for (int i = 149; i >= 0; i--) {
+			jobIds.add("job-" + i);
+		}
+		jobIds.add("job-149");
+
+		BatchGetResult result = repository.getJobs(jobIds, true, null);
+
+		ArgumentCaptor<BatchGetItemRequest> requests = ArgumentCaptor.forClass(BatchGetItemRequest.class);
+		verify(ddb, times(2)).batchGetItem(requests.capture());
+		assertThat(requests.getAllValues()).extracting(request -> request.requestItems().get("jobs").keys().size())
+				.containsExactlyInAnyOrder(100, 50);
+		assertThat(requests.getAllValues()).allMatch(request -> request.requestItems().get("jobs").consistentRead());
+		assertThat(result.jobs()).extracting(Job::jobId).containsExactlyElementsOf(jobIds.subList(0, 150));
+		assertThat(result.unprocessedJobIds()).isEmpty();
+	}
+
+	@Test
+	void servesConsistentFullReadsFromCache() {
+		when(ddb.batchGetItem(any(BatchGetItemRequest.class))).thenAnswer(invocation -> found(invocation.getArgument(0)));
+		repository.getJobs(List.of("job-1"), true, null);
+
+		BatchGetResult result = repository.getJobs(List.of("job-1", "job-2"), true, null);
+
+		assertThat(result.jobs()).extracting(Job::jobId).containsExactly("job-1", "job-2");
+		ArgumentCaptor<BatchGetItemRequest> requests = ArgumentCaptor.forClass(BatchGetItemRequest.class);
+		verify(ddb, times(2)).batchGetItem(requests.capture());
+		assertThat(requests.getAllValues().get(1).requestItems().get("jobs").keys())
+				.extracting(key -> key.get("jobId").s())
+				.containsExactly("job-2");
+	}
+
+	@Test
+	void eventuallyConsistentAndProjectedReadsBypassTheCache() {
+		when(ddb.batchGetItem(any(BatchGetItemRequest.class))).thenAnswer(invocation -> found(invocation.getArgument(0)));
+		repository.getJobs(List.of("job-1"), true, null);
+
+		repository.getJobs(List.of("job-1"), false, null);
+		repository.getJobs(List.of("job-1"), true, Set.of("status"));
+
+		ArgumentCaptor<BatchGetItemRequest> requests = ArgumentCaptor.forClass(BatchGetItemRequest.class);
+		verify(ddb, times(3)).batchGetItem(requests.capture());
+		KeysAndAttributes eventual = requests.getAllValues().get(1).requestItems().get("jobs");
+		assertThat(eventual.consistentRead()).isFalse();
+		KeysAndAttributes projected = requests.getAllValues().get(2).requestItems().get("jobs");
+		assertThat(projected.projectionExpression()).isEqualTo("#jobId, #status, #createdAt");
+	}
+
+	@Test
+	void retriesUnprocessedKeysAndReportsTheRest() {
+		when(ddb.batchGetItem(any(BatchGetItemRequest.class))).thenAnswer(invocation -> {
+			KeysAndAttributes sent = invocation.<BatchGetItemRequest>getArgument(0).requestItems().get("jobs");
+			Map<String, AttributeValue> first = sent.keys().get(0);
+			List<Map<String, AttributeValue>> rest = sent.keys().subList(1, sent.keys().size());
+			BatchGetItemResponse.Builder response = BatchGetItemResponse.builder();
+			if (first.get("jobId").s().equals("job-0")) {
+				// job-0 is never returned
+				response.unprocessedKeys(Map.of("jobs", sent));
+			} else {
+				response.responses(Map.of("jobs", List.of(item(first.get("jobId").s(), "SUBMITTED", "t1"))));
+				if (!rest.isEmpty()) {
+					response.unprocessedKeys(Map.of("jobs", sent.toBuilder().keys(rest).build()));
+				}
+			}
+			return response.build();
+		});
+
+		BatchGetResult found = repository.getJobs(List.of("job-1", "job-2"), true, null);
+		BatchGetResult missing = repository.getJobs(List.of("job-0"), true, null);
+
+		assertThat(found.jobs()).extracting(Job::jobId).containsExactly("job-1", "job-2");
+		assertThat(found.unprocessedJobIds()).isEmpty();
+		assertThat(missing.jobs()).isEmpty();
+		assertThat(missing.unprocessedJobIds()).containsExactly("job-0");
+		verify(ddb, times(2 + 5)).batchGetItem(any(BatchGetItemRequest.class));
+	}
+
+	private static BatchGetItemResponse found(BatchGetItemRequest request) {
+		List<Map<String, AttributeValue>> items = new ArrayList<>();
+		for (Map<String, AttributeValue> key : request.requestItems().get("jobs").keys()) {
+			items.add(item(key.get("jobId").s(), "SUBMITTED", "t1"));
+		}
+		return BatchGetItemResponse.builder().responses(Map.of("jobs", items)).build();
+	}
+
+	private static Map<String, CreateJobRequest> requests(int count) {
+		Map<String, CreateJobRequest> requests = new LinkedHashMap<>();
+		for (int i = 0; i < count; i++) {
+			requests.put("job-" + i, new CreateJobRequest("raw/job-" + i + "/input.csv", null, null));
+		}
+		return requests;
+	}
+
+}
@@ -0,0 +1,113 @@
+package com.michael.backendservice.jobs;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.michael.backendservice.jobs.JobsRepository.ShardPage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobsRepositoryMergeTests {
+
+	@Test
+	void mergesShardsNewestFirst() {
+		List<ShardPage> pages = List.of(
+				new ShardPage("ALL#0", List.of(job("a4", "4"), job("a1", "1")), false),
+				new ShardPage("ALL#1", List.of(job("b5", "5"), job("b3", "3"), job("b2", "2")), false));
+
+		JobsPage page = JobsRepository.mergeShardPages(pages, startPositions("ALL#0", "ALL#1"), null);
+
+		assertThat(page.items()).extracting(Job::jobId).containsExactly("b5", "a4", "b3", "b2", "a1");
+		assertThat(page.lastEvaluatedKey()).isNull();
+	}
+
+	@Test
+	void breaksCreatedAtTiesByJobId() {
+		List<ShardPage> pages = List.of(
+				new ShardPage("ALL#0", List.of(job("a", "1")), false),
+				new ShardPage("ALL#1", List.of(job("b", "1")), false));
+
+		JobsPage page = JobsRepository.mergeShardPages(pages, startPositions("ALL#0", "ALL#1"), null);
+
+		assertThat(page.items()).extracting(Job::jobId).containsExactly("b", "a");
+	}
+
+	@Test
+	void limitRecordsPositionOfLastConsumedItemPerShard() {
+		List<ShardPage> pages = List.of(
+				new ShardPage("ALL", List.of(job("x1", "1")), false),
+				new ShardPage("ALL#0", List.of(job("a6", "6"), job("a3", "3")), false),
+				new ShardPage("ALL#1", List.of(job("b5", "5"), job("b4", "4")), true));
+
+		JobsPage page = JobsRepository.mergeShardPages(pages, startPositions("ALL", "ALL#0", "ALL#1"), 3);
+
+		assertThat(page.items()).extracting(Job::jobId).containsExactly("a6", "b5", "b4");
+		assertThat(page.lastEvaluatedKey()).containsExactly(
+				Map.entry("ALL", ""),
+				Map.entry("ALL#0", "6|a6"),
+				Map.entry("ALL#1", "4|b4"));
+	}
+
+	@Test
+	void keepsIncomingPositionForShardsNothingWasTakenFrom() {
+		Map<String, String> positions = new LinkedHashMap<>();
+		positions.put("ALL#0", "9|a9");
+		positions.put("ALL#1", "8|b8");
+		List<ShardPage> pages = List.of(
+				new ShardPage("ALL#0", List.of(job("a7", "7")), false),
+				new ShardPage("ALL#1", List.of(job("b2", "2")), false));
+
+		JobsPage page = JobsRepository.mergeShardPages(pages, positions, 1);
+
+		assertThat(page.items()).extracting(Job::jobId).containsExactly("a7");
+		assertThat(page.lastEvaluatedKey()).containsExactly(Map.entry("ALL#1", "8|b8"));
+	}
+
+	@Test
+	void stopsAtBoundaryOfTruncatedShard() {
+		// ALL#0 may still hold items between 8 and 5 that were not returned
+		List<ShardPage> pages = List.of(
+				new ShardPage("ALL#0", List.of(job("a10", "10"), job("a8", "08")), true),
+				new ShardPage("ALL#1", List.of(job("b9", "09"), job("b7", "07"), job("b5", "05")), false));
+
+		JobsPage page = JobsRepository.mergeShardPages(pages, startPositions("ALL#0", "ALL#1"), null);
+
+		assertThat(page.items()).extracting(Job::jobId).containsExactly("a10", "b9", "a8");
+		assertThat(page.lastEvaluatedKey()).containsExactly(
+				Map.entry("ALL#0", "08|a8"),
+				Map.entry("ALL#1", "09|b9"));
+	}
+
+	@Test
+	void usesNewestBoundaryAmongTruncatedShards() {
+		List<ShardPage> pages = List.of(
+				new ShardPage("ALL#0", List.of(job("a9", "09"), job("a4", "04")), true),
+				new ShardPage("ALL#1", List.of(job("b8", "08"), job("b6", "06")), true),
+				new ShardPage("ALL#2", List.of(job("c7", "07"), job("c5", "05")), false));
+
+		JobsPage page = JobsRepository.mergeShardPages(pages, startPositions("ALL#0", "ALL#1", "ALL#2"), 10);
+
+		assertThat(page.items()).extracting(Job::jobId).containsExactly("a9", "b8", "c7", "b6");
+		assertThat(page.lastEvaluatedKey()).containsExactly(
+				Map.entry("ALL#0", "09|a9"),
+				Map.entry("ALL#1", "06|b6"),
+				Map.entry("ALL#2", "07|c7"));
+	}
+
+	private static Map<String, String> startPositions(String... partitions) {
+		Map<String, String> positions = new LinkedHashMap<>();
+		for (String partition : partitions) {
+			positions.put(partition, "");
+		}
+		return positions;
+	}
+
+	private static Job job(String jobId, String createdAt) {
+		return new Job(jobId, "RUNNING", createdAt, null, null, null, null, null, null, null,
+				null, null, null, null, null, null);
+	}
+
+}
@@ -0,0 +1,102 @@
+package com.michael.backendservice.jobs;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import static com.michael.backendservice.jobs.JobsRepositoryTransitionTests.item;
+import static com.michael.backendservice.jobs.JobsRepositoryTransitionTests.repository;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JobsRepositoryStatusQueryTests {
+
+	private final DynamoDbClient ddb = mock(DynamoDbClient.class);
+	private final JobsRepository repository = repository(ddb);
+
+	@Test
+	void queriesEveryActiveShardAndTheLegacyPartition() {
+		when(ddb.query(any(QueryRequest.class))).thenAnswer(invocation -> {
+			String value = invocation.<QueryRequest>getArgument(0).expressionAttributeValues().get(":status").s();
+			return QueryResponse.builder().items(item("job-" + value, "RUNNING", "t1")).build();
+		});
+
+		List<Job> jobs = repository.getJobsByStatus(JobStatus.RUNNING);
+
+		ArgumentCaptor<QueryRequest> requests = ArgumentCaptor.forClass(QueryRequest.class);
+		verify(ddb, times(9)).query(requests.capture());
+		assertThat(requests.getAllValues()).allSatisfy(request -> {
+			assertThat(request.indexName()).isEqualTo("activeStatus-createdAt-index");
+			assertThat(request.keyConditionExpression()).isEqualTo("#activeStatus = :status");
+		});
+		assertThat(requests.getAllValues()).extracting(request -> request.expressionAttributeValues().get(":status").s())
+				.containsExactlyInAnyOrder("RUNNING", "RUNNING#0", "RUNNING#1", "RUNNING#2", "RUNNING#3",
+						"RUNNING#4", "RUNNING#5", "RUNNING#6", "RUNNING#7");
+		assertThat(jobs).hasSize(9);
+		verify(ddb, never()).scan(any(ScanRequest.class));
+	}
+
+	@Test
+	void followsQueryPagesToTheEnd() {
+		Map<String, AttributeValue> lastKey = Map.of("jobId", AttributeValue.fromS("job-1"));
+		when(ddb.query(any(QueryRequest.class))).thenReturn(
+				QueryResponse.builder().items(item("job-1", "SUBMITTED", "t1")).lastEvaluatedKey(lastKey).build(),
+				QueryResponse.builder().items(item("job-2", "SUBMITTED", "t1")).build());
+
+		List<Job> jobs = repository.getJobsByStatus(JobStatus.SUBMITTED, null, List.of(3));
+
+		assertThat(jobs).extracting(Job::jobId).containsExactly("job-1", "job-2");
+		verify(ddb).query(argThat((QueryRequest request) -> lastKey.equals(request.exclusiveStartKey())));
+	}
+
+	@Test
+	void appliesProjectionToTheIndexQuery() {
+		when(ddb.query(any(QueryRequest.class))).thenReturn(QueryResponse.builder().build());
+
+		repository.getJobsByStatus(JobStatus.RUNNING, JobProjection.POLLER, List.of(2));
+
+		ArgumentCaptor<QueryRequest> request = ArgumentCaptor.forClass(QueryRequest.class);
+		verify(ddb).query(request.capture());
+		assertThat(request.getValue().projectionExpression()).isEqualTo(JobProjection.POLLER.expression());
+		assertThat(request.getValue().expressionAttributeNames())
+				.containsEntry("#activeStatus", "activeStatus")
+				.containsEntry("#emrJobRunId", "emrJobRunId");
+	}
+
+	@Test
+	void scansForTerminalStatuses() {
+		when(ddb.scan(any(ScanRequest.class)))
+				.thenReturn(ScanResponse.builder().items(item("job-1", "FAILED", "t1")).build());
+
+		List<Job> jobs = repository.getJobsByStatus(JobStatus.FAILED);
+
+		assertThat(jobs).extracting(Job::jobId).containsExactly("job-1");
+		verify(ddb).scan(argThat((ScanRequest request) -> request.filterExpression().equals("#status = :status")
+				&& request.expressionAttributeValues().get(":status").s().equals("FAILED")));
+		verify(ddb, never()).query(any(QueryRequest.class));
+	}
+
+	@Test
+	void rejectsTerminalStatusForShardQueries() {
+		assertThatThrownBy(() -> repository.getJobsByStatus(JobStatus.SUCCEEDED, null, Set.of(0)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+}
@@ -0,0 +1,232 @@
+package com.michael.backendservice.jobs;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.michael.backendservice.observability.MetricsService;
+import com.michael.backendservice.resilience.Hedger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JobsRepositoryTransitionTests {
+
+	private final DynamoDbClient ddb = mock(DynamoDbClient.class);
+	private final JobsRepository repository = repository(ddb);
+
+	@Test
+	void appliesTransitionInOneConditionalUpdateAndCachesResult() {
+		when(ddb.updateItem(any(UpdateItemRequest.class)))
+				.thenReturn(UpdateItemResponse.builder().attributes(item("job-1", "SUCCEEDED", "t2")).build());
+
+		Job job = repository.transitionStatus("job-1", JobStatus.SUCCEEDED, null, "out/job-1");
+
+		ArgumentCaptor<UpdateItemRequest> request = ArgumentCaptor.forClass(UpdateItemRequest.class);
+		verify(ddb).updateItem(request.capture());
+		assertThat(request.getValue().conditionExpression())
+				.isEqualTo("attribute_exists(#jobId) AND #status IN (:fromRUNNING)");
+		assertThat(request.getValue().updateExpression()).contains("#outputS3Key = :outputS3Key", "REMOVE #activeStatus");
+		assertThat(job.status()).isEqualTo("SUCCEEDED");
+
+		assertThat(repository.getJob("job-1")).contains(job);
+		verify(ddb, never()).getItem(any(GetItemRequest.class));
+	}
+
+	@Test
+	void reportsCurrentJobWhenConditionFails() {
+		when(ddb.updateItem(any(UpdateItemRequest.class))).thenThrow(ConditionalCheckFailedException.builder()
+				.item(item("job-1", "FAILED", "t1"))
+				.build());
+
+		InvalidStatusTransitionException e = catchThrowableOfType(InvalidStatusTransitionException.class,
+				() -> repository.transitionStatus("job-1", JobStatus.SUCCEEDED, null, null));
+
+		assertThat(e.jobExists()).isTrue();
+		assertThat(e.getCurrentJob().status()).isEqualTo("FAILED");
+		assertThat(e.getAttemptedStatus()).isEqualTo(JobStatus.SUCCEEDED);
+	}
+
+	@Test
+	void reportsMissingJobWhenConditionFailsWithoutItem() {
+		when(ddb.updateItem(any(UpdateItemRequest.class))).thenThrow(ConditionalCheckFailedException.builder().build());
+
+		InvalidStatusTransitionException e = catchThrowableOfType(InvalidStatusTransitionException.class,
+				() -> repository.transitionStatus("missing", JobStatus.RUNNING, null, null));
+
+		assertThat(e.jobExists()).isFalse();
+	}
+
+	@Test
+	void treatsRetryThatFailsAgainstItsOwnWriteAsApplied() {
+		when(ddb.updateItem(any(UpdateItemRequest.class))).thenAnswer(invocation -> {
+			// The first attempt was applied but its response lost; the SDK retry sees our own write
+			Map<String, AttributeValue> values = invocation.<UpdateItemRequest>getArgument(0).expressionAttributeValues();
+			throw ConditionalCheckFailedException.builder()
+					.item(item("job-1", values.get(":status").s(), values.get(":updatedAt").s()))
+					.build();
+		});
+
+		Job job = repository.transitionStatus("job-1", JobStatus.SUCCEEDED, null, null);
+
+		assertThat(job.status()).isEqualTo("SUCCEEDED");
+	}
+
+	@Test
+	void rejectsOtherWriterWithSameTargetStatus() {
+		when(ddb.updateItem(any(UpdateItemRequest.class))).thenThrow(ConditionalCheckFailedException.builder()
+				.item(item("job-1", "SUCCEEDED", "2020-01-01T00:00:00Z"))
+				.build());
+
+		InvalidStatusTransitionException e = catchThrowableOfType(InvalidStatusTransitionException.class,
+				() -> repository.transitionStatus("job-1", JobStatus.SUCCEEDED, null, null));
+
+		assertThat(e.getCurrentJob().status()).isEqualTo("SUCCEEDED");
+	}
+
+	@Test
+	void rejectsUnreachableStatusWithoutWriting() {
+		when(ddb.getItem(any(GetItemRequest.class)))
+				.thenReturn(GetItemResponse.builder().item(item("job-1", "RUNNING", "t1")).build());
+
+		InvalidStatusTransitionException e = catchThrowableOfType(InvalidStatusTransitionException.class,
+				() -> repository.transitionStatus("job-1", JobStatus.SUBMITTED, null, null));
+
+		assertThat(e.getCurrentJob().status()).isEqualTo("RUNNING");
+		verify(ddb, never()).updateItem(any(UpdateItemRequest.class));
+	}
+
+	@Test
+	void keepsLastTransitionPerJobAndRejectsEarlierOnes() {
+		when(ddb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+				.thenReturn(TransactWriteItemsResponse.builder().build());
+		StatusTransition first = transition("job-1", JobStatus.FAILED);
+		StatusTransition last = transition("job-1", JobStatus.SUCCEEDED);
+		StatusTransition other = transition("job-2", JobStatus.SUCCEEDED);
+
+		TransitionBatchResult result = repository.transitionStatuses(List.of(first, other, last));
+
+		ArgumentCaptor<TransactWriteItemsRequest> request = ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+		verify(ddb).transactWriteItems(request.capture());
+		assertThat(request.getValue().transactItems()).hasSize(2);
+		assertThat(result.applied()).containsExactly(last, other);
+		assertThat(result.rejected()).containsExactly(first);
+	}
+
+	@Test
+	void transactionsCarryTheBulkTimeouts() {
+		when(ddb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+				.thenReturn(TransactWriteItemsResponse.builder().build());
+
+		repository.transitionStatuses(List.of(transition("job-1", JobStatus.SUCCEEDED)));
+
+		ArgumentCaptor<TransactWriteItemsRequest> request = ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+		verify(ddb).transactWriteItems(request.capture());
+		assertThat(request.getValue().overrideConfiguration()).hasValueSatisfying(override -> {
+			assertThat(override.apiCallAttemptTimeout()).contains(Duration.ofSeconds(10));
+			assertThat(override.apiCallTimeout()).contains(Duration.ofSeconds(60));
+		});
+	}
+
+	@Test
+	void splitsTransitionsIntoTransactionsOfAtMostOneHundred() {
+		List<Integer> sizes = new ArrayList<>();
+		when(ddb.transactWriteItems(any(TransactWriteItemsRequest.class))).thenAnswer(invocation -> {
+			synchronized (sizes) {
+				sizes.add(invocation.<TransactWriteItemsRequest>getArgument(0).transactItems().size());
+			}
+			return TransactWriteItemsResponse.builder().build();
+		});
+		List<StatusTransition> transitions = new ArrayList<>();
+		for (int i = 0; i < 150; i++) {
+			transitions.add(transition("job-" + i, JobStatus.SUCCEEDED));
+		}
+
+		TransitionBatchResult result = repository.transitionStatuses(transitions);
+
+		assertThat(sizes).containsExactlyInAnyOrder(100, 50);
+		assertThat(result.applied()).hasSize(150);
+	}
+
+	@Test
+	void dropsItemsWhoseConditionFailedAndResubmitsTheRest() {
+		StatusTransition stale = transition("job-1", JobStatus.SUCCEEDED);
+		StatusTransition fresh = transition("job-2", JobStatus.FAILED);
+		when(ddb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+				.thenThrow(TransactionCanceledException.builder()
+						.cancellationReasons(
+								CancellationReason.builder().code("ConditionalCheckFailed").build(),
+								CancellationReason.builder().code("None").build())
+						.build())
+				.thenReturn(TransactWriteItemsResponse.builder().build());
+
+		TransitionBatchResult result = repository.transitionStatuses(List.of(stale, fresh));
+
+		ArgumentCaptor<TransactWriteItemsRequest> request = ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+		verify(ddb, times(2)).transactWriteItems(request.capture());
+		assertThat(request.getAllValues().get(1).transactItems()).hasSize(1);
+		assertThat(result.applied()).containsExactly(fresh);
+		assertThat(result.rejected()).containsExactly(stale);
+		assertThat(result.unprocessed()).isEmpty();
+	}
+
+	@Test
+	void rejectsUnreachableStatusesAndReportsFailedTransactionsAsUnprocessed() {
+		when(ddb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+				.thenThrow(new IllegalStateException("connection reset"));
+		StatusTransition unreachable = transition("job-1", JobStatus.SUBMITTED);
+		StatusTransition pending = transition("job-2", JobStatus.SUCCEEDED);
+
+		TransitionBatchResult result = repository.transitionStatuses(List.of(unreachable, pending));
+
+		assertThat(result.applied()).isEmpty();
+		assertThat(result.rejected()).containsExactly(unreachable);
+		assertThat(result.unprocessed()).containsExactly(pending);
+	}
+
+	static JobsRepository repository(DynamoDbClient ddb) {
+		MetricsService metrics = new MetricsService(new SimpleMeterRegistry());
+		return new JobsRepository(ddb,
+				new JobCache(metrics, 100, Duration.ofMinutes(1), Duration.ofMinutes(10)),
+				new Hedger(metrics, false, Duration.ofMillis(50), Duration.ofMillis(5), 50),
+				"jobs", 1, 8, Duration.ofSeconds(10), Duration.ofSeconds(60));
+	}
+
+	private static StatusTransition transition(String jobId, JobStatus status) {
+		return new StatusTransition(jobId, status, null, null);
+	}
+
+	static Map<String, AttributeValue> item(String jobId, String status, String updatedAt) {
+		Map<String, AttributeValue> item = new HashMap<>();
+		item.put("jobId", AttributeValue.fromS(jobId));
+		item.put("status", AttributeValue.fromS(status));
+		item.put("createdAt", AttributeValue.fromS("t0"));
+		item.put("updatedAt", AttributeValue.fromS(updatedAt));
+		return item;
+	}
+
+}
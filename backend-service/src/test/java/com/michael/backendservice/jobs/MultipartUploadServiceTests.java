@@ -0,0 +1,122 @@
+package com.michael.backendservice.jobs;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedUploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class MultipartUploadServiceTests {
+
+	private static final long MB = DataSize.ofMegabytes(1).toBytes();
+	private static final long GB = DataSize.ofGigabytes(1).toBytes();
+
+	private final S3Client s3Client = mock(S3Client.class);
+	private final S3Presigner presigner = mock(S3Presigner.class);
+	private final MultipartUploadService service = new MultipartUploadService(s3Client, presigner, "raw",
+			DataSize.ofMegabytes(64), Duration.ofHours(1), 5000, Duration.ofMinutes(15));
+
+	@Test
+	void usesRequestedOrDefaultPartSize() {
+		assertThat(service.partSizeFor(GB, null)).isEqualTo(64 * MB);
+		assertThat(service.partSizeFor(GB, 16 * MB)).isEqualTo(16 * MB);
+	}
+
+	@Test
+	void keepsPartSizeWithinS3Limits() {
+		assertThat(service.partSizeFor(GB, MB)).isEqualTo(5 * MB);
+		assertThat(service.partSizeFor(GB, 10 * GB)).isEqualTo(5 * GB);
+	}
+
+	@Test
+	void raisesPartSizeToFitTheUploadInMaxParts() {
+		long contentLength = 1000 * GB;
+
+		long partSize = service.partSizeFor(contentLength, 8 * MB);
+
+		assertThat(partSize).isEqualTo((contentLength + 9_999) / 10_000);
+		assertThat(MultipartUploadService.partCount(contentLength, partSize)).isEqualTo(10_000);
+	}
+
+	@Test
+	void rejectsMissingOrOversizedContentLength() {
+		assertThatThrownBy(() -> service.partSizeFor(null, null)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> service.partSizeFor(0L, null)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> service.partSizeFor(DataSize.ofTerabytes(5).toBytes() + 1, null))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void countsPartsRoundingUp() {
+		assertThat(MultipartUploadService.partCount(10 * MB, 5 * MB)).isEqualTo(2);
+		assertThat(MultipartUploadService.partCount(10 * MB + 1, 5 * MB)).isEqualTo(3);
+		assertThat(MultipartUploadService.partCount(1, 5 * MB)).isEqualTo(1);
+	}
+
+	@Test
+	void capsInitialPartUrlsAtThePresignBatch() {
+		assertThat(service.initialPartUrls()).isEqualTo(1000);
+	}
+
+	@Test
+	void presignsRequestedParts() throws MalformedURLException {
+		PresignedUploadPartRequest presigned = mock(PresignedUploadPartRequest.class);
+		when(presigned.url()).thenReturn(URI.create("https://raw.s3/part").toURL());
+		when(presigner.presignUploadPart(any(UploadPartPresignRequest.class))).thenReturn(presigned);
+
+		assertThat(service.presignParts("key", "upload", List.of(1, 2, 3)))
+				.extracting(MultipartUploadResponse.UploadPartUrl::partNumber)
+				.containsExactly(1, 2, 3);
+	}
+
+	@Test
+	void rejectsInvalidPartNumbersAndOversizedBatches() {
+		assertThatThrownBy(() -> service.presignParts("key", "upload", List.of(0)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> service.presignParts("key", "upload", List.of(10_001)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> service.presignParts("key", "upload", Collections.nCopies(1001, 1)))
+				.isInstanceOf(IllegalArgumentException.class);
+		verifyNoInteractions(presigner);
+	}
+
+	@Test
+	void completesWithPartsInOrderAndTheLongTimeout() {
+		service.complete("key", "upload", List.of(
+				new CompleteUploadRequest.Part(2, "etag-2"),
+				new CompleteUploadRequest.Part(1, "etag-1")));
+
+		verify(s3Client).completeMultipartUpload(argThat(
+				(CompleteMultipartUploadRequest request) -> request.multipartUpload().parts().stream().map(CompletedPart::partNumber).toList()
+						.equals(List.of(1, 2))
+						&& request.overrideConfiguration().orElseThrow().apiCallTimeout()
+								.orElseThrow().equals(Duration.ofMinutes(15))));
+	}
+
+	@Test
+	void rejectsPartsWithoutETag() {
+		assertThatThrownBy(() -> service.complete("key", "upload", List.of(new CompleteUploadRequest.Part(1, " "))))
+				.isInstanceOf(IllegalArgumentException.class);
+		verifyNoInteractions(s3Client);
+	}
+
+}
@@ -0,0 +1,123 @@
+package com.michael.backendservice.jobs;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.michael.backendservice.jobs.S3OutputLister.OutputObject;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class OutputManifestStoreTests {
+
+	private static final String OUTPUT_PATH = "jobs/j1/output/";
+
+	private final S3OutputLister outputLister = mock(S3OutputLister.class);
+	private final S3Client s3Client = mock(S3Client.class);
+	private final JobsRepository repo = mock(JobsRepository.class);
+	private OutputManifestStore store;
+
+	@AfterEach
+	void stop() {
+		if (store != null) {
+			store.destroy();
+		}
+	}
+
+	@Test
+	void buildsAndStoresManifestWhenNoneExists() {
+		store = store(true);
+		missingManifest();
+		when(outputLister.listOutputObjects("processed", OUTPUT_PATH)).thenReturn(List.of(
+				new OutputObject(OUTPUT_PATH + "part-0.parquet", 10),
+				new OutputObject(OUTPUT_PATH + "part-1.parquet", 20)));
+
+		OutputManifest manifest = store.getOrBuild("j1", OUTPUT_PATH);
+
+		assertThat(manifest.totalFiles()).isEqualTo(2);
+		verify(s3Client).putObject(argThat((PutObjectRequest request) -> request.bucket().equals("processed")
+				&& request.key().equals(OUTPUT_PATH + "_manifest.json")), any(RequestBody.class));
+		verify(repo).setOutputTotals("j1", 2, 30);
+	}
+
+	@Test
+	void readsStoredManifestWithoutListing() throws Exception {
+		store = store(true);
+		OutputManifest stored = OutputManifest.of("j1", OUTPUT_PATH, "2024-01-01T00:00:00Z",
+				List.of(new OutputObject(OUTPUT_PATH + "part-0.parquet", 10)));
+		when(s3Client.getObjectAsBytes(any(GetObjectRequest.class))).thenReturn(ResponseBytes.fromByteArray(
+				GetObjectResponse.builder().build(), new ObjectMapper().writeValueAsBytes(stored)));
+
+		assertThat(store.getOrBuild("j1", OUTPUT_PATH)).isEqualTo(stored);
+		verifyNoInteractions(outputLister, repo);
+	}
+
+	@Test
+	void rebuildsUnreadableManifest() {
+		store = store(true);
+		when(s3Client.getObjectAsBytes(any(GetObjectRequest.class))).thenReturn(ResponseBytes.fromByteArray(
+				GetObjectResponse.builder().build(), "not json".getBytes()));
+		when(outputLister.listOutputObjects("processed", OUTPUT_PATH)).thenReturn(List.of());
+
+		assertThat(store.getOrBuild("j1", OUTPUT_PATH).totalFiles()).isZero();
+		verify(repo).setOutputTotals("j1", 0, 0);
+	}
+
+	@Test
+	void keepsLoadedManifestInMemory() {
+		store = store(true);
+		missingManifest();
+		when(outputLister.listOutputObjects("processed", OUTPUT_PATH)).thenReturn(List.of());
+
+		assertThat(store.getIfLoaded("j1")).isNull();
+		OutputManifest first = store.getOrBuild("j1", OUTPUT_PATH);
+
+		assertThat(store.getOrBuild("j1", OUTPUT_PATH)).isSameAs(first);
+		assertThat(store.getIfLoaded("j1")).isSameAs(first);
+		verify(outputLister, times(1)).listOutputObjects(anyString(), anyString());
+	}
+
+	@Test
+	void buildsInBackgroundOnSuccessOnlyWhenEnabled() {
+		missingManifest();
+		when(outputLister.listOutputObjects("processed", OUTPUT_PATH)).thenReturn(List.of());
+
+		store = store(false);
+		store.buildAsync("j1", OUTPUT_PATH);
+		store.loadAsync("j2", null);
+		verify(outputLister, timeout(100).times(0)).listOutputObjects(anyString(), anyString());
+		store.destroy();
+
+		store = store(true);
+		store.buildAsync("j1", OUTPUT_PATH);
+		verify(repo, timeout(2000)).setOutputTotals("j1", 0, 0);
+	}
+
+	private OutputManifestStore store(boolean buildOnSuccess) {
+		return new OutputManifestStore(outputLister, s3Client, repo, "processed", buildOnSuccess, 1000);
+	}
+
+	private void missingManifest() {
+		when(s3Client.getObjectAsBytes(any(GetObjectRequest.class))).thenThrow(NoSuchKeyException.builder().build());
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.michael.backendservice.jobs;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.michael.backendservice.jobs.OutputManifest.Entry;
+import com.michael.backendservice.jobs.S3OutputLister.OutputObject;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutputManifestTests {
+
+	private static final String OUTPUT_PATH = "jobs/j1/output/";
+
+	@Test
+	void storesKeysRelativeToOutputPathWithPartitionsAndTotals() {
+		OutputManifest manifest = manifest();
+
+		assertThat(manifest.totalFiles()).isEqualTo(3);
+		assertThat(manifest.totalSizeBytes()).isEqualTo(60);
+		assertThat(manifest.files()).extracting(Entry::key)
+				.containsExactly("dt=2024-01-01/part-0.parquet", "dt=2024-01-01/part-1.parquet", "summary.csv");
+		assertThat(manifest.files().get(0).partitions()).containsExactly(Map.entry("dt", "2024-01-01"));
+		assertThat(manifest.files().get(2).partitions()).isEmpty();
+		assertThat(manifest.objectKey(manifest.files().get(2))).isEqualTo(OUTPUT_PATH + "summary.csv");
+	}
+
+	@Test
+	void filesInTheSamePartitionShareOnePartitionsMap() {
+		OutputManifest manifest = manifest();
+
+		assertThat(manifest.files().get(0).partitions()).isSameAs(manifest.files().get(1).partitions());
+	}
+
+	@Test
+	void indexAfterFindsFirstFileSortingAfterTheKey() {
+		OutputManifest manifest = manifest();
+
+		assertThat(manifest.indexAfter(null)).isZero();
+		assertThat(manifest.indexAfter(OUTPUT_PATH + "dt=2024-01-01/part-0.parquet")).isEqualTo(1);
+		assertThat(manifest.indexAfter(OUTPUT_PATH + "dt=2024-01-01/part-0.z")).isEqualTo(1);
+		assertThat(manifest.indexAfter(OUTPUT_PATH + "summary.csv")).isEqualTo(3);
+	}
+
+	@Test
+	void survivesJsonRoundTrip() throws Exception {
+		ObjectMapper objectMapper = new ObjectMapper();
+		OutputManifest manifest = manifest();
+
+		OutputManifest read = objectMapper.readValue(objectMapper.writeValueAsBytes(manifest), OutputManifest.class);
+
+		assertThat(read).isEqualTo(manifest);
+		assertThat(read.files().get(0).partitions()).isSameAs(read.files().get(1).partitions());
+	}
+
+	@Test
+	void nullFilesBecomeEmpty() {
+		assertThat(new OutputManifest("j1", OUTPUT_PATH, "2024-01-01T00:00:00Z", 0, 0, null).files()).isEmpty();
+	}
+
+	private static OutputManifest manifest() {
+		return OutputManifest.of("j1", OUTPUT_PATH, "2024-01-01T00:00:00Z", List.of(
+				new OutputObject(OUTPUT_PATH + "dt=2024-01-01/part-0.parquet", 10),
+				new OutputObject(OUTPUT_PATH + "dt=2024-01-01/part-1.parquet", 20),
+				new OutputObject(OUTPUT_PATH + "summary.csv", 30)));
+	}
+
+}
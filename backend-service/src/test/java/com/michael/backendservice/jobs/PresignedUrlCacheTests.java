@@ -0,0 +1,89 @@
+package com.michael.backendservice.jobs;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+import com.michael.backendservice.jobs.PresignedUrlCache.PresignedUrl;
+
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PresignedUrlCacheTests {
+
+	private final S3Presigner presigner = mock(S3Presigner.class);
+
+	PresignedUrlCacheTests() throws MalformedURLException {
+		PresignedGetObjectRequest get = mock(PresignedGetObjectRequest.class);
+		when(get.url()).thenReturn(URI.create("https://bucket.s3/get").toURL());
+		when(get.expiration()).thenAnswer(invocation -> Instant.now().plusSeconds(300));
+		when(presigner.presignGetObject(any(GetObjectPresignRequest.class))).thenReturn(get);
+
+		PresignedPutObjectRequest put = mock(PresignedPutObjectRequest.class);
+		when(put.url()).thenReturn(URI.create("https://bucket.s3/put").toURL());
+		when(put.expiration()).thenAnswer(invocation -> Instant.now().plusSeconds(300));
+		when(presigner.presignPutObject(any(PutObjectPresignRequest.class))).thenReturn(put);
+	}
+
+	@Test
+	void reusesSignedUrlForTheSameObject() {
+		PresignedUrlCache cache = cache(Duration.ofSeconds(150));
+
+		PresignedUrl first = cache.presignGet("bucket", "a");
+		PresignedUrl second = cache.presignGet("bucket", "a");
+
+		assertThat(second.url()).isEqualTo(first.url()).isEqualTo("https://bucket.s3/get");
+		verify(presigner, times(1)).presignGetObject(any(GetObjectPresignRequest.class));
+	}
+
+	@Test
+	void signsEachObjectOperationAndContentTypeSeparately() {
+		PresignedUrlCache cache = cache(Duration.ofSeconds(150));
+
+		cache.presignGet("bucket", "a");
+		cache.presignGet("bucket", "b");
+		cache.presignPut("bucket", "a", "text/csv");
+		cache.presignPut("bucket", "a", "application/json");
+
+		verify(presigner, times(2)).presignGetObject(any(GetObjectPresignRequest.class));
+		verify(presigner, times(2)).presignPutObject(any(PutObjectPresignRequest.class));
+	}
+
+	@Test
+	void reportsTimeRemainingRatherThanFullValidity() {
+		PresignedUrl url = cache(Duration.ofSeconds(150)).presignPut("bucket", "a", "text/csv");
+
+		assertThat(url.url()).isEqualTo("https://bucket.s3/put");
+		assertThat(url.expiresInSeconds()).isBetween(298, 300);
+	}
+
+	@Test
+	void resignsOnceMinimumRemainingValidityIsReached() throws InterruptedException {
+		// Reusable for only 50ms of the 300s validity
+		PresignedUrlCache cache = cache(Duration.ofSeconds(300).minusMillis(50));
+
+		cache.presignGet("bucket", "a");
+		Thread.sleep(100);
+		cache.presignGet("bucket", "a");
+
+		verify(presigner, times(2)).presignGetObject(any(GetObjectPresignRequest.class));
+	}
+
+	private PresignedUrlCache cache(Duration minRemaining) {
+		return new PresignedUrlCache(presigner, Duration.ofSeconds(300), minRemaining, 100);
+	}
+
+}
@@ -0,0 +1,123 @@
+package com.michael.backendservice.jobs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.michael.backendservice.jobs.PresignedUrlCache.PresignedUrl;
+import com.michael.backendservice.jobs.S3OutputLister.OutputObject;
+import com.michael.backendservice.jobs.S3OutputLister.OutputPage;
+
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Iterable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class S3OutputListerTests {
+
+	private static final String OUTPUT_PATH = "jobs/j1/output/";
+
+	private final S3Client s3Client = mock(S3Client.class);
+	private final PresignedUrlCache presignedUrls = mock(PresignedUrlCache.class);
+	private final S3OutputLister lister = new S3OutputLister(s3Client, presignedUrls);
+
+	@Test
+	void listsOutputFilesAcrossPagesSkippingMetadata() {
+		when(s3Client.listObjectsV2Paginator(any(ListObjectsV2Request.class)))
+				.thenAnswer(invocation -> new ListObjectsV2Iterable(s3Client, invocation.getArgument(0)));
+		when(s3Client.listObjectsV2(any(ListObjectsV2Request.class))).thenReturn(
+				ListObjectsV2Response.builder()
+						.contents(object("_SUCCESS"), object("dt=2024-01-01/"), object("dt=2024-01-01/part-0.parquet"))
+						.isTruncated(true)
+						.nextContinuationToken("next")
+						.build(),
+				ListObjectsV2Response.builder()
+						.contents(object("_manifest.json"), object("part-1.parquet"), object("_metadata/schema"))
+						.isTruncated(false)
+						.build());
+
+		List<OutputObject> objects = lister.listOutputObjects("processed", OUTPUT_PATH);
+
+		assertThat(objects).extracting(OutputObject::key)
+				.containsExactly(OUTPUT_PATH + "dt=2024-01-01/part-0.parquet", OUTPUT_PATH + "part-1.parquet");
+	}
+
+	@Test
+	void listsOnePageAfterTheGivenKey() {
+		when(s3Client.listObjectsV2(any(ListObjectsV2Request.class))).thenReturn(ListObjectsV2Response.builder()
+				.contents(object("part-1.parquet"), object("part-2.parquet"))
+				.isTruncated(true)
+				.build());
+
+		OutputPage page = lister.listOutputPage("processed", OUTPUT_PATH, OUTPUT_PATH + "part-0.parquet", 2);
+
+		ArgumentCaptor<ListObjectsV2Request> request = ArgumentCaptor.forClass(ListObjectsV2Request.class);
+		verify(s3Client).listObjectsV2(request.capture());
+		assertThat(request.getValue().startAfter()).isEqualTo(OUTPUT_PATH + "part-0.parquet");
+		assertThat(request.getValue().maxKeys()).isEqualTo(2);
+		assertThat(page.objects()).hasSize(2);
+		assertThat(page.lastKey()).isEqualTo(OUTPUT_PATH + "part-2.parquet");
+	}
+
+	@Test
+	void continuesFromLastKeyReadEvenWhenItIsNotAnOutputFile() {
+		when(s3Client.listObjectsV2(any(ListObjectsV2Request.class))).thenReturn(ListObjectsV2Response.builder()
+				.contents(object("part-0.parquet"), object("_SUCCESS"))
+				.isTruncated(true)
+				.build());
+
+		OutputPage page = lister.listOutputPage("processed", OUTPUT_PATH, null, 2);
+
+		assertThat(page.objects()).extracting(OutputObject::key).containsExactly(OUTPUT_PATH + "part-0.parquet");
+		assertThat(page.lastKey()).isEqualTo(OUTPUT_PATH + "_SUCCESS");
+	}
+
+	@Test
+	void lastPageHasNoLastKey() {
+		when(s3Client.listObjectsV2(any(ListObjectsV2Request.class))).thenReturn(ListObjectsV2Response.builder()
+				.contents(object("part-0.parquet"))
+				.isTruncated(false)
+				.build());
+
+		assertThat(lister.listOutputPage("processed", OUTPUT_PATH, null, 2).lastKey()).isNull();
+	}
+
+	@Test
+	void presignsInInputOrderAndToleratesSigningFailures() {
+		List<OutputObject> objects = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			objects.add(new OutputObject(OUTPUT_PATH + "part-" + i + ".parquet", i));
+		}
+		when(presignedUrls.presignGet(eq("processed"), anyString())).thenAnswer(invocation -> {
+			String key = invocation.getArgument(1);
+			if (key.endsWith("part-7.parquet")) {
+				throw new IllegalStateException("boom");
+			}
+			return new PresignedUrl("https://processed.s3/" + key, 300);
+		});
+
+		List<OutputFile> files = lister.presign("processed", objects);
+
+		assertThat(files).extracting(OutputFile::s3Key)
+				.containsExactlyElementsOf(objects.stream().map(OutputObject::key).toList());
+		assertThat(files.get(0).fileName()).isEqualTo("part-0.parquet");
+		assertThat(files.get(0).downloadUrl()).isEqualTo("https://processed.s3/" + OUTPUT_PATH + "part-0.parquet");
+		assertThat(files.get(7).downloadUrl()).isNull();
+	}
+
+	private static S3Object object(String relativeKey) {
+		return S3Object.builder().key(OUTPUT_PATH + relativeKey).size(1L).build();
+	}
+
+}
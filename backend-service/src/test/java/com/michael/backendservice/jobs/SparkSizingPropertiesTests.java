@@ -0,0 +1,53 @@
+package com.michael.backendservice.jobs;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SparkSizingPropertiesTests {
+
+	private static final SparkResourceProfile SMALL = tier("small", DataSize.ofMegabytes(256));
+	private static final SparkResourceProfile MEDIUM = tier("medium", DataSize.ofGigabytes(4));
+	private static final SparkResourceProfile LARGE = tier("large", null);
+
+	@Test
+	void picksFirstTierCoveringTheInput() {
+		SparkSizingProperties sizing = new SparkSizingProperties(List.of(SMALL, MEDIUM, LARGE), "medium");
+
+		assertThat(sizing.profileFor(0)).contains(SMALL);
+		assertThat(sizing.profileFor(DataSize.ofMegabytes(256).toBytes())).contains(SMALL);
+		assertThat(sizing.profileFor(DataSize.ofMegabytes(257).toBytes())).contains(MEDIUM);
+		assertThat(sizing.profileFor(DataSize.ofGigabytes(100).toBytes())).contains(LARGE);
+	}
+
+	@Test
+	void usesLastTierWhenNoneCoversTheInput() {
+		SparkSizingProperties sizing = new SparkSizingProperties(List.of(SMALL, MEDIUM), null);
+
+		assertThat(sizing.profileFor(DataSize.ofGigabytes(100).toBytes())).contains(MEDIUM);
+	}
+
+	@Test
+	void usesDefaultTierForUnknownSize() {
+		assertThat(new SparkSizingProperties(List.of(SMALL, MEDIUM, LARGE), "medium").profileFor(-1)).contains(MEDIUM);
+	}
+
+	@Test
+	void usesFirstTierForUnknownSizeWhenDefaultTierIsUnsetOrUnknown() {
+		assertThat(new SparkSizingProperties(List.of(SMALL, MEDIUM, LARGE), null).profileFor(-1)).contains(SMALL);
+		assertThat(new SparkSizingProperties(List.of(SMALL, MEDIUM, LARGE), "huge").profileFor(-1)).contains(SMALL);
+	}
+
+	@Test
+	void returnsNothingWithoutTiers() {
+		assertThat(new SparkSizingProperties(null, "medium").profileFor(1024)).isEmpty();
+	}
+
+	private static SparkResourceProfile tier(String name, DataSize maxInputSize) {
+		return new SparkResourceProfile(name, maxInputSize, 1, "2g", 2, "4g", 1, 2, 4, 16);
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.michael.backendservice.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketTests {
+
+	@Test
+	void startsFullAndAllowsBurstUpToCapacity() {
+		TokenBucket bucket = new TokenBucket(1, 5);
+
+		for (int i = 0; i < 5; i++) {
+			assertThat(bucket.tryAcquire(1)).isTrue();
+		}
+		assertThat(bucket.tryAcquire(1)).isFalse();
+	}
+
+	@Test
+	void refillsOverTime() throws InterruptedException {
+		TokenBucket bucket = new TokenBucket(10, 1);
+
+		assertThat(bucket.tryAcquire(1)).isTrue();
+		assertThat(bucket.tryAcquire(1)).isFalse();
+
+		Thread.sleep(150);
+		assertThat(bucket.tryAcquire(1)).isTrue();
+	}
+
+	@Test
+	void refillIsCappedAtCapacity() throws InterruptedException {
+		TokenBucket bucket = new TokenBucket(100, 2);
+		assertThat(bucket.tryAcquire(2)).isTrue();
+
+		// 100 ms at 100/s would be 10 tokens without the cap
+		Thread.sleep(100);
+		assertThat(bucket.tryAcquire(1)).isTrue();
+		assertThat(bucket.tryAcquire(1)).isTrue();
+		assertThat(bucket.tryAcquire(1)).isFalse();
+	}
+
+	@Test
+	void acquireBlocksUntilTokensRefill() throws InterruptedException {
+		TokenBucket bucket = new TokenBucket(10, 1);
+		bucket.acquire(1);
+
+		long start = System.nanoTime();
+		bucket.acquire(1);
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+		assertThat(elapsedMillis).isGreaterThanOrEqualTo(80);
+	}
+
+	@Test
+	void consumeCanLeaveDebtThatAwaitAvailableWaitsOut() throws InterruptedException {
+		TokenBucket bucket = new TokenBucket(10, 1);
+		bucket.consume(3);
+
+		assertThat(bucket.tryAcquire(0.5)).isFalse();
+
+		long start = System.nanoTime();
+		bucket.awaitAvailable();
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+		// Two tokens of debt at 10/s
+		assertThat(elapsedMillis).isGreaterThanOrEqualTo(180);
+	}
+
+	@Test
+	void rejectsNonPositiveSettings() {
+		assertThatThrownBy(() -> new TokenBucket(0, 1)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new TokenBucket(1, 0)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.michael.backendservice.resilience;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.michael.backendservice.observability.MetricsService;
+import com.michael.backendservice.resilience.CircuitBreaker.State;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.exception.ApiCallAttemptTimeoutException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CircuitBreakerInterceptorTests {
+
+	private final CircuitBreaker breaker = new CircuitBreaker("dynamodb", 1, Duration.ofMinutes(1));
+	private final CircuitBreakerInterceptor interceptor = new CircuitBreakerInterceptor(breaker,
+			new MetricsService(new SimpleMeterRegistry()), request -> request instanceof BatchWriteItemRequest);
+
+	@Test
+	void countsTimeoutsServerErrorsAndThrottlingAsFailures() {
+		fail(GetItemRequest.builder().build(), ApiCallAttemptTimeoutException.create(100));
+		assertThat(breaker.state()).isEqualTo(State.OPEN);
+
+		assertThat(openedBy(DynamoDbException.builder().statusCode(500).build())).isTrue();
+		assertThat(openedBy(throttled())).isTrue();
+		assertThat(openedBy(SdkClientException.create("connection refused"))).isTrue();
+	}
+
+	@Test
+	void countsClientErrorsAsSuccesses() {
+		fail(GetItemRequest.builder().build(), ConditionalCheckFailedException.builder().statusCode(400).build());
+
+		assertThat(breaker.state()).isEqualTo(State.CLOSED);
+	}
+
+	@Test
+	void bulkTimeoutsAndThrottlingCountAsNeither() {
+		fail(BatchWriteItemRequest.builder().build(), ApiCallAttemptTimeoutException.create(100));
+		fail(BatchWriteItemRequest.builder().build(), throttled());
+
+		assertThat(breaker.state()).isEqualTo(State.CLOSED);
+	}
+
+	@Test
+	void bulkServerErrorsStillCount() {
+		fail(BatchWriteItemRequest.builder().build(), DynamoDbException.builder().statusCode(500).build());
+
+		assertThat(breaker.state()).isEqualTo(State.OPEN);
+	}
+
+	@Test
+	void rejectsCallsWhileOpen() {
+		breaker.onFailure();
+
+		assertThatThrownBy(() -> interceptor.beforeExecution(null, new ExecutionAttributes()))
+				.isInstanceOf(CircuitBreakerOpenException.class);
+	}
+
+	private static Throwable throttled() {
+		return ProvisionedThroughputExceededException.builder()
+				.statusCode(400)
+				.awsErrorDetails(AwsErrorDetails.builder().errorCode("ProvisionedThroughputExceededException").build())
+				.build();
+	}
+
+	private boolean openedBy(Throwable error) {
+		CircuitBreaker fresh = new CircuitBreaker("dynamodb", 1, Duration.ofMinutes(1));
+		new CircuitBreakerInterceptor(fresh, new MetricsService(new SimpleMeterRegistry()))
+				.onExecutionFailure(failed(GetItemRequest.builder().build(), error), new ExecutionAttributes());
+		return fresh.state() == State.OPEN;
+	}
+
+	private void fail(SdkRequest request, Throwable error) {
+		interceptor.onExecutionFailure(failed(request, error), new ExecutionAttributes());
+	}
+
+	private static Context.FailedExecution failed(SdkRequest request, Throwable error) {
+		Context.FailedExecution context = mock(Context.FailedExecution.class);
+		when(context.request()).thenReturn(request);
+		when(context.exception()).thenReturn(error);
+		return context;
+	}
+
+}
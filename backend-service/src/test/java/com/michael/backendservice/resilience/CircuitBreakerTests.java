@@ -0,0 +1,93 @@
+package com.michael.backendservice.resilience;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.michael.backendservice.resilience.CircuitBreaker.State;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTests {
+
+	@Test
+	void opensAfterConsecutiveFailures() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 3, Duration.ofMinutes(1));
+
+		breaker.onFailure();
+		breaker.onFailure();
+		assertThat(breaker.state()).isEqualTo(State.CLOSED);
+		assertThat(breaker.tryAcquire()).isTrue();
+
+		breaker.onFailure();
+		assertThat(breaker.state()).isEqualTo(State.OPEN);
+		assertThat(breaker.isOpen()).isTrue();
+		assertThat(breaker.tryAcquire()).isFalse();
+	}
+
+	@Test
+	void successResetsTheFailureCount() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 2, Duration.ofMinutes(1));
+
+		breaker.onFailure();
+		breaker.onSuccess();
+		breaker.onFailure();
+
+		assertThat(breaker.state()).isEqualTo(State.CLOSED);
+	}
+
+	@Test
+	void letsOneTrialThroughOnceOpenPeriodHasPassed() throws InterruptedException {
+		CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ofMillis(30));
+		breaker.onFailure();
+
+		Thread.sleep(50);
+
+		assertThat(breaker.isOpen()).isFalse();
+		assertThat(breaker.tryAcquire()).isTrue();
+		assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+		assertThat(breaker.tryAcquire()).isFalse();
+	}
+
+	@Test
+	void successfulTrialClosesTheBreaker() throws InterruptedException {
+		CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ofMillis(30));
+		breaker.onFailure();
+		Thread.sleep(50);
+		breaker.tryAcquire();
+
+		breaker.onSuccess();
+
+		assertThat(breaker.state()).isEqualTo(State.CLOSED);
+		assertThat(breaker.tryAcquire()).isTrue();
+	}
+
+	@Test
+	void failedTrialReopensTheBreaker() throws InterruptedException {
+		CircuitBreaker breaker = new CircuitBreaker("test", 5, Duration.ofMillis(30));
+		for (int i = 0; i < 5; i++) {
+			breaker.onFailure();
+		}
+		Thread.sleep(50);
+		breaker.tryAcquire();
+
+		breaker.onFailure();
+
+		assertThat(breaker.state()).isEqualTo(State.OPEN);
+		assertThat(breaker.tryAcquire()).isFalse();
+	}
+
+	@Test
+	void neutralTrialLeavesBreakerHalfOpenForTheNextCall() throws InterruptedException {
+		CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ofMillis(30));
+		breaker.onFailure();
+		Thread.sleep(50);
+		breaker.tryAcquire();
+
+		breaker.onNeutral();
+
+		assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+		assertThat(breaker.tryAcquire()).isTrue();
+	}
+
+}
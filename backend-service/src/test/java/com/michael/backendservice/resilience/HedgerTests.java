@@ -0,0 +1,132 @@
+package com.michael.backendservice.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.michael.backendservice.observability.MetricsService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HedgerTests {
+
+	@Test
+	void fastCallIsNotHedged() throws InterruptedException {
+		Hedger hedger = hedger(true, 1000);
+		AtomicInteger calls = new AtomicInteger();
+
+		String result = hedger.hedgeBlocking("op", () -> {
+			calls.incrementAndGet();
+			return "ok";
+		});
+		Thread.sleep(60);
+
+		assertThat(result).isEqualTo("ok");
+		assertThat(calls).hasValue(1);
+	}
+
+	@Test
+	void slowCallIsHedgedAndFasterAttemptWins() {
+		Hedger hedger = hedger(true, 1000);
+		AtomicInteger calls = new AtomicInteger();
+		CountDownLatch neverReleased = new CountDownLatch(1);
+
+		String result = hedger.hedgeBlocking("op", () -> {
+			if (calls.incrementAndGet() == 1) {
+				await(neverReleased);
+				return "slow";
+			}
+			return "hedge";
+		});
+
+		assertThat(result).isEqualTo("hedge");
+		assertThat(calls).hasValue(2);
+	}
+
+	@Test
+	void failsOnlyWhenEveryAttemptFails() {
+		Hedger hedger = hedger(true, 1000);
+		AtomicInteger calls = new AtomicInteger();
+
+		String result = hedger.hedge("op", () -> calls.incrementAndGet() == 1
+				? CompletableFuture.<String>supplyAsync(() -> {
+					sleep(30);
+					throw new IllegalStateException("first attempt failed");
+				})
+				: CompletableFuture.supplyAsync(() -> {
+					sleep(60);
+					return "hedge";
+				})).join();
+
+		assertThat(result).isEqualTo("hedge");
+	}
+
+	@Test
+	void propagatesFailureOfUnhedgedCall() {
+		Hedger hedger = hedger(true, 1000);
+
+		assertThatThrownBy(() -> hedger.hedgeBlocking("op", () -> {
+			throw new IllegalArgumentException("bad request");
+		})).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void hedgeBudgetCapsExtraCalls() {
+		Hedger hedger = hedger(true, 1);
+		AtomicInteger calls = new AtomicInteger();
+
+		for (int i = 0; i < 3; i++) {
+			hedger.hedgeBlocking("op", () -> {
+				calls.incrementAndGet();
+				sleep(40);
+				return "ok";
+			});
+		}
+
+		// Three calls, one hedge allowed by the bucket
+		assertThat(calls).hasValue(4);
+	}
+
+	@Test
+	void disabledHedgerCallsOnce() {
+		Hedger hedger = hedger(false, 1000);
+		AtomicInteger calls = new AtomicInteger();
+
+		hedger.hedgeBlocking("op", () -> {
+			calls.incrementAndGet();
+			sleep(40);
+			return "ok";
+		});
+
+		assertThat(calls).hasValue(1);
+	}
+
+	private static Hedger hedger(boolean enabled, double maxHedgesPerSecond) {
+		return new Hedger(new MetricsService(new SimpleMeterRegistry()), enabled,
+				Duration.ofMillis(10), Duration.ofMillis(1), maxHedgesPerSecond);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
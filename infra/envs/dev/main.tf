@@ -34,6 +34,8 @@ module "iam" {
   processed_bucket_arn = module.s3.processed_bucket_arn
   jobs_table_arn       = module.dynamodb.jobs_table_arn
   emr_job_role_arn     = module.emr_serverless.job_role_arn
+
+  poller_leases_table_arn = module.dynamodb.poller_leases_table_arn
 }
 
 module "emr_serverless" {
@@ -68,6 +70,8 @@ module "ecs_backend" {
   processed_bucket_name = module.s3.processed_bucket_name
   jobs_table_name       = module.dynamodb.jobs_table_name
 
+  poller_leases_table_name = module.dynamodb.poller_leases_table_name
+
   emr_application_id = module.emr_serverless.application_id
   emr_job_role_arn   = module.emr_serverless.job_role_arn
 
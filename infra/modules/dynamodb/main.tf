@@ -1,5 +1,6 @@
 locals {
-  table_name = "${var.project_name}-${var.environment}-jobs"
+  table_name        = "${var.project_name}-${var.environment}-jobs"
+  leases_table_name = "${var.project_name}-${var.environment}-poller-leases"
 }
 
 resource "aws_dynamodb_table" "jobs" {
@@ -22,6 +23,12 @@ resource "aws_dynamodb_table" "jobs" {
     type = "S"
   }
 
+  # Only set while a job is SUBMITTED or RUNNING, which keeps the index below sparse
+  attribute {
+    name = "activeStatus"
+    type = "S"
+  }
+
   global_secondary_index {
     name            = "jobPartition-createdAt-index"
     hash_key        = "jobPartition"
@@ -29,9 +36,36 @@ resource "aws_dynamodb_table" "jobs" {
     projection_type = "ALL"
   }
 
+  global_secondary_index {
+    name            = "activeStatus-createdAt-index"
+    hash_key        = "activeStatus"
+    range_key       = "createdAt"
+    projection_type = "ALL"
+  }
+
   point_in_time_recovery {
     enabled = true
   }
 
   tags = var.tags
-}
\ No newline at end of file
+}
+
+# One item per backend-service replica; used to split status polling across replicas
+resource "aws_dynamodb_table" "poller_leases" {
+  name         = local.leases_table_name
+  billing_mode = "PAY_PER_REQUEST"
+  hash_key     = "memberId"
+
+  attribute {
+    name = "memberId"
+    type = "S"
+  }
+
+  # Cleans up leases of replicas that stopped without releasing them
+  ttl {
+    attribute_name = "ttl"
+    enabled        = true
+  }
+
+  tags = var.tags
+}
@@ -5,3 +5,11 @@ output "jobs_table_name" {
 output "jobs_table_arn" {
   value = aws_dynamodb_table.jobs.arn
 }
+
+output "poller_leases_table_name" {
+  value = aws_dynamodb_table.poller_leases.name
+}
+
+output "poller_leases_table_arn" {
+  value = aws_dynamodb_table.poller_leases.arn
+}
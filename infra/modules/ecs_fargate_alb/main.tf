@@ -177,6 +177,7 @@ resource "aws_ecs_task_definition" "this" {
         { name = "RAW_BUCKET", value = var.raw_bucket_name },
         { name = "PROCESSED_BUCKET", value = var.processed_bucket_name },
         { name = "JOBS_TABLE", value = var.jobs_table_name },
+        { name = "POLLER_LEASES_TABLE", value = var.poller_leases_table_name },
         { name = "SPRING_PROFILES_ACTIVE", value = "dev" },
         { name  = "EMR_APPLICATION_ID", value = var.emr_application_id },
         { name  = "EMR_JOB_ROLE_ARN", value = var.emr_job_role_arn },
@@ -38,6 +38,10 @@ variable "jobs_table_name" {
   type = string
 }
 
+variable "poller_leases_table_name" {
+  type = string
+}
+
 variable "container_port" {
   type    = number
   default = 8080
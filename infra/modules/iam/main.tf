@@ -47,6 +47,8 @@ data "aws_iam_policy_document" "task_policy" {
     actions = [
       "s3:GetObject",
       "s3:PutObject",
+      "s3:AbortMultipartUpload",
+      "s3:ListMultipartUploadParts",
     ]
     resources = [
       "${var.raw_bucket_arn}/*",
@@ -63,8 +65,27 @@ data "aws_iam_policy_document" "task_policy" {
       "dynamodb:UpdateItem",
       "dynamodb:DeleteItem",
       "dynamodb:Query",
+      "dynamodb:Scan",
+      "dynamodb:BatchWriteItem",
+      "dynamodb:BatchGetItem",
+    ]
+    resources = [
+      var.jobs_table_arn,
+      "${var.jobs_table_arn}/index/*"
+    ]
+  }
+
+  # Poller lease table (replica heartbeats)
+  statement {
+    effect = "Allow"
+    actions = [
+      "dynamodb:PutItem",
+      "dynamodb:DeleteItem",
+      "dynamodb:Scan",
+    ]
+    resources = [
+      var.poller_leases_table_arn
     ]
-    resources = [var.jobs_table_arn]
   }
 
   # EMR Serverless permissions
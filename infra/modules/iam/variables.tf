@@ -22,6 +22,10 @@ variable "jobs_table_arn" {
   type = string
 }
 
+variable "poller_leases_table_arn" {
+  type = string
+}
+
 variable "emr_job_role_arn" {
   type = string
 }
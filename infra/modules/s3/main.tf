@@ -111,3 +111,9 @@ resource "aws_s3_bucket_lifecycle_configuration" "processed" {
     }
   }
 }
+
+# Publish object events to EventBridge so uploads can start jobs (POST /internal/events/s3)
+resource "aws_s3_bucket_notification" "raw" {
+  bucket      = aws_s3_bucket.raw.id
+  eventbridge = true
+}
@@ -1,24 +1,82 @@
 package com.michael.spark
 
-import org.apache.spark.sql.{SparkSession, SaveMode}
+import org.apache.spark.sql.{DataFrame, SparkSession, SaveMode}
 import org.apache.spark.sql.functions._
 
+import scala.util.control.NonFatal
+
+/** Outcome of one job in a manifest run, written as a JSON line to the results path. */
+case class JobResult(jobId: String, status: String, message: String, rowCount: Long)
+
 object SimpleTransformJob {
   def main(args: Array[String]): Unit = {
-    if (args.length < 2) {
+    val batchMode = args.length >= 3 && args(0) == "--manifest"
+
+    if (!batchMode && args.length < 2) {
       System.err.println("Usage: SimpleTransformJob <inputPath> <outputPath>")
+      System.err.println("       SimpleTransformJob --manifest <manifestPath> <resultsPath>")
       System.exit(1)
     }
 
-    val inputPath = args(0)
-    val outputPath = args(1)
-
     val spark = SparkSession.builder()
       .appName("SimpleTransformJob")
       .getOrCreate()
 
+    if (batchMode) {
+      runManifest(spark, args(1), args(2))
+    } else {
+      val rowCount = transform(spark, args(0), args(1))
+      println(s"Job completed successfully ($rowCount rows)")
+    }
+
+    spark.stop()
+  }
+
+  /**
+   * Processes every job listed in a JSON-lines manifest of {"jobId", "inputPath", "outputPath"}
+   * in this one Spark application. A failing job does not stop the others; each job's outcome
+   * is written to resultsPath for the backend to apply per job.
+   */
+  def runManifest(spark: SparkSession, manifestPath: String, resultsPath: String): Unit = {
+    import spark.implicits._
+
+    println(s"Reading manifest from: $manifestPath")
+
+    val entries = spark.read
+      .json(manifestPath)
+      .select("jobId", "inputPath", "outputPath")
+      .collect()
+
+    println(s"Manifest contains ${entries.length} jobs")
+
+    val results = entries.map { entry =>
+      val jobId = entry.getString(0)
+      try {
+        val rowCount = transform(spark, entry.getString(1), entry.getString(2))
+        JobResult(jobId, "SUCCEEDED", null, rowCount)
+      } catch {
+        case NonFatal(e) =>
+          System.err.println(s"Job $jobId failed: ${e.getMessage}")
+          JobResult(jobId, "FAILED", e.getMessage, 0L)
+      }
+    }
+
+    println(s"Writing results to: $resultsPath")
+
+    results.toSeq.toDF()
+      .coalesce(1)
+      .write
+      .mode(SaveMode.Overwrite)
+      .json(resultsPath)
+
+    val failed = results.count(_.status != "SUCCEEDED")
+    println(s"Manifest completed: ${results.length - failed} succeeded, $failed failed")
+  }
+
+  /** Reads a CSV, adds processing columns and writes Parquet. Returns the input row count. */
+  def transform(spark: SparkSession, inputPath: String, outputPath: String): Long = {
     println(s"Reading data from: $inputPath")
-    
+
     // Read CSV with header
     val df = spark.read
       .option("header", "true")
@@ -27,11 +85,12 @@ object SimpleTransformJob {
 
     println(s"Input schema:")
     df.printSchema()
-    
-    println(s"Row count: ${df.count()}")
+
+    val rowCount = df.count()
+    println(s"Row count: $rowCount")
 
     // Simple transformation: add a processing timestamp
-    val transformedDf = df
+    val transformedDf: DataFrame = df
       .withColumn("processed_at", current_timestamp())
       .withColumn("processed_year", year(current_timestamp()))
       .withColumn("processed_month", month(current_timestamp()))
@@ -44,8 +103,6 @@ object SimpleTransformJob {
       .partitionBy("processed_year", "processed_month")
       .parquet(outputPath)
 
-    println(s"Job completed successfully")
-    
-    spark.stop()
+    rowCount
   }
-}
\ No newline at end of file
+}